@@ -0,0 +1,89 @@
+/*
+ * CalculatorBenchmark.java
+ * Measures the calculator window's path: parsing and solving a single typed equation, how that cost
+ * grows with the length of the equation, equations made of trig functions, and the answer history
+ */
+package com.ryan.graphcalc;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CalculatorBenchmark {
+    // a typical equation typed into the calculator window
+    private static final String SINGLE_EQUATION = "2 + 3 * (7 - 4) / 2^2";
+
+    // equation made mostly of trig function calls
+    private static final String TRIG_EQUATION = "sin(0.5) * cos(1.2) + tan(0.3) - sin(cos(0.7)) / cos(sin(0.2))";
+
+    private Calculator mCalc;
+
+    // equation made of a repeated term, for seeing how the cost grows with the length of the equation
+    @State(Scope.Thread)
+    public static class LongEquation {
+        // number of repeated terms in the equation
+        @Param({"1", "4", "16", "64"})
+        public int numTerms;
+
+        private String mEquation;
+
+        @Setup
+        public void setUp() {
+            // each term has every operator and a pair of parentheses
+            StringBuilder equation = new StringBuilder("1");
+            for(int i = 0; i < numTerms; i++) {
+                equation.append(" + (").append(i).append(".5 * 3 - 2) / 4^2");
+            }
+            mEquation = equation.toString();
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        mCalc = new Calculator();
+        for(int i = 0; i < mCalc.NUM_HISTORY_RESULTS; i++) {
+            mCalc.addEnteredEquation(i + " + " + i, (double) (i * 2));
+        }
+    }
+
+    @Benchmark
+    public double singleEquation() throws Exception {
+        return mCalc.processLine(SINGLE_EQUATION);
+    }
+
+    @Benchmark
+    public double equationLength(LongEquation longEquation) throws Exception {
+        return mCalc.processLine(longEquation.mEquation);
+    }
+
+    @Benchmark
+    public double trigEquation() throws Exception {
+        return mCalc.processLine(TRIG_EQUATION);
+    }
+
+    // the work done for each equation entered: adding the answer, browsing back and redrawing the history
+    @Benchmark
+    public int historyOperations() {
+        mCalc.addEnteredEquation("1 + 2", 3.0);
+        String previous = mCalc.getPreviousEquation();
+        String[] equations = mCalc.getEquationsHistory();
+        Double[] answers = mCalc.getAnswersHistory();
+        return previous.length() + equations.length + answers.length;
+    }
+}
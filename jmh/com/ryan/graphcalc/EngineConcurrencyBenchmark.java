@@ -0,0 +1,97 @@
+/*
+ * EngineConcurrencyBenchmark.java
+ * Throughput of sharing one EquationEngine, and the CompiledEquations it makes, between threads. Every
+ * benchmark thread solves the same equations at once. EngineConcurrencyTest checks that the answers
+ * stay identical under the same load
+ */
+package com.ryan.graphcalc;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class EngineConcurrencyBenchmark {
+    // equations covering every operator, negative signs, nesting, implicit multiplication and trig
+    private static final String[] EQUATIONS = {
+            "2 + 3 * 4 - 5 / 2",
+            "-2^2 + (3 - -4) * 2",
+            "y = 3x^2 - 2x + 1",
+            "sin(x) * cos(2x) + tan(x / 4)",
+            "(x + 1)(x - 1) / (x * x + 1)",
+            "2(3 + x)^2 - x sin(x)",
+            "((((x + 1) * 2 - 3) / 4) ^ 2) - cos(sin(x))",
+            "1 / (x - 1.5)"
+    };
+
+    // x values each equation is solved for
+    private static final double[] X_VALS = { -3.75, -1, -0.1, 0, 0.5, 1.5, 2, 7.25 };
+
+    // the engine and its compiled equations, shared by all threads
+    @State(Scope.Benchmark)
+    public static class SharedEngine {
+        final EquationEngine engine = new EquationEngine();
+        final CompiledEquation[] compiledEquations = new CompiledEquation[EQUATIONS.length];
+
+        @Setup
+        public void setUp() throws Exception {
+            for(int i = 0; i < EQUATIONS.length; i++) {
+                // compiled but not solved yet, so the threads race to compile them to bytecode
+                compiledEquations[i] = engine.compile(EQUATIONS[i]);
+            }
+        }
+    }
+
+    // which equation and x value a thread solves next
+    @State(Scope.Thread)
+    public static class Cursor {
+        int equation;
+        int xVal;
+
+        void advance() {
+            if(++xVal == X_VALS.length) {
+                xVal = 0;
+                equation = (equation + 1) % EQUATIONS.length;
+            }
+        }
+    }
+
+    // parse and solve straight from the string
+    @Benchmark
+    public double solve(SharedEngine shared, Cursor cursor) throws Exception {
+        double ans = shared.engine.solve(EQUATIONS[cursor.equation], X_VALS[cursor.xVal]);
+        cursor.advance();
+        return ans;
+    }
+
+    // solve a compiled equation shared by every thread
+    @Benchmark
+    public double compiled(SharedEngine shared, Cursor cursor) {
+        double ans = shared.compiledEquations[cursor.equation].evaluate(X_VALS[cursor.xVal]);
+        cursor.advance();
+        return ans;
+    }
+
+    // compile a new equation every time, the way graph windows and the HTTP service do
+    @Benchmark
+    public double compile(SharedEngine shared, Cursor cursor) throws Exception {
+        double ans = shared.engine.compile(EQUATIONS[cursor.equation]).evaluate(X_VALS[cursor.xVal]);
+        cursor.advance();
+        return ans;
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * EquationBenchmark.java
+ * Compares the ways an equation can be solved: walking the expression tree one x at a time, the
+ * generated bytecode class one x at a time, and the batch evaluator over whole arrays of x values.
+ * Each equation is solved for as many points as a default graph window with a fine step
+ */
+package com.ryan.graphcalc;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EquationBenchmark {
+    // number of x values solved per call
+    private static final int NUM_POINTS = 400000;
+
+    @Param({
+            "2x + 1",
+            "x^3 - 4x^2 + 2x - 7",
+            "sin(x) * cos(2x) + tan(x / 4)",
+            "(x + 1) * (x - 1) / (x * x + 1) - 3 * (2 - x) * (x + 5)",
+            "sin(x)^2 + 2sin(x) + 1"
+    })
+    public String equation;
+
+    private CompiledEquation mCompiledEquation;
+    private EquationNode mRoot;
+
+    // x values shared by every call
+    private final double[] mXVals = new double[NUM_POINTS];
+
+    // answers of the batch calls
+    private final double[] mYVals = new double[NUM_POINTS];
+
+    @Setup
+    public void setUp() throws Exception {
+        double step = 30.0 / NUM_POINTS;
+        for(int i = 0; i < NUM_POINTS; i++) {
+            mXVals[i] = -15 + i * step;
+        }
+        mCompiledEquation = new EquationEngine().compile(equation);
+        mRoot = mCompiledEquation.getRoot();
+        // compile now so the bytecode runs are not measuring the tree
+        mCompiledEquation.isBytecodeCompiled();
+    }
+
+    @Benchmark
+    public double tree() {
+        double sum = 0;
+        for(int i = 0; i < NUM_POINTS; i++) {
+            sum += mRoot.evaluate(mXVals[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double bytecode() {
+        double sum = 0;
+        for(int i = 0; i < NUM_POINTS; i++) {
+            sum += mCompiledEquation.evaluate(mXVals[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double[] batch() {
+        mCompiledEquation.evaluate(mXVals, mYVals, 0, NUM_POINTS);
+        return mYVals;
+    }
+}
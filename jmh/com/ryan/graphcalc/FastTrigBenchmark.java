@@ -0,0 +1,75 @@
+/*
+ * FastTrigBenchmark.java
+ * Compares the Math trig functions with FastTrig, on their own and inside a trig heavy equation solved
+ * in batches like a graph window does. FastTrigTest checks the largest errors
+ */
+package com.ryan.graphcalc;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FastTrigBenchmark {
+    // number of x values solved per call
+    private static final int NUM_POINTS = 400000;
+
+    @Param({"SIN", "COS", "TAN"})
+    public TrigFunction trigFunction;
+
+    private CompiledEquation mFullEquation;
+    private CompiledEquation mFastEquation;
+
+    private final double[] mXVals = new double[NUM_POINTS];
+    private final double[] mYVals = new double[NUM_POINTS];
+
+    @Setup
+    public void setUp() throws Exception {
+        double step = 30.0 / NUM_POINTS;
+        for(int i = 0; i < NUM_POINTS; i++) {
+            mXVals[i] = -15 + i * step;
+        }
+        String equation = "sin(x) * cos(2x) + tan(x / 4)";
+        mFullEquation = new EquationEngine().compile(equation, false);
+        mFastEquation = new EquationEngine().compile(equation, true);
+    }
+
+    @Benchmark
+    public double[] math() {
+        trigFunction.apply(mXVals, mYVals, NUM_POINTS);
+        return mYVals;
+    }
+
+    @Benchmark
+    public double[] fast() {
+        trigFunction.applyFast(mXVals, mYVals, NUM_POINTS);
+        return mYVals;
+    }
+
+    @Benchmark
+    public double[] equationMath() {
+        mFullEquation.evaluate(mXVals, mYVals, 0, NUM_POINTS);
+        return mYVals;
+    }
+
+    @Benchmark
+    public double[] equationFast() {
+        mFastEquation.evaluate(mXVals, mYVals, 0, NUM_POINTS);
+        return mYVals;
+    }
+}
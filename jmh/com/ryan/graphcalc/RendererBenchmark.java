@@ -0,0 +1,130 @@
+/*
+ * RendererBenchmark.java
+ * Measures each PlotRenderer with curves of 10k, 100k and 400k points. Reports the time until the first frame
+ * is shown, the average frame time while the plot is being redrawn, and the heap held by the scene
+ */
+package com.ryan.graphcalc;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.scene.Group;
+import javafx.scene.Scene;
+import javafx.scene.paint.Color;
+import javafx.stage.Stage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class RendererBenchmark extends Application {
+  // number of points drawn in each run
+  private static final int[] POINT_COUNTS = { 10000, 100000, 400000 };
+
+  // frames measured after the first one
+  private static final int MEASURED_FRAMES = 60;
+
+  // frames to wait between runs
+  private static final int SETTLE_FRAMES = 5;
+
+  // same size as the plot area of a GraphDisplayer window
+  private static final double PLOT_WIDTH = 696;
+  private static final double PLOT_HEIGHT = 696;
+
+  // renderer / point count combinations still to run
+  private final List<Runnable> mRuns = new ArrayList<>();
+
+  private Stage mStage;
+
+  @Override
+  public void start(Stage primaryStage) {
+    mStage = primaryStage;
+    mStage.setScene(new Scene(new Group(), PLOT_WIDTH, PLOT_HEIGHT));
+    mStage.show();
+    System.out.printf("%-8s %8s %16s %16s %12s%n", "renderer", "points", "first frame (ms)", "frame time (ms)", "heap (MB)");
+    for (PlotRenderer plotRenderer : new PlotRenderer[] { new NodePlotRenderer(), new CanvasPlotRenderer() }) {
+      for (int numPoints : POINT_COUNTS) {
+        mRuns.add(() -> measure(plotRenderer, numPoints));
+      }
+    }
+    runNext();
+  }
+
+  // start the next run, or quit when all of them are done
+  private void runNext() {
+    if (mRuns.isEmpty()) {
+      Platform.exit();
+      return;
+    }
+    // clear the scene and let a few frames pass so the last run's nodes can be collected
+    mStage.getScene().setRoot(new Group());
+    Runnable nextRun = mRuns.remove(0);
+    new AnimationTimer() {
+      private int mFrame;
+
+      @Override
+      public void handle(long now) {
+        if (++mFrame == SETTLE_FRAMES) {
+          stop();
+          Platform.runLater(nextRun);
+        }
+      }
+    }.start();
+  }
+
+  // draw the points with the renderer and time the frames that follow
+  private void measure(PlotRenderer plotRenderer, int numPoints) {
+    long heapBefore = usedHeap();
+
+    // a noisy curve across the whole plot area, like a dense graph would be
+    Random random = new Random(numPoints);
+    double[] xScreenVals = new double[numPoints];
+    double[] yScreenVals = new double[numPoints];
+    for (int i = 0; i < numPoints; i++) {
+      xScreenVals[i] = PLOT_WIDTH * i / numPoints;
+      yScreenVals[i] = PLOT_HEIGHT / 2 + Math.sin(i * 0.001) * PLOT_HEIGHT / 3 + random.nextGaussian() * 4;
+    }
+
+    long startTime = System.nanoTime();
+    Group plotArea = new Group();
+    plotRenderer.drawCurve(plotArea, xScreenVals, yScreenVals, new int[] { numPoints }, 1,
+                           Color.DARKCYAN, 2, PLOT_WIDTH, PLOT_HEIGHT);
+    mStage.getScene().setRoot(plotArea);
+
+    new AnimationTimer() {
+      private int mFrame;
+      private long mFirstFrameTime;
+
+      @Override
+      public void handle(long now) {
+        mFrame++;
+        if (mFrame == 1) {
+          mFirstFrameTime = System.nanoTime();
+        } else if (mFrame > MEASURED_FRAMES) {
+          stop();
+          double frameMillis = (System.nanoTime() - mFirstFrameTime) / 1e6 / (MEASURED_FRAMES - 1);
+          double heapMegabytes = (usedHeap() - heapBefore) / (1024.0 * 1024.0);
+          System.out.printf("%-8s %8d %16.2f %16.2f %12.1f%n", plotRenderer.getName(), numPoints,
+                            (mFirstFrameTime - startTime) / 1e6, frameMillis, heapMegabytes);
+          runNext();
+          return;
+        }
+        // move the plot by a pixel so every frame has to be drawn again
+        plotArea.setTranslateX(mFrame % 2);
+      }
+    }.start();
+  }
+
+  // heap in use after asking for a garbage collection
+  private static long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  public static void main(String[] args) {
+    launch(args);
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * SamplingBenchmark.java
+ * Measures everything a graph window does to plot an equation except drawing it: the coarse to fine
+ * sampling passes, adaptive refinement, mapping to screen coordinates and decimating per pixel column.
+ * The frames go to a headless sink instead of a JavaFX scene, and nothing is reused between calls
+ */
+package com.ryan.graphcalc;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SamplingBenchmark {
+    // plot area of a default graph window
+    private static final double SCREEN_WIDTH = 696;
+    private static final double SCREEN_HEIGHT = 674;
+    private static final double LEFT_MARGIN = 22;
+    private static final double POINT_SIZE = 2;
+
+    @Param({"x^3 - 4x^2 + 2x - 7", "sin(x) * cos(2x) + tan(x / 4)"})
+    public String equation;
+
+    // the default step of a graph window, and a fine one near the largest graph allowed
+    @Param({"0.025", "0.0001"})
+    public double stepSize;
+
+    @Param({"false", "true"})
+    public boolean adaptiveSampling;
+
+    @Param({"false", "true"})
+    public boolean curvatureSampling;
+
+    private CompiledEquation mCompiledEquation;
+    private final GraphSampler mSampler = new GraphSampler();
+    private final PlotViewport mViewport = new PlotViewport(-15, 15, SCREEN_WIDTH, SCREEN_HEIGHT, LEFT_MARGIN);
+
+    @Setup
+    public void setUp() throws Exception {
+        mCompiledEquation = new EquationEngine().compile(equation);
+    }
+
+    @Benchmark
+    public void plot(Blackhole sink) {
+        // new store and an empty cache so every call samples the graph from scratch
+        PlotSeries series = new PlotSeries(equation, mCompiledEquation, mSampler);
+        SampleCache sampleCache = new SampleCache(0);
+        new PlotJob(1, Collections.singletonList(series), sampleCache, mViewport, stepSize,
+                    adaptiveSampling, curvatureSampling, POINT_SIZE, sink::consume).run();
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * SharedSubexpressionBenchmark.java
+ * Solves a family of related curves over the same x values, once with each equation solved on its own
+ * and once merged into an EquationDag so the parts they have in common are solved once per x value
+ */
+package com.ryan.graphcalc;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SharedSubexpressionBenchmark {
+    // number of x values solved per call
+    private static final int NUM_POINTS = 100000;
+
+    // number of curves in the family
+    @Param({"1", "4", "16"})
+    public int numEquations;
+
+    private CompiledEquation[] mCompiledEquations;
+    private EquationDag mDag;
+
+    private final double[] mXVals = new double[NUM_POINTS];
+    private double[][] mYVals;
+
+    @Setup
+    public void setUp() throws Exception {
+        double step = 30.0 / NUM_POINTS;
+        for(int i = 0; i < NUM_POINTS; i++) {
+            mXVals[i] = -15 + i * step;
+        }
+        EquationEngine engine = new EquationEngine();
+        mCompiledEquations = new CompiledEquation[numEquations];
+        List<EquationNode> roots = new ArrayList<>();
+        for(int i = 0; i < numEquations; i++) {
+            // each curve shares sin(x), cos(x) and their powers with the others
+            mCompiledEquations[i] = engine.compile("sin(x)^2 + " + (i + 1) + "sin(x) * cos(x) + cos(x)^2");
+            roots.add(mCompiledEquations[i].getRoot());
+        }
+        mDag = new EquationDag(roots);
+        mYVals = new double[numEquations][NUM_POINTS];
+    }
+
+    @Benchmark
+    public double[][] separate() {
+        for(int i = 0; i < numEquations; i++) {
+            mCompiledEquations[i].evaluate(mXVals, mYVals[i], 0, NUM_POINTS);
+        }
+        return mYVals;
+    }
+
+    @Benchmark
+    public double[][] shared() {
+        mDag.evaluate(mXVals, mYVals, 0, NUM_POINTS);
+        return mYVals;
+    }
+}
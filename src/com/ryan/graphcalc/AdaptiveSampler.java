@@ -0,0 +1,196 @@
+/*
+ * AdaptiveSampler.java
+ * Samples an equation with fewer points where it is flat and more where it curves. The range is first
+ * sampled at a coarse step, then each interval is split in half for as long as the point in its
+ * middle is further than the tolerance from the straight line between its two ends, down to a
+ * minimum step.
+ * With curvature sampling, the second derivative at each coarse point, found for all of them in one
+ * batch with automatic differentiation, tells how far the curve can bend away from the straight line
+ * between two neighbouring points instead. Each interval is split evenly into as many parts as that
+ * needs, and the new points are solved in one more batch. That solves about half as many points, since
+ * no middle point is solved only to find out it was not needed, but each coarse point costs about two
+ * to three points to differentiate. Intervals whose ends have no second derivative, such as next to
+ * where the equation stops having a value, are still split by their middle points
+ */
+package com.ryan.graphcalc;
+
+import java.util.Arrays;
+
+public class AdaptiveSampler {
+    // equation being sampled
+    private final CompiledEquation mCompiledEquation;
+
+    // scratch space for solving the equation at one x value, kept between calls
+    private final double[] mDerivatives;
+
+    // intervals are not split any smaller than this
+    private final double mMinStep;
+
+    // how far (in y units) the middle of an interval may be from a straight line before it is split
+    private final double mTolerance;
+
+    // how far apart (in y units) two neighbouring points may be before the interval is split
+    private final double mMaxGap;
+
+    // coarse samples further apart than this are the ends of a run that was culled, they are not refined
+    private final double mMaxStep;
+
+    // split intervals by the second derivative at their ends instead of by their middle points
+    private final boolean mCurvatureSampling;
+
+    // points found so far, in increasing order of x
+    private double[] mXVals;
+    private double[] mYVals;
+    private int mNumPoints;
+
+    // points solved by the last refine, including the coarse ones solved again for their derivatives
+    private int mNumEvaluations;
+
+    public AdaptiveSampler(CompiledEquation compiledEquation, double minStep, double tolerance, double maxGap) {
+        this(compiledEquation, minStep, tolerance, maxGap, Double.POSITIVE_INFINITY, false);
+    }
+
+    public AdaptiveSampler(CompiledEquation compiledEquation, double minStep, double tolerance, double maxGap,
+                           double maxStep, boolean curvatureSampling) {
+        mCompiledEquation = compiledEquation;
+        mDerivatives = new double[compiledEquation.getDerivativesLength()];
+        mCurvatureSampling = curvatureSampling;
+        mMinStep = minStep;
+        mTolerance = tolerance;
+        mMaxGap = maxGap;
+        mMaxStep = maxStep;
+    }
+
+    // add points in between the coarse samples wherever the curve needs them
+    public SampleBuffer refine(SampleBuffer coarseSamples) {
+        double[] coarseXVals = coarseSamples.getXVals();
+        double[] coarseYVals = coarseSamples.getYVals();
+        int numCoarse = coarseSamples.getNumPoints();
+
+        // curvature at every coarse point
+        double[] d2yVals = null;
+        mNumEvaluations = 0;
+        if(mCurvatureSampling) {
+            double[] derivativeYVals = new double[numCoarse];
+            double[] dyVals = new double[numCoarse];
+            d2yVals = new double[numCoarse];
+            mCompiledEquation.evaluateDerivatives(coarseXVals, derivativeYVals, dyVals, d2yVals, 0, numCoarse);
+            mNumEvaluations = numCoarse;
+        }
+
+        // number of even parts each interval is split into, 0 for intervals split by their middle point.
+        // The points of the even splits are all solved together
+        int[] numParts = new int[numCoarse];
+        int numPlanned = 0;
+        for(int i = 0; i + 1 < numCoarse; i++) {
+            if(coarseXVals[i + 1] - coarseXVals[i] > mMaxStep) {
+                // ends further apart than mMaxStep are never split
+                numParts[i] = 1;
+            } else if(mCurvatureSampling) {
+                numParts[i] = calcNumParts(coarseXVals[i], coarseYVals[i], d2yVals[i],
+                                           coarseXVals[i + 1], coarseYVals[i + 1], d2yVals[i + 1]);
+            }
+            numPlanned += Math.max(0, numParts[i] - 1);
+        }
+        double[] plannedXVals = new double[numPlanned];
+        double[] plannedYVals = new double[numPlanned];
+        int plannedIndex = 0;
+        for(int i = 0; i + 1 < numCoarse; i++) {
+            for(int part = 1; part < numParts[i]; part++) {
+                plannedXVals[plannedIndex++] = coarseXVals[i]
+                                               + (coarseXVals[i + 1] - coarseXVals[i]) * part / numParts[i];
+            }
+        }
+        if(numPlanned > 0) {
+            mCompiledEquation.evaluate(plannedXVals, plannedYVals, 0, numPlanned);
+            mNumEvaluations += numPlanned;
+        }
+
+        mXVals = new double[Math.max(16, numCoarse * 2 + numPlanned)];
+        mYVals = new double[mXVals.length];
+        mNumPoints = 0;
+        plannedIndex = 0;
+        for(int i = 0; i < numCoarse; i++) {
+            addPoint(coarseXVals[i], coarseYVals[i]);
+            if(i + 1 == numCoarse) {
+                break;
+            }
+            // fill in the interval between this coarse point and the next one
+            if(numParts[i] == 0) {
+                refine(coarseXVals[i], coarseYVals[i], coarseXVals[i + 1], coarseYVals[i + 1]);
+            }
+            for(int part = 1; part < numParts[i]; part++, plannedIndex++) {
+                addPoint(plannedXVals[plannedIndex], plannedYVals[plannedIndex]);
+            }
+        }
+        return new SampleBuffer(mXVals, mYVals, mNumPoints);
+    }
+
+    // number of points solved by the last refine, including the coarse points it solved again to find
+    // their derivatives with curvature sampling
+    public int getNumEvaluations() {
+        return mNumEvaluations;
+    }
+
+    // the number of even parts (a power of two) the interval from x0 to x1 needs so that no part bends
+    // further than the tolerance from its straight line, or 0 if the curvature at its ends is unknown
+    private int calcNumParts(double x0, double y0, double d2y0, double x1, double y1, double d2y1) {
+        if(!Double.isFinite(y0) || !Double.isFinite(y1) || !Double.isFinite(d2y0) || !Double.isFinite(d2y1)
+                || Math.abs(y1 - y0) > mMaxGap) {
+            return 0;
+        }
+        // a curve whose second derivative stays below curvature is at most curvature * width^2 / 8 from
+        // the straight line between the ends of the interval
+        double curvature = Math.max(Math.abs(d2y0), Math.abs(d2y1));
+        double width = x1 - x0;
+        int numParts = 1;
+        while(curvature * (width / numParts) * (width / numParts) / 8 > mTolerance
+                && width / (numParts * 2) >= mMinStep) {
+            numParts *= 2;
+        }
+        return numParts;
+    }
+
+    // add the points in between (x0, y0) and (x1, y1) that are needed, not including either end
+    private void refine(double x0, double y0, double x1, double y1) {
+        if(x1 - x0 < mMinStep * 2) {
+            return;
+        }
+        double xMid = (x0 + x1) / 2;
+        double yMid = mCompiledEquation.evaluate(xMid, mDerivatives);
+        mNumEvaluations++;
+        if(!needsSplit(y0, yMid, y1)) {
+            return;
+        }
+        refine(x0, y0, xMid, yMid);
+        addPoint(xMid, yMid);
+        refine(xMid, yMid, x1, y1);
+    }
+
+    // detect if the middle point is too far from the straight line between the two ends, or the two
+    // ends are too far apart from each other
+    private boolean needsSplit(double y0, double yMid, double y1) {
+        boolean finite0 = Double.isFinite(y0);
+        boolean finiteMid = Double.isFinite(yMid);
+        boolean finite1 = Double.isFinite(y1);
+        // split where the equation starts or stops having a value to find where the edge is
+        if(finite0 != finiteMid || finiteMid != finite1) {
+            return true;
+        }
+        if(!finiteMid) {
+            return false;
+        }
+        return Math.abs(yMid - (y0 + y1) / 2) > mTolerance || Math.abs(y1 - y0) > mMaxGap;
+    }
+
+    // add a point to the end of the arrays
+    private void addPoint(double xVal, double yVal) {
+        if(mNumPoints == mXVals.length) {
+            mXVals = Arrays.copyOf(mXVals, mNumPoints * 2);
+            mYVals = Arrays.copyOf(mYVals, mNumPoints * 2);
+        }
+        mXVals[mNumPoints] = xVal;
+        mYVals[mNumPoints] = yVal;
+        mNumPoints++;
+    }
+}
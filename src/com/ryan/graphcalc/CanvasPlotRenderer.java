@@ -0,0 +1,54 @@
+/*
+ * CanvasPlotRenderer.java
+ * strokes every segment of the graph into a single Canvas, so the scene graph only gains one node
+ * no matter how many points there are
+ */
+package com.ryan.graphcalc;
+
+import javafx.scene.Group;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Paint;
+import javafx.scene.shape.StrokeLineCap;
+import javafx.scene.shape.StrokeLineJoin;
+
+public class CanvasPlotRenderer implements PlotRenderer {
+
+  @Override
+  public String getName() {
+    return "Canvas";
+  }
+
+  @Override
+  public void drawCurve(Group plotArea, double[] xScreenVals, double[] yScreenVals, int[] segmentEnds,
+                        int numSegments, Paint plotColor, double lineWidth, double plotWidth, double plotHeight) {
+    // canvas covers the plot area plus room for a line at its right / bottom edge, it cuts off the rest
+    Canvas canvas = new Canvas(plotWidth + lineWidth + 1, plotHeight + lineWidth + 1);
+    canvas.setMouseTransparent(true);
+    GraphicsContext gc = canvas.getGraphicsContext2D();
+    gc.setFill(plotColor);
+    gc.setStroke(plotColor);
+    gc.setLineWidth(lineWidth);
+    gc.setLineCap(StrokeLineCap.ROUND);
+    gc.setLineJoin(StrokeLineJoin.ROUND);
+
+    int segmentStart = 0;
+    for (int s = 0; s < numSegments; s++) {
+      int segmentEnd = segmentEnds[s];
+      if (segmentEnd - segmentStart == 1) {
+        // a point with no neighbours to join, drawn as a dot as wide as the line
+        gc.fillOval(xScreenVals[segmentStart] - lineWidth / 2, yScreenVals[segmentStart] - lineWidth / 2,
+                    lineWidth, lineWidth);
+      } else {
+        gc.beginPath();
+        gc.moveTo(xScreenVals[segmentStart], yScreenVals[segmentStart]);
+        for (int i = segmentStart + 1; i < segmentEnd; i++) {
+          gc.lineTo(xScreenVals[i], yScreenVals[i]);
+        }
+        gc.stroke();
+      }
+      segmentStart = segmentEnd;
+    }
+    plotArea.getChildren().add(canvas);
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * ColumnarSampleBuffer.java
+ * The points of several graphs sampled over the same x values. The x values are stored once and each
+ * graph has a column of y values lined up with them. Points an IntervalCuller proved need not be solved
+ * have no y value and are left out of the graph's column
+ */
+package com.ryan.graphcalc;
+
+public class ColumnarSampleBuffer {
+    // x value of each point, shared by every column
+    private final double[] xVals;
+
+    // y values of each graph, NaN where its equation has no answer
+    private final double[][] yColumns;
+
+    // number of points stored in each column
+    private final int numPoints;
+
+    // points of each graph that were culled instead of solved, null if no points were culled
+    private final boolean[][] culledColumns;
+
+    public ColumnarSampleBuffer(double[] xVals, double[][] yColumns, int numPoints) {
+        this(xVals, yColumns, numPoints, null);
+    }
+
+    public ColumnarSampleBuffer(double[] xVals, double[][] yColumns, int numPoints, boolean[][] culledColumns) {
+        this.xVals = xVals;
+        this.yColumns = yColumns;
+        this.numPoints = numPoints;
+        this.culledColumns = culledColumns;
+    }
+
+    public double[] getXVals() {
+        return xVals;
+    }
+
+    // y values of one graph, culled points hold 0
+    public double[] getYVals(int column) {
+        return yColumns[column];
+    }
+
+    public int getNumColumns() {
+        return yColumns.length;
+    }
+
+    public int getNumPoints() {
+        return numPoints;
+    }
+
+    // the points of one graph, sharing the arrays of this buffer unless some of its points were culled
+    public SampleBuffer getColumn(int column) {
+        if(culledColumns == null) {
+            return new SampleBuffer(xVals, yColumns[column], numPoints);
+        }
+        boolean[] culled = culledColumns[column];
+        double[] columnXVals = new double[numPoints];
+        double[] columnYVals = new double[numPoints];
+        int numKept = 0;
+        for(int i = 0; i < numPoints; i++) {
+            if(!culled[i]) {
+                columnXVals[numKept] = xVals[i];
+                columnYVals[numKept] = yColumns[column][i];
+                numKept++;
+            }
+        }
+        return new SampleBuffer(columnXVals, columnYVals, numKept);
+    }
+}
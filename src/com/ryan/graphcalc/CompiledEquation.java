@@ -0,0 +1,209 @@
+/*
+ * CompiledEquation.java
+ * An equation that has already been parsed into an expression tree. It can be solved for many
+ * values of x without re-reading the equation string each time. Equations with a variable are also
+ * compiled to bytecode once they have been solved a few times, falling back to solving the tree if
+ * that is not possible. Equations that are only solved once or twice never pay for generating a class.
+ * The tree is simplified first, so constant parts like 2 * pi or sin(1) are solved only once, and parts
+ * that appear more than once, like the sin(x) in sin(x)^2 + 2sin(x) + 1, are shared and solved once per x
+ */
+package com.ryan.graphcalc;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.function.DoubleUnaryOperator;
+
+public class CompiledEquation {
+    // the equation the tree was built from, as it was typed
+    private final String mEquationLine;
+
+    // true if trig functions are solved with FastTrig instead of the Math functions
+    private final boolean mFastTrig;
+
+    // root of the expression tree, after simplifying and sharing repeated parts
+    private final EquationNode mRoot;
+
+    // nodes in the simplified tree, and how many fewer that is than the tree that was parsed
+    private final int mNumNodes;
+    private final int mNumNodesRemoved;
+
+    // number of distinct nodes once repeated parts are shared
+    private final int mNumSharedNodes;
+
+    // solves batches of x values when parts of the equation repeat, null to solve the tree directly
+    private final EquationDag mDag;
+
+    // true if the equation is solved from the derivatives of its parts, like a derivative is
+    private final boolean mSolvesDerivatives;
+
+    // number of times the equation is solved with the tree before it is compiled to bytecode
+    private static final int COMPILE_THRESHOLD = 16;
+
+    // function used to solve the equation, either generated bytecode or the tree itself
+    private volatile DoubleUnaryOperator mFunction;
+
+    // true once compiling to bytecode was tried, whether it worked or not
+    private volatile boolean mCompileAttempted;
+
+    // true if mFunction is a generated class
+    private volatile boolean mBytecodeCompiled;
+
+    // times the equation was solved before compiling, only counted roughly when threads race
+    private int mNumEvaluations;
+
+    CompiledEquation(String equationLine, EquationNode root, boolean fastTrig) {
+        mEquationLine = equationLine;
+        mFastTrig = fastTrig;
+        int numParsedNodes = root.countNodes();
+        mRoot = root.simplify().share(new HashMap<>());
+        mNumNodes = mRoot.countNodes();
+        mNumNodesRemoved = numParsedNodes - mNumNodes;
+        EquationDag dag = new EquationDag(Collections.singletonList(mRoot));
+        mNumSharedNodes = dag.getNumNodes();
+        // walking the tree is cheaper when nothing repeats
+        mDag = (mNumSharedNodes < mNumNodes) ? dag : null;
+        mSolvesDerivatives = dag.solvesDerivatives();
+        mFunction = mRoot::evaluate;
+
+        // constant equations always have the same answer, so they are not worth generating a class for
+        mCompileAttempted = !mRoot.hasVariables() || !EquationBytecodeCompiler.isEnabled();
+    }
+
+    // solve the equation for the given x value
+    public double evaluate(double xVal) {
+        if(!mCompileAttempted && ++mNumEvaluations >= COMPILE_THRESHOLD) {
+            compileBytecode();
+        }
+        return mFunction.applyAsDouble(xVal);
+    }
+
+    // solve the equation for one x value like above, with derivatives as scratch space at least
+    // getDerivativesLength() long. Equations solved from derivatives, which can not be compiled to
+    // bytecode, then allocate nothing. Callers solving many single points keep one array for every call
+    public double evaluate(double xVal, double[] derivatives) {
+        if(!mSolvesDerivatives) {
+            return evaluate(xVal);
+        }
+        mRoot.evaluateDerivatives(xVal, derivatives, 0);
+        return derivatives[0];
+    }
+
+    // replace the tree with a generated class, if the equation can be compiled
+    private synchronized void compileBytecode() {
+        if(mCompileAttempted) {
+            return;
+        }
+        try {
+            mFunction = EquationBytecodeCompiler.compile(mRoot);
+            mBytecodeCompiled = true;
+        } catch(Exception | LinkageError | StackOverflowError exception) {
+            // equation could not be compiled, the tree can still solve it
+        }
+        mCompileAttempted = true;
+    }
+
+    // solve the equation for xVals[from] up to (not including) xVals[to], storing the answers in the
+    // same positions of yVals. The tree is solved one node at a time over chunks of x values, so each
+    // node runs a tight loop over primitive arrays that the JIT compiler can vectorize
+    public void evaluate(double[] xVals, double[] yVals, int from, int to) {
+        if(mDag != null) {
+            mDag.evaluate(xVals, new double[][] {yVals}, from, to);
+            return;
+        }
+        EvaluationBuffers buffers = new EvaluationBuffers();
+        double[] xChunk = buffers.take();
+        double[] yChunk = buffers.take();
+        for(int chunkStart = from; chunkStart < to; chunkStart += EvaluationBuffers.CHUNK_SIZE) {
+            int length = Math.min(EvaluationBuffers.CHUNK_SIZE, to - chunkStart);
+            System.arraycopy(xVals, chunkStart, xChunk, 0, length);
+            mRoot.evaluate(xChunk, yChunk, length, buffers);
+            System.arraycopy(yChunk, 0, yVals, chunkStart, length);
+        }
+    }
+
+    // solve the equation and its first and second derivatives for xVals[from] up to (not including)
+    // xVals[to], with the automatic differentiation of the tree. Shared parts are solved once for each
+    // place they are used, which still costs far less than solving extra points to estimate derivatives
+    public void evaluateDerivatives(double[] xVals, double[] yVals, double[] dyVals, double[] d2yVals,
+                                    int from, int to) {
+        // short batches, like the coarse points of one plot, only need buffers as long as they are
+        EvaluationBuffers buffers = new EvaluationBuffers(Math.min(EvaluationBuffers.CHUNK_SIZE, to - from));
+        double[] xChunk = buffers.take();
+        double[] yChunk = buffers.take();
+        double[] dyChunk = buffers.take();
+        double[] d2yChunk = buffers.take();
+        for(int chunkStart = from; chunkStart < to; chunkStart += EvaluationBuffers.CHUNK_SIZE) {
+            int length = Math.min(EvaluationBuffers.CHUNK_SIZE, to - chunkStart);
+            System.arraycopy(xVals, chunkStart, xChunk, 0, length);
+            mRoot.evaluateDerivatives(xChunk, yChunk, dyChunk, d2yChunk, length, buffers);
+            System.arraycopy(yChunk, 0, yVals, chunkStart, length);
+            System.arraycopy(dyChunk, 0, dyVals, chunkStart, length);
+            System.arraycopy(d2yChunk, 0, d2yVals, chunkStart, length);
+        }
+    }
+
+    // the equation and its first and second derivatives at one x value, stored in derivatives[0] to [2].
+    // The rest of derivatives is scratch space for the tree, so it must be at least getDerivativesLength()
+    // long. Callers solving many points, like Newton's method, keep one array and pass it every time
+    public void evaluateDerivatives(double xVal, double[] derivatives) {
+        mRoot.evaluateDerivatives(xVal, derivatives, 0);
+    }
+
+    // length of the array evaluate(double, double[]) and evaluateDerivatives(double, double[]) need
+    public int getDerivativesLength() {
+        return 3 * mNumNodes;
+    }
+
+    // the first (order 1) or second (order 2) derivative of the equation as an equation of its own, so it
+    // can be plotted. It is named by equationLine
+    public CompiledEquation differentiate(String equationLine, int order) {
+        return new CompiledEquation(equationLine, new DerivativeNode(mRoot, order), mFastTrig);
+    }
+
+    // detect if the equation uses the x variable
+    public boolean hasVariables() {
+        return mRoot.hasVariables();
+    }
+
+    // detect if the equation is solved by generated bytecode instead of the tree, compiling it now if
+    // it was not solved often enough to be compiled yet
+    public boolean isBytecodeCompiled() {
+        if(!mCompileAttempted) {
+            compileBytecode();
+        }
+        return mBytecodeCompiled;
+    }
+
+    // the equation written out from the tree, so different ways of typing the same equation match
+    public String getNormalizedEquation() {
+        return mRoot.toString();
+    }
+
+    // detect if trig functions are solved with FastTrig, accurate to FastTrig.MAX_ABS_ERROR
+    public boolean isFastTrig() {
+        return mFastTrig;
+    }
+
+    public String getEquationLine() {
+        return mEquationLine;
+    }
+
+    public EquationNode getRoot() {
+        return mRoot;
+    }
+
+    // number of nodes in the tree that solves the equation
+    public int getNumNodes() {
+        return mNumNodes;
+    }
+
+    // number of nodes simplifying removed from the tree that was parsed
+    public int getNumNodesRemoved() {
+        return mNumNodesRemoved;
+    }
+
+    // number of distinct nodes solved for each x value once repeated parts are shared
+    public int getNumSharedNodes() {
+        return mNumSharedNodes;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * ConstantNode.java
+ * A number that was typed directly in the equation
+ */
+package com.ryan.graphcalc;
+
+import java.util.Arrays;
+import java.util.Map;
+
+class ConstantNode extends EquationNode {
+    // the value of the number
+    private final double value;
+
+    public ConstantNode(double value) {
+        this.value = value;
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    @Override
+    public double evaluate(double xVal) {
+        return value;
+    }
+
+    @Override
+    public void evaluate(double[] xVals, double[] yVals, int length, EvaluationBuffers buffers) {
+        Arrays.fill(yVals, 0, length, value);
+    }
+
+    @Override
+    public void evaluateDerivatives(double[] xVals, double[] yVals, double[] dyVals, double[] d2yVals,
+                                    int length, EvaluationBuffers buffers) {
+        Arrays.fill(yVals, 0, length, value);
+        Arrays.fill(dyVals, 0, length, 0);
+        Arrays.fill(d2yVals, 0, length, 0);
+    }
+
+    @Override
+    public void evaluateDerivatives(double xVal, double[] derivatives, int offset) {
+        derivatives[offset] = value;
+        derivatives[offset + 1] = 0;
+        derivatives[offset + 2] = 0;
+    }
+
+    @Override
+    public Interval evaluateInterval(Interval xInterval) {
+        return Interval.point(value);
+    }
+
+    @Override
+    public void emitBytecode(EquationClassWriter writer) {
+        writer.loadConstant(value);
+    }
+
+    @Override
+    public boolean hasVariables() {
+        return false;
+    }
+
+    @Override
+    public EquationNode simplify() {
+        return this;
+    }
+
+    @Override
+    public int countNodes() {
+        return 1;
+    }
+
+    @Override
+    public EquationNode share(Map<EquationNode, EquationNode> sharedNodes) {
+        return intern(sharedNodes, this);
+    }
+
+    @Override
+    public EquationNode[] getOperands() {
+        return NO_OPERANDS;
+    }
+
+    @Override
+    public void evaluateFromOperands(double[] xVals, double[] operand0Vals, double[] operand1Vals,
+                                     double[] yVals, int length) {
+        Arrays.fill(yVals, 0, length, value);
+    }
+
+    @Override
+    public void evaluateDerivativesFromOperands(double[] xVals, double[][] operand0Vals, double[][] operand1Vals,
+                                                double[][] yVals, int length) {
+        Arrays.fill(yVals[0], 0, length, value);
+        Arrays.fill(yVals[1], 0, length, 0);
+        Arrays.fill(yVals[2], 0, length, 0);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        // compare the bits so 0 and -0 stay apart
+        return other instanceof ConstantNode
+                && Double.doubleToLongBits(((ConstantNode) other).value) == Double.doubleToLongBits(value);
+    }
+
+    @Override
+    public int hashCode() {
+        return Double.hashCode(value);
+    }
+
+    @Override
+    public String toString() {
+        return Double.toString(value);
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * DerivativeNode.java
+ * The first or second derivative of an equation with respect to x, so it can be plotted like any other
+ * equation. It is solved with the automatic differentiation every node supports, so each point only
+ * needs the equation solved once at that x value. The equation is its operand, so an EquationDag that
+ * also has the equation itself solves it once for both, along with its derivatives
+ */
+package com.ryan.graphcalc;
+
+import java.util.Arrays;
+import java.util.Map;
+
+class DerivativeNode extends EquationNode {
+    // equation being differentiated
+    private final EquationNode operand;
+
+    // 1 for the first derivative, 2 for the second
+    private final int order;
+
+    // positions needed to solve the equation and its derivatives for one x value
+    private final int derivativesLength;
+
+    public DerivativeNode(EquationNode operand, int order) {
+        if(order != 1 && order != 2) {
+            throw new IllegalArgumentException("Only first and second derivatives can be found, not order " + order);
+        }
+        this.operand = operand;
+        this.order = order;
+        derivativesLength = 3 * operand.countNodes();
+    }
+
+    public EquationNode getOperand() {
+        return operand;
+    }
+
+    public int getOrder() {
+        return order;
+    }
+
+    // needs an array as long as the tree for each call, callers solving many single points pass one to
+    // CompiledEquation.evaluate(double, double[]) instead
+    @Override
+    public double evaluate(double xVal) {
+        double[] derivatives = new double[derivativesLength];
+        operand.evaluateDerivatives(xVal, derivatives, 0);
+        return derivatives[order];
+    }
+
+    @Override
+    public void evaluate(double[] xVals, double[] yVals, int length, EvaluationBuffers buffers) {
+        double[] operandVals = buffers.take();
+        double[] otherDerivatives = buffers.take();
+        if(order == 1) {
+            operand.evaluateDerivatives(xVals, operandVals, yVals, otherDerivatives, length, buffers);
+        } else {
+            operand.evaluateDerivatives(xVals, operandVals, otherDerivatives, yVals, length, buffers);
+        }
+        buffers.release();
+        buffers.release();
+    }
+
+    @Override
+    public void evaluateDerivatives(double[] xVals, double[] yVals, double[] dyVals, double[] d2yVals,
+                                    int length, EvaluationBuffers buffers) {
+        // only two orders are carried through the tree, so the rest are not known
+        double[] operandVals = buffers.take();
+        if(order == 1) {
+            operand.evaluateDerivatives(xVals, operandVals, yVals, dyVals, length, buffers);
+        } else {
+            operand.evaluateDerivatives(xVals, operandVals, dyVals, yVals, length, buffers);
+            Arrays.fill(dyVals, 0, length, Double.NaN);
+        }
+        Arrays.fill(d2yVals, 0, length, Double.NaN);
+        buffers.release();
+    }
+
+    @Override
+    public void evaluateDerivatives(double xVal, double[] derivatives, int offset) {
+        operand.evaluateDerivatives(xVal, derivatives, offset);
+        derivatives[offset] = derivatives[offset + order];
+        derivatives[offset + 1] = (order == 1) ? derivatives[offset + 2] : Double.NaN;
+        derivatives[offset + 2] = Double.NaN;
+    }
+
+    @Override
+    public Interval evaluateInterval(Interval xInterval) {
+        // nothing is known about how steep the equation gets, so no points are culled
+        return Interval.WHOLE;
+    }
+
+    @Override
+    public void emitBytecode(EquationClassWriter writer) throws Exception {
+        throw new Exception("Derivatives can not be compiled");
+    }
+
+    @Override
+    public boolean hasVariables() {
+        return operand.hasVariables();
+    }
+
+    @Override
+    public EquationNode simplify() {
+        EquationNode simpleOperand = operand.simplify();
+        // a number never changes with x
+        if(simpleOperand instanceof ConstantNode) {
+            return new ConstantNode(0);
+        }
+        return (simpleOperand == operand) ? this : new DerivativeNode(simpleOperand, order);
+    }
+
+    @Override
+    public int countNodes() {
+        return 1 + operand.countNodes();
+    }
+
+    @Override
+    public EquationNode share(Map<EquationNode, EquationNode> sharedNodes) {
+        EquationNode sharedOperand = operand.share(sharedNodes);
+        return intern(sharedNodes, (sharedOperand == operand) ? this : new DerivativeNode(sharedOperand, order));
+    }
+
+    @Override
+    public EquationNode[] getOperands() {
+        return new EquationNode[] {operand};
+    }
+
+    @Override
+    public boolean needsOperandDerivatives() {
+        return true;
+    }
+
+    @Override
+    public void evaluateDerivativesFromOperands(double[] xVals, double[][] operand0Vals, double[][] operand1Vals,
+                                                double[][] yVals, int length) {
+        // only two orders are carried through the tree, so the rest are not known
+        System.arraycopy(operand0Vals[order], 0, yVals[0], 0, length);
+        if(order == 1) {
+            System.arraycopy(operand0Vals[2], 0, yVals[1], 0, length);
+        } else {
+            Arrays.fill(yVals[1], 0, length, Double.NaN);
+        }
+        Arrays.fill(yVals[2], 0, length, Double.NaN);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof DerivativeNode && ((DerivativeNode) other).operand == operand
+                && ((DerivativeNode) other).order == order;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (DerivativeNode.class.hashCode() + order) + System.identityHashCode(operand);
+    }
+
+    @Override
+    public String toString() {
+        return ((order == 1) ? "d/dx" : "d2/dx2") + "(" + operand + ")";
+    }
+}
@@ -0,0 +1,400 @@
+/*
+ * EquationAnalyzer.java
+ * Finds the roots, minimums, maximums and intersections of graphed equations across a range of x values
+ * without sampling them densely. Each equation is solved at SCAN_POINTS evenly spaced x values in one
+ * batch, which brackets every feature wider than the scan step: a sign change brackets a root, and a
+ * sample higher (or lower) than both of its neighbours brackets a maximum (or minimum). The scan also finds
+ * the first and second derivatives with automatic differentiation, so each bracket is narrowed with
+ * Newton's method, on the equation for roots and on its derivative for extremums, which takes only a few
+ * steps. Whenever a Newton step would leave the bracket, or a derivative has no answer, Brent's method (or
+ * golden-section search for an extremum whose derivative does not change sign) finishes the search instead.
+ * Intersections of two equations are the roots of their difference. A sign change
+ * across an asymptote, as in tan(x) or 1/x, narrows to where the answers are largest instead of
+ * smallest, so it is recognized and dropped
+ */
+package com.ryan.graphcalc;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.DoubleUnaryOperator;
+
+public class EquationAnalyzer {
+    // kinds of point that can be found
+    public enum FeatureType {
+        ROOT,
+        MINIMUM,
+        MAXIMUM,
+        INTERSECTION
+    }
+
+    // a point found on the graph of an equation
+    public static class Feature {
+        private final FeatureType type;
+        private final double xVal;
+        private final double yVal;
+
+        public Feature(FeatureType type, double xVal, double yVal) {
+            this.type = type;
+            this.xVal = xVal;
+            this.yVal = yVal;
+        }
+
+        public FeatureType getType() {
+            return type;
+        }
+
+        public double getXVal() {
+            return xVal;
+        }
+
+        public double getYVal() {
+            return yVal;
+        }
+    }
+
+    // number of intervals the range is scanned in, features closer together than one interval can be
+    // missed
+    private static final int SCAN_POINTS = 2000;
+
+    // most features of one kind returned for an equation, an equation like sin(100x) has far more roots
+    // than can be marked on a graph
+    private static final int MAX_FEATURES = 100;
+
+    // most steps taken to narrow a bracket, both methods need far fewer to reach the precision of a double
+    private static final int MAX_ITERATIONS = 200;
+
+    // most Newton steps taken before Brent's method takes over, Newton's method doubles the number of
+    // correct digits with each step once it is close
+    private static final int MAX_NEWTON_STEPS = 20;
+
+    // golden ratio conjugate, the part of a bracket kept by each step of golden-section search
+    private static final double GOLDEN_RATIO = (Math.sqrt(5) - 1) / 2;
+
+    // a narrowed extremum that moved further than this many times the difference between the bracketing
+    // samples is a pole, not an extremum
+    private static final double MAX_EXTREMUM_GROWTH = 4;
+
+    // an extremum whose answer is within this of 0 is also a root where the curve touches 0
+    private static final double TOUCHING_ROOT_TOLERANCE = 1e-10;
+
+    // an equation solved with its first and second derivatives at one x value
+    private interface DerivativeFunction {
+        void evaluate(double xVal, double[] derivatives);
+    }
+
+    // range of x values searched
+    private final double mStart;
+    private final double mEnd;
+
+    // x values of the scan, shared by every equation analyzed
+    private final double[] mScanXVals;
+
+    public EquationAnalyzer(double start, double end) {
+        mStart = start;
+        mEnd = end;
+        mScanXVals = new double[SCAN_POINTS + 1];
+        for(int i = 0; i <= SCAN_POINTS; i++) {
+            mScanXVals[i] = start + (end - start) * i / SCAN_POINTS;
+        }
+    }
+
+    // x values where the equation crosses (or touches) 0, in increasing order
+    public List<Feature> findRoots(CompiledEquation compiledEquation) {
+        double[][] scanDerivatives = scan(compiledEquation);
+        double[] scanYVals = scanDerivatives[0];
+        DoubleUnaryOperator function = valuesOf(compiledEquation);
+        DerivativeFunction derivativeFunction = derivativesOf(compiledEquation);
+        List<Feature> roots = new ArrayList<>();
+        findSignChanges(function, derivativeFunction, scanYVals, FeatureType.ROOT, roots);
+        // roots where the curve only touches 0 show up as extremums, unless the scan hit them exactly
+        double scanStep = (mEnd - mStart) / SCAN_POINTS;
+        for(Feature extremum : findExtrema(function, derivativeFunction, scanDerivatives)) {
+            if(Math.abs(extremum.getYVal()) <= TOUCHING_ROOT_TOLERANCE && roots.size() < MAX_FEATURES
+                    && roots.stream().noneMatch(root -> Math.abs(root.getXVal() - extremum.getXVal()) < scanStep)) {
+                roots.add(new Feature(FeatureType.ROOT, extremum.getXVal(), 0));
+            }
+        }
+        roots.sort(Comparator.comparingDouble(Feature::getXVal));
+        return roots;
+    }
+
+    // the minimums and maximums of the equation, in increasing order of x
+    public List<Feature> findExtrema(CompiledEquation compiledEquation) {
+        return findExtrema(valuesOf(compiledEquation), derivativesOf(compiledEquation), scan(compiledEquation));
+    }
+
+    // points where the graphs of the two equations cross, in increasing order of x. The y value is the
+    // answer of both equations there
+    public List<Feature> findIntersections(CompiledEquation compiledEquation0, CompiledEquation compiledEquation1) {
+        double[] scanYVals0 = scan(compiledEquation0)[0];
+        double[] scanYVals1 = scan(compiledEquation1)[0];
+        double[] differences = new double[scanYVals0.length];
+        for(int i = 0; i < differences.length; i++) {
+            differences[i] = scanYVals0[i] - scanYVals1[i];
+        }
+        // the derivatives of the difference are the differences of the derivatives
+        DerivativeFunction derivativeFunction0 = derivativesOf(compiledEquation0);
+        DerivativeFunction derivativeFunction1 = derivativesOf(compiledEquation1);
+        double[] derivatives1 = new double[3];
+        DerivativeFunction differenceDerivatives = (xVal, derivatives) -> {
+            derivativeFunction0.evaluate(xVal, derivatives);
+            derivativeFunction1.evaluate(xVal, derivatives1);
+            for(int i = 0; i < 3; i++) {
+                derivatives[i] -= derivatives1[i];
+            }
+        };
+        DoubleUnaryOperator function0 = valuesOf(compiledEquation0);
+        DoubleUnaryOperator function1 = valuesOf(compiledEquation1);
+        List<Feature> crossings = new ArrayList<>();
+        findSignChanges(xVal -> function0.applyAsDouble(xVal) - function1.applyAsDouble(xVal),
+                        differenceDerivatives, differences, FeatureType.INTERSECTION, crossings);
+        List<Feature> intersections = new ArrayList<>(crossings.size());
+        for(Feature crossing : crossings) {
+            intersections.add(new Feature(FeatureType.INTERSECTION, crossing.getXVal(),
+                                          function0.applyAsDouble(crossing.getXVal())));
+        }
+        return intersections;
+    }
+
+    // the equation solved at one x value at a time, with scratch space kept between calls for equations
+    // like derivatives that are solved from the derivatives of their parts
+    private static DoubleUnaryOperator valuesOf(CompiledEquation compiledEquation) {
+        double[] scratch = new double[compiledEquation.getDerivativesLength()];
+        return xVal -> compiledEquation.evaluate(xVal, scratch);
+    }
+
+    // the equation solved with its derivatives at one x value at a time. The tree needs scratch space for
+    // every node, which is kept between calls instead of allocated for every Newton step
+    private static DerivativeFunction derivativesOf(CompiledEquation compiledEquation) {
+        double[] scratch = new double[compiledEquation.getDerivativesLength()];
+        return (xVal, derivatives) -> {
+            compiledEquation.evaluateDerivatives(xVal, scratch);
+            System.arraycopy(scratch, 0, derivatives, 0, 3);
+        };
+    }
+
+    // solve the equation and its first and second derivatives at every x value of the scan in one batch
+    private double[][] scan(CompiledEquation compiledEquation) {
+        double[][] scanDerivatives = new double[3][mScanXVals.length];
+        compiledEquation.evaluateDerivatives(mScanXVals, scanDerivatives[0], scanDerivatives[1], scanDerivatives[2],
+                                             0, mScanXVals.length);
+        return scanDerivatives;
+    }
+
+    // add a feature of the given type for every zero of function between scan points whose answers have
+    // opposite signs, and for every scan point that is exactly 0 on its own
+    private void findSignChanges(DoubleUnaryOperator function, DerivativeFunction derivativeFunction,
+                                 double[] scanYVals, FeatureType type, List<Feature> features) {
+        for(int i = 0; i < SCAN_POINTS && features.size() < MAX_FEATURES; i++) {
+            double y0 = scanYVals[i];
+            double y1 = scanYVals[i + 1];
+            if(y0 == 0 && (i == 0 || scanYVals[i - 1] != 0) && y1 != 0) {
+                // a zero that was hit exactly, runs of zeros are an equation that is 0 everywhere
+                features.add(new Feature(type, mScanXVals[i], 0));
+                continue;
+            }
+            if(!(y0 < 0 && y1 > 0 || y0 > 0 && y1 < 0)) {
+                continue;
+            }
+            double root = findZero(function, derivativeFunction, 0, mScanXVals[i], mScanXVals[i + 1], y0, y1);
+            // next to an asymptote the answers grow instead of shrinking towards the zero that was found
+            double rootYVal = function.applyAsDouble(root);
+            if(Math.abs(rootYVal) <= Math.min(Math.abs(y0), Math.abs(y1))) {
+                features.add(new Feature(type, root, 0));
+            }
+        }
+        // the last scan point has no interval after it
+        if(scanYVals[SCAN_POINTS] == 0 && scanYVals[SCAN_POINTS - 1] != 0 && features.size() < MAX_FEATURES) {
+            features.add(new Feature(type, mEnd, 0));
+        }
+    }
+
+    // the minimums and maximums of function, bracketed by scan points above or below both neighbours
+    private List<Feature> findExtrema(DoubleUnaryOperator function, DerivativeFunction derivativeFunction,
+                                      double[][] scanDerivatives) {
+        double[] scanYVals = scanDerivatives[0];
+        double[] scanDyVals = scanDerivatives[1];
+        // the first derivative is found as the zero of the search below
+        double[] derivatives = new double[3];
+        DoubleUnaryOperator derivative = xVal -> {
+            derivativeFunction.evaluate(xVal, derivatives);
+            return derivatives[1];
+        };
+        List<Feature> extrema = new ArrayList<>();
+        for(int i = 1; i < SCAN_POINTS && extrema.size() < MAX_FEATURES; i++) {
+            double before = scanYVals[i - 1];
+            double middle = scanYVals[i];
+            double after = scanYVals[i + 1];
+            // a flat top of two equal samples is only found once, at its first sample
+            boolean maximum = middle > before && middle >= after;
+            boolean minimum = middle < before && middle <= after;
+            if(!(maximum || minimum) || !Double.isFinite(before) || !Double.isFinite(middle)
+                    || !Double.isFinite(after)) {
+                continue;
+            }
+            double extremum;
+            double dyBefore = scanDyVals[i - 1];
+            double dyAfter = scanDyVals[i + 1];
+            if(dyBefore < 0 && dyAfter > 0 || dyBefore > 0 && dyAfter < 0) {
+                // the extremum is where the derivative crosses 0
+                extremum = findZero(derivative, derivativeFunction, 1, mScanXVals[i - 1], mScanXVals[i + 1], dyBefore,
+                                    dyAfter);
+            } else {
+                // search for the maximum of the negated function to find a minimum
+                double sign = maximum ? 1 : -1;
+                extremum = findMaximum(xVal -> sign * function.applyAsDouble(xVal), mScanXVals[i - 1],
+                                       mScanXVals[i + 1]);
+            }
+            double extremumYVal = function.applyAsDouble(extremum);
+            double maxGrowth = MAX_EXTREMUM_GROWTH * Math.max(Math.abs(middle - before), Math.abs(middle - after));
+            if(Double.isFinite(extremumYVal) && Math.abs(extremumYVal - middle) <= maxGrowth) {
+                extrema.add(new Feature(maximum ? FeatureType.MAXIMUM : FeatureType.MINIMUM, extremum, extremumYVal));
+            }
+        }
+        return extrema;
+    }
+
+    // narrow the bracket [a, b] around a zero of function, where fa and fb have opposite signs. function
+    // is the derivative of the given order, and Newton's method steps with the derivative after it.
+    // The bracket shrinks with every step, so Brent's method can take over from wherever Newton's
+    // method stopped
+    private double findZero(DoubleUnaryOperator function, DerivativeFunction derivativeFunction, int order,
+                            double a, double b, double fa, double fb) {
+        double xTolerance = Math.ulp(Math.max(Math.abs(mStart), Math.abs(mEnd)));
+        double[] derivatives = new double[3];
+        // the function is below 0 at lo and above 0 at hi
+        double lo = (fa < 0) ? a : b;
+        double hi = (fa < 0) ? b : a;
+        double fLo = Math.min(fa, fb);
+        double fHi = Math.max(fa, fb);
+        double xVal = (a + b) / 2;
+        for(int i = 0; i < MAX_NEWTON_STEPS; i++) {
+            derivativeFunction.evaluate(xVal, derivatives);
+            double f = derivatives[order];
+            double df = derivatives[order + 1];
+            if(f == 0) {
+                return xVal;
+            }
+            if(!Double.isFinite(f) || !Double.isFinite(df) || df == 0) {
+                break;
+            }
+            if(f < 0) {
+                lo = xVal;
+                fLo = f;
+            } else {
+                hi = xVal;
+                fHi = f;
+            }
+            double next = xVal - f / df;
+            // a step out of the bracket means the derivative is misleading this far from the zero
+            if(!(Math.min(lo, hi) < next && next < Math.max(lo, hi))) {
+                break;
+            }
+            double step = Math.abs(next - xVal);
+            xVal = next;
+            if(step <= 2 * Math.ulp(xVal) + xTolerance) {
+                return xVal;
+            }
+        }
+        return findZeroBrent(function, lo, hi, fLo, fHi);
+    }
+
+    // Brent's method: narrow the bracket [a, b] around a zero of function, where fa and fb have opposite
+    // signs. Each step tries inverse quadratic interpolation or the secant method, and falls back to
+    // bisection whenever they would not shrink the bracket fast enough
+    private double findZeroBrent(DoubleUnaryOperator function, double a, double b, double fa, double fb) {
+        double xTolerance = Math.ulp(Math.max(Math.abs(mStart), Math.abs(mEnd)));
+        double c = b;
+        double fc = fb;
+        double d = b - a;
+        double e = d;
+        for(int i = 0; i < MAX_ITERATIONS; i++) {
+            if((fb > 0 && fc > 0) || (fb < 0 && fc < 0)) {
+                // keep the zero between b and c
+                c = a;
+                fc = fa;
+                d = b - a;
+                e = d;
+            }
+            if(Math.abs(fc) < Math.abs(fb)) {
+                // b is the best guess so far
+                a = b;
+                b = c;
+                c = a;
+                fa = fb;
+                fb = fc;
+                fc = fa;
+            }
+            double tolerance = 2 * Math.ulp(b) + xTolerance;
+            double halfBracket = (c - b) / 2;
+            if(Math.abs(halfBracket) <= tolerance || fb == 0) {
+                return b;
+            }
+            if(Math.abs(e) >= tolerance && Math.abs(fa) > Math.abs(fb)) {
+                double s = fb / fa;
+                double p;
+                double q;
+                if(a == c) {
+                    // secant method
+                    p = 2 * halfBracket * s;
+                    q = 1 - s;
+                } else {
+                    // inverse quadratic interpolation
+                    double r = fb / fc;
+                    q = fa / fc;
+                    p = s * (2 * halfBracket * q * (q - r) - (b - a) * (r - 1));
+                    q = (q - 1) * (r - 1) * (s - 1);
+                }
+                if(p > 0) {
+                    q = -q;
+                } else {
+                    p = -p;
+                }
+                if(2 * p < Math.min(3 * halfBracket * q - Math.abs(tolerance * q), Math.abs(e * q))) {
+                    e = d;
+                    d = p / q;
+                } else {
+                    d = halfBracket;
+                    e = d;
+                }
+            } else {
+                d = halfBracket;
+                e = d;
+            }
+            a = b;
+            fa = fb;
+            b += (Math.abs(d) > tolerance) ? d : Math.copySign(tolerance, halfBracket);
+            fb = function.applyAsDouble(b);
+            if(Double.isNaN(fb)) {
+                return b;
+            }
+        }
+        return b;
+    }
+
+    // golden-section search: narrow [a, b] around the largest answer of function, keeping the part of the
+    // bracket on the side of the larger of two inner points at each step
+    private static double findMaximum(DoubleUnaryOperator function, double a, double b) {
+        double c = b - GOLDEN_RATIO * (b - a);
+        double d = a + GOLDEN_RATIO * (b - a);
+        double fc = function.applyAsDouble(c);
+        double fd = function.applyAsDouble(d);
+        for(int i = 0; i < MAX_ITERATIONS && b - a > 4 * Math.ulp(Math.max(Math.abs(a), Math.abs(b))); i++) {
+            if(fc > fd) {
+                b = d;
+                d = c;
+                fd = fc;
+                c = b - GOLDEN_RATIO * (b - a);
+                fc = function.applyAsDouble(c);
+            } else {
+                a = c;
+                c = d;
+                fc = fd;
+                d = a + GOLDEN_RATIO * (b - a);
+                fd = function.applyAsDouble(d);
+            }
+        }
+        return (a + b) / 2;
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * EquationBytecodeCompiler.java
+ * Turns an expression tree into a generated class implementing DoubleUnaryOperator. The JIT compiler
+ * can then inline the whole equation instead of calling evaluate on each node of the tree. Shared nodes
+ * of a tree that went through EquationNode.share are solved only once
+ */
+package com.ryan.graphcalc;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.DoubleUnaryOperator;
+
+class EquationBytecodeCompiler {
+    // turn the backend off with -Dgraphcalc.bytecode=false to always use the tree
+    private static final boolean ENABLED =
+            Boolean.parseBoolean(System.getProperty("graphcalc.bytecode", "true"));
+
+    // gives each generated class a unique name
+    private static final AtomicInteger classCounter = new AtomicInteger();
+
+    // detect if equations should be compiled to bytecode
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    // generate and load a class that solves the tree for x
+    public static DoubleUnaryOperator compile(EquationNode root) throws Exception {
+        EquationClassWriter writer = new EquationClassWriter(findSharedNodes(root));
+        writer.emitNode(root);
+
+        String className = "com.ryan.graphcalc.GeneratedEquation" + classCounter.incrementAndGet();
+        byte[] classFile = writer.toClassFile(className.replace('.', '/'));
+
+        // each class gets its own loader so it can be unloaded once the equation is no longer used
+        EquationClassLoader classLoader = new EquationClassLoader(EquationBytecodeCompiler.class.getClassLoader());
+        Class<?> equationClass = classLoader.defineEquationClass(className, classFile);
+        return (DoubleUnaryOperator) equationClass.getConstructor().newInstance();
+    }
+
+    // nodes that are an operand of more than one node. Numbers and x are left out, loading them again
+    // is as cheap as loading a local variable
+    private static Set<EquationNode> findSharedNodes(EquationNode root) {
+        Set<EquationNode> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<EquationNode> sharedNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+        addSharedNodes(root, visited, sharedNodes);
+        return sharedNodes;
+    }
+
+    private static void addSharedNodes(EquationNode node, Set<EquationNode> visited, Set<EquationNode> sharedNodes) {
+        EquationNode[] operands = node.getOperands();
+        if(operands.length == 0) {
+            return;
+        }
+        // the operands of a node seen before were already visited
+        if(!visited.add(node)) {
+            sharedNodes.add(node);
+            return;
+        }
+        for(EquationNode operand : operands) {
+            addSharedNodes(operand, visited, sharedNodes);
+        }
+    }
+
+    // class loader used to define a single generated equation class
+    private static class EquationClassLoader extends ClassLoader {
+        EquationClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        Class<?> defineEquationClass(String className, byte[] classFile) {
+            return defineClass(className, classFile, 0, classFile.length);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * EquationCache.java
+ * Keeps the most recently used compiled equations so an equation that is solved again does not have
+ * to be parsed (or compiled to bytecode) again. Bounded by the number of equations, the least recently
+ * used ones are dropped first
+ */
+package com.ryan.graphcalc;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class EquationCache {
+    // most equations kept at once
+    private final int mMaxEntries;
+
+    // parses equations that are not cached yet
+    private final EquationEngine mEngine = new EquationEngine();
+
+    // cached equations by the line they were typed as, iteration order goes from least to most recently used
+    private final LinkedHashMap<String, CompiledEquation> mEntries;
+
+    // counters for how well the cache is working
+    private long mHits;
+    private long mMisses;
+
+    public EquationCache(int maxEntries) {
+        mMaxEntries = maxEntries;
+        mEntries = new LinkedHashMap<String, CompiledEquation>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompiledEquation> eldest) {
+                return size() > mMaxEntries;
+            }
+        };
+    }
+
+    // return the compiled equation for the line, parsing it if it is not cached
+    public CompiledEquation get(String eqLine) throws Exception {
+        synchronized(this) {
+            CompiledEquation compiledEquation = mEntries.get(eqLine);
+            if(compiledEquation != null) {
+                mHits++;
+                return compiledEquation;
+            }
+            mMisses++;
+        }
+        // parse outside the lock so one long equation does not hold up every other thread. Two threads
+        // may parse the same line at once, the second one just replaces the first
+        CompiledEquation compiledEquation = mEngine.compile(eqLine);
+        synchronized(this) {
+            mEntries.put(eqLine, compiledEquation);
+        }
+        return compiledEquation;
+    }
+
+    public synchronized long getHits() {
+        return mHits;
+    }
+
+    public synchronized long getMisses() {
+        return mMisses;
+    }
+
+    public synchronized int size() {
+        return mEntries.size();
+    }
+}
@@ -0,0 +1,336 @@
+/*
+ * EquationClassWriter.java
+ * Writes the bytes of a Java class file that implements DoubleUnaryOperator. The equation nodes add
+ * their instructions one after another, so the whole equation ends up as one straight-line method
+ * with no branches and no calls other than the Math functions. A node that is an operand of more than one
+ * other node is solved once and kept in a local variable for the other places that use it
+ */
+package com.ryan.graphcalc;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+class EquationClassWriter {
+    // largest method body the JVM accepts
+    private static final int MAX_CODE_LENGTH = 65535;
+
+    // most local variable slots a method can have
+    private static final int MAX_LOCALS = 65535;
+
+    // class file version for Java 8, no stack map frames needed since the code never branches
+    private static final int CLASS_FILE_VERSION = 52;
+
+    // constant pool tags
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_DOUBLE = 6;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+    // instructions used by the generated code
+    private static final int ALOAD_0 = 0x2a;
+    private static final int DCONST_0 = 0x0e;
+    private static final int DCONST_1 = 0x0f;
+    private static final int LDC2_W = 0x14;
+    private static final int DLOAD = 0x18;
+    private static final int DLOAD_1 = 0x27;
+    private static final int DSTORE = 0x39;
+    private static final int DUP2 = 0x5c;
+    private static final int DADD = 0x63;
+    private static final int DSUB = 0x67;
+    private static final int DMUL = 0x6b;
+    private static final int DDIV = 0x6f;
+    private static final int DNEG = 0x77;
+    private static final int DRETURN = 0xaf;
+    private static final int RETURN = 0xb1;
+    private static final int INVOKESPECIAL = 0xb7;
+    private static final int INVOKESTATIC = 0xb8;
+    private static final int WIDE = 0xc4;
+
+    // bytes of the constant pool entries
+    private final ByteArrayOutputStream mConstantPool = new ByteArrayOutputStream();
+
+    // next free constant pool index (entry 0 is never used)
+    private int mConstantCount = 1;
+
+    // constant pool entries already written, so each one is only added once
+    private final Map<String, Integer> mConstantIndexes = new HashMap<>();
+
+    // bytes of the applyAsDouble method body
+    private final ByteArrayOutputStream mCode = new ByteArrayOutputStream();
+
+    // current and largest operand stack size in slots (a double takes two)
+    private int mStackSize;
+    private int mMaxStackSize;
+
+    // nodes used in more than one place, kept in a local variable after they are first solved
+    private final Set<EquationNode> mSharedNodes;
+
+    // local variable holding each shared node that was already solved
+    private final Map<EquationNode, Integer> mSharedLocals = new IdentityHashMap<>();
+
+    // local variable slots used so far, "this" and the two slots of x come first
+    private int mNumLocals = 3;
+
+    // writer for a tree where no node is used more than once
+    public EquationClassWriter() {
+        this(Collections.<EquationNode>emptySet());
+    }
+
+    // writer for a graph where the nodes in sharedNodes are used more than once
+    public EquationClassWriter(Set<EquationNode> sharedNodes) {
+        mSharedNodes = sharedNodes;
+    }
+
+    // add the instructions that solve a node, or load its answer if it is shared and was already solved
+    public void emitNode(EquationNode node) throws Exception {
+        Integer local = mSharedLocals.get(node);
+        if(local != null) {
+            writeLocalInstruction(DLOAD, local);
+            pushDouble();
+            return;
+        }
+        node.emitBytecode(this);
+        if(mSharedNodes.contains(node)) {
+            if(mNumLocals + 2 > MAX_LOCALS) {
+                throw new Exception("Equation has too many shared parts to compile");
+            }
+            // keep a copy of the answer for the other nodes that use it
+            mCode.write(DUP2);
+            pushDouble();
+            writeLocalInstruction(DSTORE, mNumLocals);
+            popDouble();
+            mSharedLocals.put(node, mNumLocals);
+            mNumLocals += 2;
+        }
+    }
+
+    // push a number on the stack
+    public void loadConstant(double value) {
+        if(Double.doubleToRawLongBits(value) == 0L) {
+            mCode.write(DCONST_0);
+        } else if(value == 1.0) {
+            mCode.write(DCONST_1);
+        } else {
+            mCode.write(LDC2_W);
+            writeU2(mCode, addDouble(value));
+        }
+        pushDouble();
+    }
+
+    // push the x parameter of applyAsDouble on the stack
+    public void loadVariable() {
+        mCode.write(DLOAD_1);
+        pushDouble();
+    }
+
+    // negate the value on top of the stack
+    public void negate() {
+        mCode.write(DNEG);
+    }
+
+    // replace the two values on top of the stack with the result of the operator
+    public void applyOperator(Operator operator) throws Exception {
+        switch(operator) {
+            case ADD:
+                mCode.write(DADD);
+                break;
+            case SUBTRACT:
+                mCode.write(DSUB);
+                break;
+            case MULTIPLY:
+                mCode.write(DMUL);
+                break;
+            case DIVIDE:
+                mCode.write(DDIV);
+                break;
+            case EXPONENT:
+                callStatic("java/lang/Math", "pow", "(DD)D");
+                break;
+            default:
+                throw new Exception("Operator \"" + operator.getOpName() + "\" can not be compiled");
+        }
+        popDouble();
+    }
+
+    // replace the value on top of the stack with the result of the trig function, from FastTrig or Math
+    public void applyTrigFunction(TrigFunction trigFunction, boolean fastTrig) {
+        callStatic(fastTrig ? "com/ryan/graphcalc/FastTrig" : "java/lang/Math", trigFunction.getFuncName(), "(D)D");
+    }
+
+    // call a static method that takes doubles and returns a double, caller adjusts the stack size
+    public void callStatic(String owner, String name, String descriptor) {
+        mCode.write(INVOKESTATIC);
+        writeU2(mCode, addMethodref(owner, name, descriptor));
+    }
+
+    // build the complete class file with the instructions added so far
+    public byte[] toClassFile(String className) throws Exception {
+        if(mCode.size() + 1 > MAX_CODE_LENGTH) {
+            throw new Exception("Equation is too long to compile (" + mCode.size() + " bytes)");
+        }
+        int thisClass = addClass(className);
+        int superClass = addClass("java/lang/Object");
+        int operatorInterface = addClass("java/util/function/DoubleUnaryOperator");
+        int codeName = addUtf8("Code");
+        int initName = addUtf8("<init>");
+        int initDescriptor = addUtf8("()V");
+        int objectInit = addMethodref("java/lang/Object", "<init>", "()V");
+        int applyName = addUtf8("applyAsDouble");
+        int applyDescriptor = addUtf8("(D)D");
+
+        ByteArrayOutputStream classFile = new ByteArrayOutputStream();
+        writeU4(classFile, 0xCAFEBABE);
+        writeU2(classFile, 0);
+        writeU2(classFile, CLASS_FILE_VERSION);
+        writeU2(classFile, mConstantCount);
+        classFile.write(mConstantPool.toByteArray(), 0, mConstantPool.size());
+        // public final class that extends Object and implements DoubleUnaryOperator
+        writeU2(classFile, 0x0001 | 0x0010 | 0x0020);
+        writeU2(classFile, thisClass);
+        writeU2(classFile, superClass);
+        writeU2(classFile, 1);
+        writeU2(classFile, operatorInterface);
+        // no fields
+        writeU2(classFile, 0);
+        // two methods, the constructor and applyAsDouble
+        writeU2(classFile, 2);
+
+        // public constructor calling Object()
+        ByteArrayOutputStream initCode = new ByteArrayOutputStream();
+        initCode.write(ALOAD_0);
+        initCode.write(INVOKESPECIAL);
+        writeU2(initCode, objectInit);
+        initCode.write(RETURN);
+        writeMethod(classFile, initName, initDescriptor, codeName, 1, 1, initCode);
+
+        // public double applyAsDouble(double x), locals are "this", the two slots of x and the shared nodes
+        // the answer has to be the only value left on the stack
+        if(mStackSize != 2) {
+            throw new IllegalStateException("Stack holds " + mStackSize + " slots at the end, not one double");
+        }
+        mCode.write(DRETURN);
+        writeMethod(classFile, applyName, applyDescriptor, codeName, mMaxStackSize, mNumLocals, mCode);
+
+        // no class attributes
+        writeU2(classFile, 0);
+        return classFile.toByteArray();
+    }
+
+    // write a public method with a Code attribute
+    private void writeMethod(ByteArrayOutputStream classFile, int name, int descriptor, int codeName,
+                             int maxStack, int maxLocals, ByteArrayOutputStream code) {
+        writeU2(classFile, 0x0001);
+        writeU2(classFile, name);
+        writeU2(classFile, descriptor);
+        writeU2(classFile, 1);
+        writeU2(classFile, codeName);
+        // attribute length covers max stack, max locals, code, exception table and attributes
+        writeU4(classFile, 2 + 2 + 4 + code.size() + 2 + 2);
+        writeU2(classFile, maxStack);
+        writeU2(classFile, maxLocals);
+        writeU4(classFile, code.size());
+        classFile.write(code.toByteArray(), 0, code.size());
+        writeU2(classFile, 0);
+        writeU2(classFile, 0);
+    }
+
+    // load or store a local variable, using the wide form for slots past 255
+    private void writeLocalInstruction(int opcode, int local) {
+        if(local > 255) {
+            mCode.write(WIDE);
+            mCode.write(opcode);
+            writeU2(mCode, local);
+        } else {
+            mCode.write(opcode);
+            mCode.write(local);
+        }
+    }
+
+    // a double was pushed on the operand stack
+    private void pushDouble() {
+        mStackSize += 2;
+        mMaxStackSize = Math.max(mMaxStackSize, mStackSize);
+    }
+
+    // a double was popped off the operand stack
+    private void popDouble() {
+        mStackSize -= 2;
+    }
+
+    private int addUtf8(String value) {
+        Integer index = mConstantIndexes.get("utf8:" + value);
+        if(index == null) {
+            index = mConstantCount++;
+            mConstantPool.write(CONSTANT_UTF8);
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeU2(mConstantPool, bytes.length);
+            mConstantPool.write(bytes, 0, bytes.length);
+            mConstantIndexes.put("utf8:" + value, index);
+        }
+        return index;
+    }
+
+    private int addClass(String className) {
+        Integer index = mConstantIndexes.get("class:" + className);
+        if(index == null) {
+            int nameIndex = addUtf8(className);
+            index = mConstantCount++;
+            mConstantPool.write(CONSTANT_CLASS);
+            writeU2(mConstantPool, nameIndex);
+            mConstantIndexes.put("class:" + className, index);
+        }
+        return index;
+    }
+
+    private int addMethodref(String owner, String name, String descriptor) {
+        String key = "method:" + owner + "." + name + descriptor;
+        Integer index = mConstantIndexes.get(key);
+        if(index == null) {
+            int classIndex = addClass(owner);
+            int nameIndex = addUtf8(name);
+            int descriptorIndex = addUtf8(descriptor);
+            int nameAndTypeIndex = mConstantCount++;
+            mConstantPool.write(CONSTANT_NAME_AND_TYPE);
+            writeU2(mConstantPool, nameIndex);
+            writeU2(mConstantPool, descriptorIndex);
+            index = mConstantCount++;
+            mConstantPool.write(CONSTANT_METHODREF);
+            writeU2(mConstantPool, classIndex);
+            writeU2(mConstantPool, nameAndTypeIndex);
+            mConstantIndexes.put(key, index);
+        }
+        return index;
+    }
+
+    private int addDouble(double value) {
+        long bits = Double.doubleToRawLongBits(value);
+        String key = "double:" + bits;
+        Integer index = mConstantIndexes.get(key);
+        if(index == null) {
+            index = mConstantCount;
+            // doubles use up two constant pool entries
+            mConstantCount += 2;
+            mConstantPool.write(CONSTANT_DOUBLE);
+            writeU4(mConstantPool, (int) (bits >>> 32));
+            writeU4(mConstantPool, (int) bits);
+            mConstantIndexes.put(key, index);
+        }
+        return index;
+    }
+
+    private static void writeU2(ByteArrayOutputStream out, int value) {
+        out.write(value >>> 8);
+        out.write(value);
+    }
+
+    private static void writeU4(ByteArrayOutputStream out, int value) {
+        writeU2(out, value >>> 16);
+        writeU2(out, value);
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * EquationDag.java
+ * One or more equations merged into a graph where every distinct subexpression is a single node, so the
+ * sin(x) in sin(x)^2 + 2sin(x) + 1, or the x^2 that a whole family of curves starts from, is solved only
+ * once for each x value. The nodes are solved in order over chunks of x values, each node into an array
+ * of its own, and an array is handed to a later node once every node that reads it has been solved.
+ * A derivative and every node below it are solved with their first and second derivatives, into three
+ * arrays each, so an equation plotted along with its derivative is still only solved once per x value
+ */
+package com.ryan.graphcalc;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+class EquationDag {
+    // root of each equation, made of shared nodes
+    private final EquationNode[] mRoots;
+
+    // every distinct node, each one after all of its operands
+    private final EquationNode[] mNodes;
+
+    // index in mNodes of the operands of each node
+    private final int[][] mOperandIndexes;
+
+    // arrays each node writes its answers to, three for nodes solved with their derivatives: the
+    // answers, the first derivatives and the second derivatives
+    private final int[][] mResultBuffers;
+
+    // array holding the answers of each equation once all nodes are solved
+    private final int[] mRootBuffers;
+
+    // number of arrays needed to solve a chunk
+    private final int mNumBuffers;
+
+    // true if some node is solved from the derivatives of its operands
+    private final boolean mSolvesDerivatives;
+
+    // nodes the equations had in total before sharing
+    private final int mNumTreeNodes;
+
+    // merge the equations with the given roots
+    public EquationDag(List<EquationNode> roots) {
+        Map<EquationNode, EquationNode> sharedNodes = new HashMap<>();
+        mRoots = new EquationNode[roots.size()];
+        int numTreeNodes = 0;
+        for(int i = 0; i < mRoots.length; i++) {
+            numTreeNodes += roots.get(i).countNodes();
+            mRoots[i] = roots.get(i).share(sharedNodes);
+        }
+        mNumTreeNodes = numTreeNodes;
+
+        // put operands before the nodes that use them
+        Map<EquationNode, Integer> nodeIndexes = new IdentityHashMap<>();
+        List<EquationNode> nodes = new ArrayList<>(sharedNodes.size());
+        for(EquationNode root : mRoots) {
+            addInOrder(root, nodeIndexes, nodes);
+        }
+        mNodes = nodes.toArray(new EquationNode[0]);
+
+        // index of the last node that reads each node, the answers of the equations are read at the end
+        int[] lastUses = new int[mNodes.length];
+        for(int i = 0; i < mNodes.length; i++) {
+            for(EquationNode operand : mNodes[i].getOperands()) {
+                lastUses[nodeIndexes.get(operand)] = i;
+            }
+        }
+        for(EquationNode root : mRoots) {
+            lastUses[nodeIndexes.get(root)] = Integer.MAX_VALUE;
+        }
+
+        // derivatives and everything below them are solved with their derivatives. Nodes come after
+        // their operands, so going backwards every node is marked before its operands are
+        boolean[] withDerivatives = new boolean[mNodes.length];
+        boolean solvesDerivatives = false;
+        for(int i = mNodes.length - 1; i >= 0; i--) {
+            if(mNodes[i].needsOperandDerivatives()) {
+                withDerivatives[i] = true;
+                solvesDerivatives = true;
+            }
+            if(withDerivatives[i]) {
+                for(EquationNode operand : mNodes[i].getOperands()) {
+                    withDerivatives[nodeIndexes.get(operand)] = true;
+                }
+            }
+        }
+
+        // give each node its arrays, reusing arrays that no later node reads
+        mOperandIndexes = new int[mNodes.length][];
+        mResultBuffers = new int[mNodes.length][];
+        ArrayDeque<Integer> freeBuffers = new ArrayDeque<>();
+        int numBuffers = 0;
+        for(int i = 0; i < mNodes.length; i++) {
+            EquationNode[] operands = mNodes[i].getOperands();
+            mOperandIndexes[i] = new int[operands.length];
+            for(int j = 0; j < operands.length; j++) {
+                mOperandIndexes[i][j] = nodeIndexes.get(operands[j]);
+            }
+            mResultBuffers[i] = new int[withDerivatives[i] ? 3 : 1];
+            // a node solved with its derivatives copies its operand before reading the other one, so it
+            // gets its arrays before its operands' are given back
+            if(withDerivatives[i]) {
+                numBuffers = takeBuffers(mResultBuffers[i], freeBuffers, numBuffers);
+            }
+            // the node may write over an operand it is the last to read, each position is read before
+            // it is written
+            for(int j = 0; j < operands.length; j++) {
+                int operandIndex = mOperandIndexes[i][j];
+                boolean seenBefore = (j == 1 && operands[0] == operands[1]);
+                if(lastUses[operandIndex] == i && !seenBefore) {
+                    for(int buffer : mResultBuffers[operandIndex]) {
+                        freeBuffers.push(buffer);
+                    }
+                }
+            }
+            if(!withDerivatives[i]) {
+                numBuffers = takeBuffers(mResultBuffers[i], freeBuffers, numBuffers);
+            }
+        }
+        mNumBuffers = numBuffers;
+        mSolvesDerivatives = solvesDerivatives;
+
+        mRootBuffers = new int[mRoots.length];
+        for(int i = 0; i < mRoots.length; i++) {
+            mRootBuffers[i] = mResultBuffers[nodeIndexes.get(mRoots[i])][0];
+        }
+    }
+
+    // fill in the arrays a node writes to, reusing free arrays first. Returns the new number of arrays
+    private static int takeBuffers(int[] resultBuffers, ArrayDeque<Integer> freeBuffers, int numBuffers) {
+        for(int k = 0; k < resultBuffers.length; k++) {
+            resultBuffers[k] = freeBuffers.isEmpty() ? numBuffers++ : freeBuffers.pop();
+        }
+        return numBuffers;
+    }
+
+    // solve every equation for xVals[from] up to (not including) xVals[to], storing the answers of
+    // equation i in the same positions of yVals[i]
+    public void evaluate(double[] xVals, double[][] yVals, int from, int to) {
+        double[] xChunk = new double[EvaluationBuffers.CHUNK_SIZE];
+        double[][] buffers = new double[mNumBuffers][EvaluationBuffers.CHUNK_SIZE];
+        // the arrays of each node, the same for every chunk
+        double[][][] nodeVals = new double[mNodes.length][][];
+        for(int i = 0; i < mNodes.length; i++) {
+            nodeVals[i] = new double[mResultBuffers[i].length][];
+            for(int k = 0; k < mResultBuffers[i].length; k++) {
+                nodeVals[i][k] = buffers[mResultBuffers[i][k]];
+            }
+        }
+        for(int chunkStart = from; chunkStart < to; chunkStart += EvaluationBuffers.CHUNK_SIZE) {
+            int length = Math.min(EvaluationBuffers.CHUNK_SIZE, to - chunkStart);
+            System.arraycopy(xVals, chunkStart, xChunk, 0, length);
+            for(int i = 0; i < mNodes.length; i++) {
+                int[] operandIndexes = mOperandIndexes[i];
+                double[][] operand0Vals = (operandIndexes.length > 0) ? nodeVals[operandIndexes[0]] : null;
+                double[][] operand1Vals = (operandIndexes.length > 1) ? nodeVals[operandIndexes[1]] : null;
+                if(nodeVals[i].length == 3) {
+                    mNodes[i].evaluateDerivativesFromOperands(xChunk, operand0Vals, operand1Vals, nodeVals[i], length);
+                } else {
+                    mNodes[i].evaluateFromOperands(xChunk, (operand0Vals != null) ? operand0Vals[0] : null,
+                                                   (operand1Vals != null) ? operand1Vals[0] : null, nodeVals[i][0],
+                                                   length);
+                }
+            }
+            for(int i = 0; i < mRoots.length; i++) {
+                System.arraycopy(buffers[mRootBuffers[i]], 0, yVals[i], chunkStart, length);
+            }
+        }
+    }
+
+    public int getNumEquations() {
+        return mRoots.length;
+    }
+
+    // root of an equation, sharing its nodes with the other equations
+    public EquationNode getRoot(int equationIndex) {
+        return mRoots[equationIndex];
+    }
+
+    // detect if some node is solved from the derivatives of its operands, like a derivative
+    public boolean solvesDerivatives() {
+        return mSolvesDerivatives;
+    }
+
+    // number of distinct nodes that are solved for each x value
+    public int getNumNodes() {
+        return mNodes.length;
+    }
+
+    // number of nodes the equations had before sharing, the nodes solved if each one was solved on its own
+    public int getNumTreeNodes() {
+        return mNumTreeNodes;
+    }
+
+    // add node to the order after its operands, unless it is already there
+    private static void addInOrder(EquationNode node, Map<EquationNode, Integer> nodeIndexes,
+                                   List<EquationNode> nodes) {
+        if(nodeIndexes.containsKey(node)) {
+            return;
+        }
+        for(EquationNode operand : node.getOperands()) {
+            addInOrder(operand, nodeIndexes, nodes);
+        }
+        nodeIndexes.put(node, nodes.size());
+        nodes.add(node);
+    }
+}
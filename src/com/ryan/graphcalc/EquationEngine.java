@@ -0,0 +1,44 @@
+/*
+ * EquationEngine.java
+ * Solves and compiles equations. The engine has no state of its own, every call works only on its
+ * parameters and on objects it creates for that call, so one engine can be shared by any number of
+ * threads. Keeping a history of answers is left to Calculator
+ */
+package com.ryan.graphcalc;
+
+public final class EquationEngine {
+    // detect if an equation uses the x variable
+    public boolean hasVariables(String eqLine) {
+        return EquationLexer.hasVariables(eqLine);
+    }
+
+    // solve an equation that does not use x
+    public double solve(String eqLine) throws Exception {
+        // the equation is only solved once, so solve it straight from the string instead of building a tree
+        EquationEvaluator evaluator = new EquationEvaluator(eqLine);
+        double ans = evaluator.evaluate(Double.NaN);
+
+        // there is no value to use for x
+        if(evaluator.hasVariables()) {
+            throw new Exception("Equation \"" + eqLine + "\" needs a value for x");
+        }
+        return ans;
+    }
+
+    // solve an equation of the form y = f(x) for one value of x
+    public double solve(String eqLine, double xVal) throws Exception {
+        return new EquationEvaluator(eqLine).evaluate(xVal);
+    }
+
+    // parse the equation once so it can be solved for any number of x values. The compiled equation
+    // is safe to share between threads as well
+    public CompiledEquation compile(String eqLine) throws Exception {
+        return compile(eqLine, false);
+    }
+
+    // parse the equation for plotting, with fastTrig the trig functions trade precision the plot can
+    // not show for speed. See FastTrig for the largest error
+    public CompiledEquation compile(String eqLine, boolean fastTrig) throws Exception {
+        return new EquationParser(eqLine, fastTrig).parse();
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * EquationEvaluator.java
+ * Solves an equation in a single pass over its tokens without building a tree, for equations that
+ * are only solved once. Values and pending operators are kept on primitive stacks, an operator is
+ * applied as soon as the next operator has an equal or lower precedence order (operators of the same
+ * order are solved left to right). The work done is linear in the length of the equation and there
+ * is no recursion, so machine generated equations with many thousands of terms can be solved.
+ * Follows the same rules as EquationParser, so both always give the same answer
+ */
+package com.ryan.graphcalc;
+
+import com.ryan.graphcalc.EquationLexer.TokenType;
+
+import java.util.Arrays;
+
+class EquationEvaluator {
+    // markers kept on the operator stack next to the Operator ordinals of the binary operators
+    private static final int NEGATE = -1;
+    private static final int PARENTHESES = -2;
+    // a trig function is stored as its opening parentheses, FUNCTION_BASE - ordinal of the function
+    private static final int FUNCTION_BASE = -3;
+
+    // Operator values by ordinal, so the stack can hold plain ints
+    private static final Operator[] OPERATORS = Operator.values();
+    private static final TrigFunction[] TRIG_FUNCTIONS = TrigFunction.values();
+
+    // the equation being solved, as it was typed
+    private final String mEquationLine;
+
+    // values waiting for an operator to be applied to them
+    private double[] mValues = new double[16];
+    private int mNumValues;
+
+    // operators waiting for their right operand, negative signs and open parentheses
+    private int[] mOperators = new int[16];
+    // position in the equation of each open parentheses on the operator stack, used for error messages
+    private int[] mOperatorPositions = new int[16];
+    private int mNumOperators;
+
+    // number of open parentheses on the operator stack
+    private int mNumOpenParentheses;
+
+    // true if the equation used the x variable
+    private boolean mHasVariables;
+
+    // evaluator constructor
+    public EquationEvaluator(String equationLine) {
+        mEquationLine = equationLine;
+    }
+
+    // solve the equation, using xVal wherever the equation has x
+    public double evaluate(double xVal) throws Exception {
+        mNumValues = 0;
+        mNumOperators = 0;
+        mNumOpenParentheses = 0;
+        mHasVariables = false;
+        EquationLexer lexer = new EquationLexer(mEquationLine);
+        TokenType type = lexer.next();
+        if(type == TokenType.END) {
+            throw new Exception("There is no equation to solve");
+        }
+
+        // alternates between reading an operand and reading the operator after it
+        boolean expectOperand = true;
+        while(type != TokenType.END) {
+            if(expectOperand) {
+                switch(type) {
+                    case OPERATOR:
+                        // negative sign belongs to the operand right after it
+                        if(lexer.getOperator() != Operator.SUBTRACT) {
+                            throw unexpected(lexer);
+                        }
+                        pushOperator(NEGATE, lexer.getStart());
+                        break;
+                    case NUMBER:
+                        pushOperand(lexer.getNumber());
+                        expectOperand = false;
+                        break;
+                    case VARIABLE:
+                        mHasVariables = true;
+                        pushOperand(xVal);
+                        expectOperand = false;
+                        break;
+                    case LEFT_PAREN:
+                        pushOperator(PARENTHESES, lexer.getStart());
+                        mNumOpenParentheses++;
+                        break;
+                    case FUNCTION:
+                        // trig function is always followed by its opening parentheses
+                        TrigFunction trigFunction = lexer.getTrigFunction();
+                        lexer.next();
+                        pushOperator(FUNCTION_BASE - trigFunction.ordinal(), lexer.getStart());
+                        mNumOpenParentheses++;
+                        break;
+                    default:
+                        throw unexpected(lexer);
+                }
+            } else if(type == TokenType.RIGHT_PAREN && mNumOpenParentheses > 0) {
+                closeParentheses();
+            } else if(type == TokenType.OPERATOR) {
+                Operator operator = lexer.getOperator();
+                // solve the operators before this one that have an equal or higher order
+                while(mNumOperators > 0 && mOperators[mNumOperators - 1] >= 0
+                        && OPERATORS[mOperators[mNumOperators - 1]].getOrder() >= operator.getOrder()) {
+                    applyTopOperator();
+                }
+                pushOperator(operator.ordinal(), lexer.getStart());
+                expectOperand = true;
+            } else {
+                // inside parentheses, anything but an operator or closing parentheses means it was never closed
+                throw (mNumOpenParentheses > 0) ? missingClosingParentheses() : unexpected(lexer);
+            }
+            type = lexer.next();
+        }
+        if(expectOperand) {
+            throw new Exception("Missing a value at the end of \"" + mEquationLine + "\"");
+        }
+        if(mNumOpenParentheses > 0) {
+            throw missingClosingParentheses();
+        }
+        while(mNumOperators > 0) {
+            applyTopOperator();
+        }
+        return mValues[0];
+    }
+
+    // detect if the equation used the x variable, only known after it was solved
+    public boolean hasVariables() {
+        return mHasVariables;
+    }
+
+    // solve everything back to the innermost open parentheses, then the trig function it belongs to
+    private void closeParentheses() {
+        while(mOperators[mNumOperators - 1] >= 0) {
+            applyTopOperator();
+        }
+        int marker = mOperators[--mNumOperators];
+        mNumOpenParentheses--;
+        if(marker != PARENTHESES) {
+            TrigFunction trigFunction = TRIG_FUNCTIONS[FUNCTION_BASE - marker];
+            mValues[mNumValues - 1] = trigFunction.apply(mValues[mNumValues - 1]);
+        }
+        applyNegatives();
+    }
+
+    // apply the binary operator on top of the stack to the two values on top of the stack
+    private void applyTopOperator() {
+        Operator operator = OPERATORS[mOperators[--mNumOperators]];
+        double operand1 = mValues[--mNumValues];
+        mValues[mNumValues - 1] = operator.apply(mValues[mNumValues - 1], operand1);
+    }
+
+    // an operand is complete, apply the negative signs written right before it
+    private void applyNegatives() {
+        while(mNumOperators > 0 && mOperators[mNumOperators - 1] == NEGATE) {
+            mNumOperators--;
+            mValues[mNumValues - 1] = -mValues[mNumValues - 1];
+        }
+    }
+
+    private void pushOperand(double value) {
+        if(mNumValues == mValues.length) {
+            mValues = Arrays.copyOf(mValues, mNumValues * 2);
+        }
+        mValues[mNumValues++] = value;
+        applyNegatives();
+    }
+
+    private void pushOperator(int operator, int pos) {
+        if(mNumOperators == mOperators.length) {
+            mOperators = Arrays.copyOf(mOperators, mNumOperators * 2);
+            mOperatorPositions = Arrays.copyOf(mOperatorPositions, mNumOperators * 2);
+        }
+        mOperators[mNumOperators] = operator;
+        mOperatorPositions[mNumOperators] = pos;
+        mNumOperators++;
+    }
+
+    // error for a token that can not appear where it is
+    private Exception unexpected(EquationLexer lexer) {
+        return new Exception("Unexpected \"" + mEquationLine.substring(lexer.getStart(), lexer.getEnd())
+                + "\" after \"" + lexer.getTextBefore() + "\"");
+    }
+
+    private Exception missingClosingParentheses() {
+        // report the innermost parentheses that is still open
+        int i = mNumOperators - 1;
+        while(mOperators[i] >= 0 || mOperators[i] == NEGATE) {
+            i--;
+        }
+        return new Exception("Failed to find closing parentheses after \""
+                + mEquationLine.substring(0, mOperatorPositions[i]) + "\"");
+    }
+}
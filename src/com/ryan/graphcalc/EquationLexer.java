@@ -0,0 +1,267 @@
+/*
+ * EquationLexer.java
+ * Splits an equation into tokens in a single scan, without regular expressions and without creating an
+ * object per token. The caller calls next() to move to the following token and reads the current one
+ * through the getters, including where it starts and ends in the equation so errors can point at it.
+ * Spaces are skipped, a "y =" at the start is dropped, and a multiply token is added wherever two
+ * operands are written next to each other, as in 3x, 2(x + 1), (x - 1)(x + 1) or x sin(x)
+ */
+package com.ryan.graphcalc;
+
+class EquationLexer {
+    // kinds of token
+    enum TokenType {
+        NUMBER,
+        VARIABLE,
+        OPERATOR,
+        FUNCTION,
+        LEFT_PAREN,
+        RIGHT_PAREN,
+        END
+    }
+
+    // powers of ten that are exact as doubles, for reading short numbers without Double.parseDouble
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    // most digits a number can have and still be read exactly into a long and then a double
+    private static final int MAX_EXACT_DIGITS = 15;
+
+    private static final TrigFunction[] TRIG_FUNCTIONS = TrigFunction.values();
+
+    // the equation as it was typed
+    private final String mEquationLine;
+
+    // position of the next character to scan
+    private int mPos;
+
+    // the current token
+    private TokenType mType;
+    private int mStart;
+    private int mEnd;
+    private double mNumber;
+    private Operator mOperator;
+    private TrigFunction mTrigFunction;
+
+    // true if the token before the current one ended an operand, so another operand right after it
+    // is multiplied with it
+    private boolean mAfterOperand;
+
+    // true if the next call to next() should return the operand it had to put a multiply token before
+    private boolean mPendingOperand;
+
+    // saved state of the operand that comes after an implicit multiply token
+    private TokenType mPendingType;
+    private int mPendingStart;
+    private int mPendingEnd;
+    private TrigFunction mPendingTrigFunction;
+
+    public EquationLexer(String equationLine) {
+        mEquationLine = equationLine;
+        mPos = skipSpaces(0);
+        // an equation in the form y = f(x) is the same as f(x)
+        if(mPos < equationLine.length() && Character.toLowerCase(equationLine.charAt(mPos)) == 'y') {
+            int equalsPos = skipSpaces(mPos + 1);
+            if(equalsPos < equationLine.length() && equationLine.charAt(equalsPos) == '=') {
+                mPos = equalsPos + 1;
+            }
+        }
+    }
+
+    // detect if an equation uses the x variable, also true for an equation that stops being valid
+    // after an x, since it was meant to be graphed
+    public static boolean hasVariables(String equationLine) {
+        EquationLexer lexer = new EquationLexer(equationLine);
+        try {
+            while(lexer.next() != TokenType.END) {
+                if(lexer.getType() == TokenType.VARIABLE) {
+                    return true;
+                }
+            }
+        } catch(Exception exception) {
+            // the tokens before the error had no x
+        }
+        return false;
+    }
+
+    // move to the next token and return its type
+    public TokenType next() throws Exception {
+        if(mPendingOperand) {
+            mPendingOperand = false;
+            mType = mPendingType;
+            mStart = mPendingStart;
+            mEnd = mPendingEnd;
+            mTrigFunction = mPendingTrigFunction;
+            mAfterOperand = (mType == TokenType.VARIABLE);
+            return mType;
+        }
+
+        mPos = skipSpaces(mPos);
+        mStart = mPos;
+        if(mPos >= mEquationLine.length()) {
+            mType = TokenType.END;
+            mEnd = mPos;
+            return mType;
+        }
+        char c = mEquationLine.charAt(mPos);
+
+        if(c >= '0' && c <= '9' || c == '.') {
+            scanNumber();
+        } else if(c == 'x' || c == 'X') {
+            mType = TokenType.VARIABLE;
+            mEnd = ++mPos;
+        } else if(c == '(') {
+            mType = TokenType.LEFT_PAREN;
+            mEnd = ++mPos;
+        } else if(c == ')') {
+            mType = TokenType.RIGHT_PAREN;
+            mEnd = ++mPos;
+        } else if((mOperator = findOperator(c)) != null) {
+            mType = TokenType.OPERATOR;
+            mEnd = ++mPos;
+        } else if((mTrigFunction = findTrigFunction(mPos)) != null) {
+            mType = TokenType.FUNCTION;
+            mPos += mTrigFunction.getFuncName().length();
+            mEnd = mPos;
+        } else {
+            throw new Exception("Unexpected \"" + c + "\" after \"" + mEquationLine.substring(0, mPos) + "\"");
+        }
+
+        // an operand written right after another one is multiplied with it. A number right after an
+        // operand is left alone, so x2 is an error instead of a guess
+        boolean startsOperand = (mType == TokenType.VARIABLE || mType == TokenType.FUNCTION
+                                 || mType == TokenType.LEFT_PAREN);
+        if(mAfterOperand && startsOperand) {
+            mPendingOperand = true;
+            mPendingType = mType;
+            mPendingStart = mStart;
+            mPendingEnd = mEnd;
+            mPendingTrigFunction = mTrigFunction;
+            mType = TokenType.OPERATOR;
+            mOperator = Operator.MULTIPLY;
+            mEnd = mStart;
+            mAfterOperand = false;
+            return mType;
+        }
+        mAfterOperand = (mType == TokenType.NUMBER || mType == TokenType.VARIABLE
+                         || mType == TokenType.RIGHT_PAREN);
+        return mType;
+    }
+
+    public TokenType getType() {
+        return mType;
+    }
+
+    // position of the first character of the token, an implicit multiply token has no characters
+    public int getStart() {
+        return mStart;
+    }
+
+    // position after the last character of the token
+    public int getEnd() {
+        return mEnd;
+    }
+
+    // value of a NUMBER token
+    public double getNumber() {
+        return mNumber;
+    }
+
+    // operator of an OPERATOR token
+    public Operator getOperator() {
+        return mOperator;
+    }
+
+    // function of a FUNCTION token
+    public TrigFunction getTrigFunction() {
+        return mTrigFunction;
+    }
+
+    // the equation as typed up to the current token, for error messages
+    public String getTextBefore() {
+        return mEquationLine.substring(0, mStart);
+    }
+
+    // read a number made up of digits and decimal points
+    private void scanNumber() throws Exception {
+        mType = TokenType.NUMBER;
+        long mantissa = 0;
+        int numDigits = 0;
+        int numFractionDigits = 0;
+        int numPoints = 0;
+        while(mPos < mEquationLine.length()) {
+            char c = mEquationLine.charAt(mPos);
+            if(c >= '0' && c <= '9') {
+                // leading zeros do not count towards the digits that fit in a long
+                if(numDigits > 0 || c != '0') {
+                    numDigits++;
+                }
+                if(numDigits <= MAX_EXACT_DIGITS) {
+                    mantissa = mantissa * 10 + (c - '0');
+                }
+                if(numPoints > 0) {
+                    numFractionDigits++;
+                }
+            } else if(c == '.') {
+                numPoints++;
+            } else {
+                break;
+            }
+            mPos++;
+        }
+        mEnd = mPos;
+
+        if(numPoints <= 1 && numDigits <= MAX_EXACT_DIGITS && numFractionDigits < POWERS_OF_TEN.length
+                && mEnd - mStart > numPoints) {
+            // both the digits and the power of ten are exact doubles, so the one division rounds correctly
+            mNumber = mantissa / POWERS_OF_TEN[numFractionDigits];
+            return;
+        }
+        String number = mEquationLine.substring(mStart, mEnd);
+        try {
+            mNumber = Double.parseDouble(number);
+        } catch(NumberFormatException exception) {
+            throw new Exception("\"" + number + "\" is not a number");
+        }
+    }
+
+    // binary operator for the character, parentheses are tokens of their own
+    private static Operator findOperator(char c) {
+        switch(c) {
+            case '+':
+                return Operator.ADD;
+            case '-':
+                return Operator.SUBTRACT;
+            case '*':
+                return Operator.MULTIPLY;
+            case '/':
+                return Operator.DIVIDE;
+            case '^':
+                return Operator.EXPONENT;
+        }
+        return null;
+    }
+
+    // trig function whose name starts at pos and is followed by its opening parentheses
+    private TrigFunction findTrigFunction(int pos) {
+        for(TrigFunction trigFunction : TRIG_FUNCTIONS) {
+            String funcName = trigFunction.getFuncName();
+            if(mEquationLine.regionMatches(true, pos, funcName, 0, funcName.length())) {
+                int parenPos = skipSpaces(pos + funcName.length());
+                if(parenPos < mEquationLine.length() && mEquationLine.charAt(parenPos) == '(') {
+                    return trigFunction;
+                }
+            }
+        }
+        return null;
+    }
+
+    private int skipSpaces(int pos) {
+        while(pos < mEquationLine.length() && Character.isWhitespace(mEquationLine.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * EquationNode.java
+ * A node in the expression tree that an equation is parsed into. The tree is built once and can then
+ * be solved for any value of x without going back to the equation string
+ */
+package com.ryan.graphcalc;
+
+import java.util.Map;
+
+public abstract class EquationNode {
+    // returned by nodes that have no operands
+    protected static final EquationNode[] NO_OPERANDS = new EquationNode[0];
+
+    // solve this node (and everything below it) for the given x value
+    public abstract double evaluate(double xVal);
+
+    // solve this node for the first length values of xVals, storing the answers in yVals
+    public abstract void evaluate(double[] xVals, double[] yVals, int length, EvaluationBuffers buffers);
+
+    // solve this node for the first length values of xVals along with its first and second derivatives
+    // with respect to x, storing them in yVals, dyVals and d2yVals. This is forward mode automatic
+    // differentiation: each node combines the answers and derivatives of its operands with the chain
+    // rule, so the derivatives are exact up to rounding and need no extra points solved near x
+    public abstract void evaluateDerivatives(double[] xVals, double[] yVals, double[] dyVals, double[] d2yVals,
+                                             int length, EvaluationBuffers buffers);
+
+    // solve this node and its first and second derivatives for one x value, storing them in
+    // derivatives[offset] to [offset + 2]. The positions after those hold the operands while they are
+    // combined, so derivatives needs 3 positions for each node in the tree past offset
+    public abstract void evaluateDerivatives(double xVal, double[] derivatives, int offset);
+
+    // interval the answers of this node stay within for every x in xInterval, WHOLE if some of them may
+    // be infinite or NaN
+    public abstract Interval evaluateInterval(Interval xInterval);
+
+    // add the instructions that solve this node to a generated class, leaving the result on the stack
+    public abstract void emitBytecode(EquationClassWriter writer) throws Exception;
+
+    // detect if this node or any node below it uses the x variable
+    public abstract boolean hasVariables();
+
+    // return a tree that gives the same answers with parts that do not depend on x solved ahead of time
+    // and identities such as x * 1 removed. Returns this node if nothing could be simplified
+    public abstract EquationNode simplify();
+
+    // number of nodes in the tree starting at this node
+    public abstract int countNodes();
+
+    // return a node that gives the same answers where every subexpression that is also in sharedNodes is
+    // replaced by the node already there, and every new one is added. Sharing the same map across
+    // equations turns them into one graph where each distinct subexpression is a single node
+    public abstract EquationNode share(Map<EquationNode, EquationNode> sharedNodes);
+
+    // the nodes this node is solved from, in the order evaluateFromOperands takes their answers
+    public abstract EquationNode[] getOperands();
+
+    // true for nodes that are solved from the derivatives of their operands instead of only their
+    // answers. EquationDag solves those, and every node below them, with evaluateDerivativesFromOperands
+    public boolean needsOperandDerivatives() {
+        return false;
+    }
+
+    // solve only this node for the first length values of xVals, reading the answers of its operands
+    // from operand0Vals and operand1Vals instead of solving them again. Unused operand arrays are null,
+    // and yVals may be the same array as either operand. Every node that does not need the derivatives of
+    // its operands overrides this
+    public void evaluateFromOperands(double[] xVals, double[] operand0Vals, double[] operand1Vals,
+                                     double[] yVals, int length) {
+        throw new UnsupportedOperationException(getClass().getSimpleName()
+                                                + " is solved from the derivatives of its operands");
+    }
+
+    // solve only this node and its first and second derivatives from the answers and derivatives of its
+    // operands, like evaluateFromOperands. Each argument holds the answers, first derivatives and second
+    // derivatives in that order, and yVals never shares an array with the operands
+    public abstract void evaluateDerivativesFromOperands(double[] xVals, double[][] operand0Vals,
+                                                         double[][] operand1Vals, double[][] yVals, int length);
+
+    // nodes are equal if they solve the same thing from the same operand nodes. Operands are compared by
+    // identity, so only nodes whose operands were already shared compare equal
+    @Override
+    public abstract boolean equals(Object other);
+
+    @Override
+    public abstract int hashCode();
+
+    // the node in sharedNodes equal to node, adding node if there is none yet
+    protected static EquationNode intern(Map<EquationNode, EquationNode> sharedNodes, EquationNode node) {
+        EquationNode sharedNode = sharedNodes.putIfAbsent(node, node);
+        return (sharedNode != null) ? sharedNode : node;
+    }
+}
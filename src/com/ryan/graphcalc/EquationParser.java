@@ -0,0 +1,131 @@
+/*
+ * EquationParser.java
+ * Parses an equation string once into an expression tree. Follows the same order of precedence as
+ * the Operator enum: parentheses first, then exponents, then multiply / divide, then add / subtract.
+ * Trees for plotting can use the faster FastTrig functions. Parentheses, negative signs and trig
+ * functions are parsed recursively, so how deeply they can nest is limited by MAX_NESTING
+ */
+package com.ryan.graphcalc;
+
+import com.ryan.graphcalc.EquationLexer.TokenType;
+
+class EquationParser {
+    // most parentheses, negative signs and trig functions inside each other, far more than anyone types
+    // but few enough that parsing and solving the tree stay well within the call stack
+    private static final int MAX_NESTING = 500;
+
+    // the equation being parsed, as it was typed
+    private final String mEquationLine;
+
+    // true to solve trig functions with FastTrig instead of the Math functions
+    private final boolean mFastTrig;
+
+    // splits the equation into tokens, positioned at the next token to parse
+    private EquationLexer mLexer;
+
+    // number of operands being parsed inside each other
+    private int mNesting;
+
+    // parser constructor
+    public EquationParser(String equationLine) {
+        this(equationLine, false);
+    }
+
+    public EquationParser(String equationLine, boolean fastTrig) {
+        mEquationLine = equationLine;
+        mFastTrig = fastTrig;
+    }
+
+    // parse the whole equation line into a tree
+    public CompiledEquation parse() throws Exception {
+        mLexer = new EquationLexer(mEquationLine);
+        if(mLexer.next() == TokenType.END) {
+            throw new Exception("There is no equation to solve");
+        }
+        // start with the lowest precedence order (add / subtract)
+        EquationNode root = parseOrder(1);
+        if(mLexer.getType() != TokenType.END) {
+            throw unexpected();
+        }
+        return new CompiledEquation(mEquationLine, root, mFastTrig);
+    }
+
+    // parse all operators that match the precedence order, operands are parsed at the next order up
+    private EquationNode parseOrder(int order) throws Exception {
+        // parentheses order is handled by parseOperand
+        if(order >= Operator.LEFTPAREN.getOrder()) {
+            return parseOperand();
+        }
+        EquationNode node = parseOrder(order + 1);
+        // operators of the same order are solved left to right
+        while(mLexer.getType() == TokenType.OPERATOR && mLexer.getOperator().getOrder() == order) {
+            Operator operator = mLexer.getOperator();
+            mLexer.next();
+            node = new OperatorNode(operator, node, parseOrder(order + 1));
+        }
+        return node;
+    }
+
+    // parse a number, x, negative sign, trig function or an expression in parentheses
+    private EquationNode parseOperand() throws Exception {
+        if(mNesting == MAX_NESTING) {
+            throw new Exception("Parentheses, negative signs and trig functions can only be nested "
+                    + MAX_NESTING + " deep");
+        }
+        mNesting++;
+        EquationNode node = parseNestedOperand();
+        mNesting--;
+        return node;
+    }
+
+    private EquationNode parseNestedOperand() throws Exception {
+        switch(mLexer.getType()) {
+            case END:
+                throw new Exception("Missing a value at the end of \"" + mEquationLine + "\"");
+            case OPERATOR:
+                // negative sign belongs to the operand right after it
+                if(mLexer.getOperator() != Operator.SUBTRACT) {
+                    throw unexpected();
+                }
+                mLexer.next();
+                return new NegateNode(parseOperand());
+            case NUMBER:
+                double value = mLexer.getNumber();
+                mLexer.next();
+                return new ConstantNode(value);
+            case VARIABLE:
+                // the variable of the equation
+                mLexer.next();
+                return new VariableNode();
+            case LEFT_PAREN:
+                // expression inside parentheses
+                return parseParentheses();
+            case FUNCTION:
+                // trig function followed by its parameter in parentheses
+                TrigFunction trigFunction = mLexer.getTrigFunction();
+                mLexer.next();
+                return new TrigFunctionNode(trigFunction, parseParentheses(), mFastTrig);
+            default:
+                throw unexpected();
+        }
+    }
+
+    // parse everything inside a pair of parentheses, the lexer is at the opening parentheses
+    private EquationNode parseParentheses() throws Exception {
+        int startParentheses = mLexer.getStart();
+        mLexer.next();
+        EquationNode node = parseOrder(1);
+        if(mLexer.getType() != TokenType.RIGHT_PAREN) {
+            throw new Exception("Failed to find closing parentheses after \""
+                    + mEquationLine.substring(0, startParentheses) + "\"");
+        }
+        mLexer.next();
+        return node;
+    }
+
+    // error for a token that can not appear where it is
+    private Exception unexpected() {
+        return new Exception("Unexpected \"" + mEquationLine.substring(mLexer.getStart(), mLexer.getEnd())
+                + "\" after \"" + mLexer.getTextBefore() + "\"");
+    }
+}
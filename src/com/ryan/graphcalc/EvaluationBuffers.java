@@ -0,0 +1,44 @@
+/*
+ * EvaluationBuffers.java
+ * Scratch arrays used when solving an equation for a whole chunk of x values at once. Each operator
+ * node borrows one array for its right operand while it is being solved and gives it back after
+ */
+package com.ryan.graphcalc;
+
+import java.util.ArrayList;
+
+class EvaluationBuffers {
+    // number of x values solved together, small enough for all buffers to stay in cache
+    public static final int CHUNK_SIZE = 512;
+
+    // every array handed out so far
+    private final ArrayList<double[]> mBuffers = new ArrayList<>();
+
+    // how many of the arrays are currently borrowed
+    private int mNumUsed;
+
+    // length of each array handed out
+    private final int mChunkSize;
+
+    public EvaluationBuffers() {
+        this(CHUNK_SIZE);
+    }
+
+    // buffers for solving fewer x values at once, such as one at a time
+    public EvaluationBuffers(int chunkSize) {
+        mChunkSize = chunkSize;
+    }
+
+    // borrow an array of the chunk size
+    public double[] take() {
+        if(mNumUsed == mBuffers.size()) {
+            mBuffers.add(new double[mChunkSize]);
+        }
+        return mBuffers.get(mNumUsed++);
+    }
+
+    // give back the most recently borrowed array
+    public void release() {
+        mNumUsed--;
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * FastTrig.java
+ * Sine, cosine and tangent accurate enough to plot with, about three times faster than the Math functions.
+ * x is reduced to r in [-pi/4, pi/4] by subtracting the nearest multiple k of pi/2, with pi/2 split in
+ * two parts so the subtraction is exact, then short Taylor polynomials of sin(r) and cos(r) are combined
+ * according to k. Largest error, checked by FastTrigTest over dense sweeps of x:
+ *
+ *   sin, cos   absolute error at most MAX_ABS_ERROR (3e-8)
+ *   tan        relative error at most MAX_TAN_REL_ERROR (1e-7)
+ *
+ * A plot is about a thousand pixels tall, so errors this small never move a point. Values of x beyond
+ * MAX_REDUCED_X, infinity and NaN use the Math functions, so the bounds hold for every x
+ */
+package com.ryan.graphcalc;
+
+public final class FastTrig {
+    // largest error of sin and cos, and largest relative error of tan
+    public static final double MAX_ABS_ERROR = 3e-8;
+    public static final double MAX_TAN_REL_ERROR = 1e-7;
+
+    // largest x reduced here, k * PI_OVER_2_HI is exact while k stays under 2^20
+    private static final double MAX_REDUCED_X = 1e6;
+
+    private static final double TWO_OVER_PI = 0.63661977236758134308;
+
+    // pi / 2 split into a 33 bit part and the rest
+    private static final double PI_OVER_2_HI = 1.57079632673412561417e+00;
+    private static final double PI_OVER_2_LO = 6.07710050650619224932e-11;
+
+    // Taylor coefficients, sin(r) up to r^9 and cos(r) up to r^8
+    private static final double S3 = -1.0 / 6;
+    private static final double S5 = 1.0 / 120;
+    private static final double S7 = -1.0 / 5040;
+    private static final double S9 = 1.0 / 362880;
+    private static final double C2 = -1.0 / 2;
+    private static final double C4 = 1.0 / 24;
+    private static final double C6 = -1.0 / 720;
+    private static final double C8 = 1.0 / 40320;
+
+    private FastTrig() {
+    }
+
+    public static double sin(double x) {
+        if(!(Math.abs(x) <= MAX_REDUCED_X)) {
+            return Math.sin(x);
+        }
+        double k = Math.rint(x * TWO_OVER_PI);
+        double r = (x - k * PI_OVER_2_HI) - k * PI_OVER_2_LO;
+        int quadrant = (int) k & 3;
+        // sin(r + k pi/2) is sin(r), cos(r), -sin(r), -cos(r) for k = 0, 1, 2, 3
+        double val = ((quadrant & 1) == 0) ? sinPolynomial(r) : cosPolynomial(r);
+        return ((quadrant & 2) == 0) ? val : -val;
+    }
+
+    public static double cos(double x) {
+        if(!(Math.abs(x) <= MAX_REDUCED_X)) {
+            return Math.cos(x);
+        }
+        double k = Math.rint(x * TWO_OVER_PI);
+        double r = (x - k * PI_OVER_2_HI) - k * PI_OVER_2_LO;
+        int quadrant = (int) k & 3;
+        // cos(r + k pi/2) is cos(r), -sin(r), -cos(r), sin(r) for k = 0, 1, 2, 3
+        double val = ((quadrant & 1) == 0) ? cosPolynomial(r) : sinPolynomial(r);
+        return (((quadrant + 1) & 2) == 0) ? val : -val;
+    }
+
+    public static double tan(double x) {
+        if(!(Math.abs(x) <= MAX_REDUCED_X)) {
+            return Math.tan(x);
+        }
+        double k = Math.rint(x * TWO_OVER_PI);
+        double r = (x - k * PI_OVER_2_HI) - k * PI_OVER_2_LO;
+        double sin = sinPolynomial(r);
+        double cos = cosPolynomial(r);
+        // tan(r + pi/2) is -cos(r) / sin(r)
+        return (((int) k & 1) == 0) ? sin / cos : -cos / sin;
+    }
+
+    // solve the function for each parameter, storing the results in results, which may be params
+    public static void sin(double[] params, double[] results, int length) {
+        for(int i = 0; i < length; i++) { results[i] = sin(params[i]); }
+    }
+
+    public static void cos(double[] params, double[] results, int length) {
+        for(int i = 0; i < length; i++) { results[i] = cos(params[i]); }
+    }
+
+    public static void tan(double[] params, double[] results, int length) {
+        for(int i = 0; i < length; i++) { results[i] = tan(params[i]); }
+    }
+
+    // sin(r) for r in [-pi/4, pi/4]
+    private static double sinPolynomial(double r) {
+        double r2 = r * r;
+        return r + r * r2 * (S3 + r2 * (S5 + r2 * (S7 + r2 * S9)));
+    }
+
+    // cos(r) for r in [-pi/4, pi/4]
+    private static double cosPolynomial(double r) {
+        double r2 = r * r;
+        return 1 + r2 * (C2 + r2 * (C4 + r2 * (C6 + r2 * C8)));
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * GraphCalcBatch.java
+ * Headless entry point that solves equations in bulk without the JavaFX UI. Reads one equation per line
+ * from a file or stdin, solves the lines on a pool of worker threads and writes one result per line in
+ * the same order as the input. Lines that can not be solved, or are longer than MAX_LINE_BYTES, produce
+ * an "error: ..." line in their place. Answers with no value are written as NaN, Infinity or -Infinity
+ *
+ * usage: GraphCalcBatch [--threads n] [--x value] [file]
+ */
+package com.ryan.graphcalc;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class GraphCalcBatch {
+    // lines handed to a worker at once, large enough that the pool overhead does not matter
+    private static final int LINES_PER_BATCH = 1024;
+
+    // batches queued or solved but not yet written, per worker thread. Bounds the memory used no
+    // matter how long the input is
+    private static final int BATCHES_PER_THREAD = 4;
+
+    // bytes read from the channel at once
+    private static final int READ_BUFFER_BYTES = 64 * 1024;
+
+    // longest line that is solved, the rest of a longer line is skipped so a file without newlines can not
+    // use up the memory
+    private static final int MAX_LINE_BYTES = 1024 * 1024;
+
+    // stands in for a line that was too long, in the lines of a batch
+    private static final String LINE_TOO_LONG = null;
+
+    // solves the lines, stateless so all workers share it
+    private final EquationEngine mEngine = new EquationEngine();
+
+    // solves the batches
+    private final ExecutorService mWorkers;
+
+    // most batches in flight at once
+    private final int mMaxPendingBatches;
+
+    // value used for x in equations of the form y = f(x), NaN if equations must not use x
+    private final double mXVal;
+
+    public GraphCalcBatch(int numThreads, double xVal) {
+        mWorkers = Executors.newFixedThreadPool(numThreads, runnable -> {
+            Thread worker = new Thread(runnable, "graphcalc-batch");
+            worker.setDaemon(true);
+            return worker;
+        });
+        mMaxPendingBatches = numThreads * BATCHES_PER_THREAD;
+        mXVal = xVal;
+    }
+
+    // solve every line of the input channel and write the results to out in input order
+    public void run(ReadableByteChannel input, Writer out) throws IOException, InterruptedException {
+        // batches submitted to the workers, oldest first
+        ArrayDeque<Future<String[]>> pendingBatches = new ArrayDeque<>();
+        List<String> batchLines = new ArrayList<>(LINES_PER_BATCH);
+
+        ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_BYTES);
+        // bytes of the line being read, grows for lines longer than it up to MAX_LINE_BYTES
+        byte[] lineBytes = new byte[256];
+        int lineLength = 0;
+        // true once the line being read went past MAX_LINE_BYTES
+        boolean lineTooLong = false;
+
+        while(input.read(readBuffer) != -1) {
+            readBuffer.flip();
+            while(readBuffer.hasRemaining()) {
+                byte b = readBuffer.get();
+                if(b != '\n') {
+                    if(lineLength == MAX_LINE_BYTES) {
+                        lineTooLong = true;
+                    } else {
+                        if(lineLength == lineBytes.length) {
+                            lineBytes = Arrays.copyOf(lineBytes, Math.min(lineLength * 2, MAX_LINE_BYTES));
+                        }
+                        lineBytes[lineLength++] = b;
+                    }
+                    continue;
+                }
+                batchLines.add(lineTooLong ? LINE_TOO_LONG : decodeLine(lineBytes, lineLength));
+                lineLength = 0;
+                lineTooLong = false;
+                if(batchLines.size() == LINES_PER_BATCH) {
+                    submitBatch(batchLines, pendingBatches, out);
+                    batchLines = new ArrayList<>(LINES_PER_BATCH);
+                }
+            }
+            readBuffer.clear();
+        }
+        // last line may not end with a newline
+        if(lineLength > 0) {
+            batchLines.add(lineTooLong ? LINE_TOO_LONG : decodeLine(lineBytes, lineLength));
+        }
+        if(!batchLines.isEmpty()) {
+            submitBatch(batchLines, pendingBatches, out);
+        }
+        while(!pendingBatches.isEmpty()) {
+            writeBatch(pendingBatches.poll(), out);
+        }
+        out.flush();
+    }
+
+    // stop the worker threads
+    public void shutdown() {
+        mWorkers.shutdown();
+    }
+
+    // queue a batch for the workers, first writing out the oldest batch if too many are in flight
+    private void submitBatch(List<String> lines, ArrayDeque<Future<String[]>> pendingBatches, Writer out)
+            throws IOException, InterruptedException {
+        if(pendingBatches.size() >= mMaxPendingBatches) {
+            writeBatch(pendingBatches.poll(), out);
+        }
+        pendingBatches.add(mWorkers.submit(() -> solveBatch(lines)));
+    }
+
+    // wait for a batch to be solved and write its results
+    private void writeBatch(Future<String[]> batch, Writer out) throws IOException, InterruptedException {
+        String[] results;
+        try {
+            results = batch.get();
+        } catch (ExecutionException exception) {
+            // solveLine reports its errors in the results, so this is a bug in the batch code itself
+            throw new IllegalStateException("Failed to solve batch", exception.getCause());
+        }
+        for(String result : results) {
+            out.write(result);
+            out.write('\n');
+        }
+    }
+
+    // solve each line of a batch
+    private String[] solveBatch(List<String> lines) {
+        String[] results = new String[lines.size()];
+        for(int i = 0; i < results.length; i++) {
+            results[i] = solveLine(lines.get(i));
+        }
+        return results;
+    }
+
+    // solve one line, the result is either the answer or an error message
+    private String solveLine(String line) {
+        if(line == LINE_TOO_LONG) {
+            return "error: Line is longer than " + MAX_LINE_BYTES + " bytes";
+        }
+        // keep blank lines so the output lines up with the input
+        if(line.trim().isEmpty()) {
+            return "";
+        }
+        try {
+            double ans = Double.isNaN(mXVal) ? mEngine.solve(line) : mEngine.solve(line, mXVal);
+            // round the same way as answers solved in the calculator window, rounding would turn NaN into 0
+            // and infinity into the largest long
+            return Double.toString(Double.isFinite(ans) ? GraphEquation.roundDouble(ans, 6) : ans);
+        } catch (Exception exception) {
+            return "error: " + exception.getMessage();
+        }
+    }
+
+    // decode a line of UTF-8 bytes, dropping the carriage return of Windows line endings
+    private static String decodeLine(byte[] lineBytes, int lineLength) {
+        if(lineLength > 0 && lineBytes[lineLength - 1] == '\r') {
+            lineLength--;
+        }
+        return new String(lineBytes, 0, lineLength, StandardCharsets.UTF_8);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int numThreads = Runtime.getRuntime().availableProcessors();
+        double xVal = Double.NaN;
+        String inputFile = null;
+        for(int i = 0; i < args.length; i++) {
+            if(args[i].equals("--threads") && i + 1 < args.length) {
+                numThreads = Math.max(1, Integer.parseInt(args[++i]));
+            } else if(args[i].equals("--x") && i + 1 < args.length) {
+                xVal = Double.parseDouble(args[++i]);
+            } else if(!args[i].equals("-")) {
+                inputFile = args[i];
+            }
+        }
+
+        GraphCalcBatch batch = new GraphCalcBatch(numThreads, xVal);
+        ReadableByteChannel input = (inputFile != null)
+                ? FileChannel.open(Paths.get(inputFile), StandardOpenOption.READ)
+                : Channels.newChannel(System.in);
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 64 * 1024);
+        try {
+            batch.run(input, out);
+        } finally {
+            input.close();
+            batch.shutdown();
+        }
+    }
+}
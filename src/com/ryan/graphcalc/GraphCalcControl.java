@@ -30,12 +30,12 @@ public class GraphCalcControl {
     // Calculator which handles recursive evaluation of the input string
     private Calculator calc = new Calculator();
 
-    // calculator which handles all trigonometry functions
-    private TrigonometryCalculator trigCalculator = new TrigonometryCalculator();
-
     // Panel for displaying past equations that were entered
     private ResultsHistoryDisplay resultsHistoryDisplay;
 
+    // graph window new graphs are added to while it is open
+    private GraphDisplayer graphDisplayer;
+
     @FXML
     AnchorPane anchorPane;
 
@@ -57,8 +57,16 @@ public class GraphCalcControl {
     // handle clicking button to plot graph
     @FXML
     public void openGraph(ActionEvent actionEvent) {
-        // create new GraphDisplayer instance
-        GraphDisplayer graphDisplayer = new GraphDisplayer();
+        // plot in the graph window that is already open so equations can be compared, or open a new one
+        if(graphDisplayer == null || !graphDisplayer.isOpen()) {
+            graphDisplayer = new GraphDisplayer();
+            // points found on the graph are shown in the history with the equations
+            graphDisplayer.setOnAnalysisResult((description, ans) -> {
+                calc.addGraphResult(description, ans);
+                resultsHistoryDisplay.updateHistoryDisplay(answerHistory);
+            });
+        }
+        GraphDisplayer graphDisplayer = this.graphDisplayer;
         if(!GraphEquation.hasVariables(currentEquation) && actionEvent != null) {
             // create dialog to prompt user for function
             TextInputDialog askFunctionDialog = new TextInputDialog();
@@ -134,14 +142,12 @@ public class GraphCalcControl {
         // record the original equation as entered by the user
         calc.setOriginalEquation(currentEquation);
         try {
-            // put the equation through the trig parser first, evaluate it
-            String processedEquation = trigCalculator.processTrigFunctions(currentEquation);
-
-            // put the equation through the parser, evaluate it
-            calc.processLine(processedEquation);
+            // put the equation through the parser, evaluate it (including any trig functions)
+            calc.processLine(currentEquation);
         } catch(Exception exception) {
-            exception.printStackTrace();
-            System.err.println(exception.getMessage());
+            // the equation has no answer, it still goes in the history with the reason it failed
+            String error = exception.getMessage();
+            calc.addFailedEquation(currentEquation, (error == null)? "Error" : error);
         }
         // update display to show results
         resultsHistoryDisplay.updateHistoryDisplay(answerHistory);
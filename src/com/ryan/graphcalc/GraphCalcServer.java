@@ -0,0 +1,310 @@
+/*
+ * GraphCalcServer.java
+ * Small embedded HTTP service so other local tools can use the calculator and graph sampler. Each
+ * request runs on its own virtual thread when the JVM has them, and on a pooled thread otherwise.
+ * Compiled equations are shared across requests, and the time each endpoint takes is recorded
+ *
+ *   /eval?expr=2*(3+4)[&x=1.5]                  solve an equation, like the calculator window
+ *   /sample?expr=sin(x)&start=-15&end=15&step=0.025   x and y values of a graph, like a graph window
+ *   /stats                                       request latencies and cache counters
+ *
+ * Parameters are read from the query string, or from a url encoded form body for POST requests.
+ * Remember that "+" has to be sent as %2B. Answers are JSON, errors come back as {"error": "..."}
+ *
+ * usage: GraphCalcServer [port]
+ */
+package com.ryan.graphcalc;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+public class GraphCalcServer {
+    // the most points a single /sample request may ask for, about 4 MB of JSON
+    private static final int MAX_SAMPLE_POINTS = 100000;
+
+    // most /sample requests solved at once, the rest wait their turn. The sampler already uses every
+    // core, so more at once would only hold more answers in memory
+    private static final int MAX_CONCURRENT_SAMPLES =
+            Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    // largest POST body read, far longer than any equation and range
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+
+    // most compiled equations kept between requests
+    private static final int EQUATION_CACHE_SIZE = 1024;
+
+    private final HttpServer mServer;
+
+    // runs each request, one virtual thread per request when available
+    private final ExecutorService mExecutor;
+
+    // equations parsed by earlier requests
+    private final EquationCache mEquationCache = new EquationCache(EQUATION_CACHE_SIZE);
+
+    // solves the points of /sample requests
+    private final GraphSampler mSampler = new GraphSampler();
+
+    // permits for the /sample requests being solved
+    private final Semaphore mSamplePermits = new Semaphore(MAX_CONCURRENT_SAMPLES);
+
+    // request latencies for each endpoint, in the order they are listed by /stats
+    private final Map<String, LatencyHistogram> mLatencies = new LinkedHashMap<>();
+
+    // an endpoint answers with either a JSON body or throws to answer with an error
+    private interface Endpoint {
+        String handle(Map<String, String> params) throws Exception;
+    }
+
+    public GraphCalcServer(int port) throws IOException {
+        // only local tools are meant to call the service
+        mServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        mExecutor = newRequestExecutor();
+        mServer.setExecutor(mExecutor);
+        addEndpoint("/eval", this::handleEval);
+        addEndpoint("/sample", this::handleSample);
+        addEndpoint("/stats", params -> buildStats());
+    }
+
+    public void start() {
+        mServer.start();
+    }
+
+    // stop accepting requests, giving the ones in progress up to delaySeconds to finish
+    public void stop(int delaySeconds) {
+        mServer.stop(delaySeconds);
+        mExecutor.shutdown();
+    }
+
+    public int getPort() {
+        return mServer.getAddress().getPort();
+    }
+
+    // one virtual thread per request on Java 21 and later, looked up at runtime so the service still
+    // builds and runs on older JVMs, which get a cached thread pool instead
+    private static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException exception) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    // register an endpoint, timing every request it answers
+    private void addEndpoint(String path, Endpoint endpoint) {
+        LatencyHistogram latency = new LatencyHistogram();
+        mLatencies.put(path, latency);
+        mServer.createContext(path, exchange -> {
+            long startTime = System.nanoTime();
+            try {
+                int status = 200;
+                String body;
+                try {
+                    body = endpoint.handle(readParams(exchange));
+                } catch (Exception exception) {
+                    status = 400;
+                    body = "{\"error\": " + jsonString(exception.getMessage()) + "}";
+                } catch (StackOverflowError error) {
+                    // EquationParser limits nesting, but a long chain like 1+1+...+1 still builds a tree too
+                    // deep to simplify
+                    status = 400;
+                    body = "{\"error\": \"The equation is too long to compile\"}";
+                }
+                sendResponse(exchange, status, body);
+            } finally {
+                exchange.close();
+                latency.record(System.nanoTime() - startTime);
+            }
+        });
+    }
+
+    // solve an equation, using x if it has one
+    private String handleEval(Map<String, String> params) throws Exception {
+        String eqLine = requireParam(params, "expr");
+        CompiledEquation compiledEquation = mEquationCache.get(eqLine);
+        double xVal = 0;
+        if(compiledEquation.hasVariables()) {
+            // there is no value to use for x
+            if(!params.containsKey("x")) {
+                throw new Exception("Equation \"" + eqLine + "\" needs a value for x");
+            }
+            xVal = parseDouble(params, "x");
+        }
+        // round the same way as answers solved in the calculator window. Rounding would turn NaN into 0 and
+        // infinity into the largest long, those are written as null instead
+        double ans = compiledEquation.evaluate(xVal);
+        if(Double.isFinite(ans)) {
+            ans = GraphEquation.roundDouble(ans, 6);
+        }
+        return "{\"result\": " + jsonNumber(ans) + "}";
+    }
+
+    // solve an equation for every step of a range
+    private String handleSample(Map<String, String> params) throws Exception {
+        CompiledEquation compiledEquation = mEquationCache.get(requireParam(params, "expr"));
+        double start = parseDouble(params, "start");
+        double end = parseDouble(params, "end");
+        double step = parseDouble(params, "step");
+        if(!(step > 0) || !(end > start)) {
+            throw new Exception("The step must be greater than 0 and end must be greater than start");
+        }
+        if(GraphSampler.countPoints(start, end, step) > MAX_SAMPLE_POINTS) {
+            throw new Exception("The range is too large for the step size, at most " + MAX_SAMPLE_POINTS
+                                + " points can be sampled");
+        }
+        mSamplePermits.acquire();
+        try {
+            SampleBuffer samples = mSampler.sample(compiledEquation, start, end, step);
+
+            StringBuilder json = new StringBuilder(samples.getNumPoints() * 40 + 32);
+            json.append("{\"x\": ");
+            appendJsonArray(json, samples.getXVals(), samples.getNumPoints());
+            json.append(", \"y\": ");
+            appendJsonArray(json, samples.getYVals(), samples.getNumPoints());
+            return json.append('}').toString();
+        } finally {
+            mSamplePermits.release();
+        }
+    }
+
+    // latencies of each endpoint and how well the equation cache is working
+    private String buildStats() {
+        StringBuilder json = new StringBuilder("{\"latencyMicros\": {");
+        String separator = "";
+        for(Map.Entry<String, LatencyHistogram> entry : mLatencies.entrySet()) {
+            LatencyHistogram latency = entry.getValue();
+            json.append(separator).append(jsonString(entry.getKey())).append(": {")
+                .append("\"count\": ").append(latency.getCount())
+                .append(", \"mean\": ").append(jsonNumber(latency.getMeanMicros()))
+                .append(", \"p50\": ").append(latency.getPercentileMicros(0.5))
+                .append(", \"p90\": ").append(latency.getPercentileMicros(0.9))
+                .append(", \"p99\": ").append(latency.getPercentileMicros(0.99))
+                .append(", \"max\": ").append(jsonNumber(latency.getMaxMicros()))
+                .append('}');
+            separator = ", ";
+        }
+        json.append("}, \"equationCache\": {")
+            .append("\"size\": ").append(mEquationCache.size())
+            .append(", \"hits\": ").append(mEquationCache.getHits())
+            .append(", \"misses\": ").append(mEquationCache.getMisses())
+            .append("}}");
+        return json.toString();
+    }
+
+    // parameters from the query string, and from the body of a POST request
+    private static Map<String, String> readParams(HttpExchange exchange) throws IOException {
+        Map<String, String> params = new HashMap<>();
+        addParams(params, exchange.getRequestURI().getRawQuery());
+        if("POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+            addParams(params, readBody(exchange.getRequestBody()));
+        }
+        return params;
+    }
+
+    // add the name=value pairs of a url encoded string
+    private static void addParams(Map<String, String> params, String encoded) throws IOException {
+        if(encoded == null || encoded.isEmpty()) {
+            return;
+        }
+        for(String pair : encoded.split("&")) {
+            int equalsPos = pair.indexOf('=');
+            String name = (equalsPos == -1) ? pair : pair.substring(0, equalsPos);
+            String value = (equalsPos == -1) ? "" : pair.substring(equalsPos + 1);
+            params.put(URLDecoder.decode(name, "UTF-8"), URLDecoder.decode(value, "UTF-8"));
+        }
+    }
+
+    private static String readBody(InputStream body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int numRead;
+        while((numRead = body.read(buffer)) != -1) {
+            if(bytes.size() + numRead > MAX_BODY_BYTES) {
+                throw new IOException("The request body is larger than " + MAX_BODY_BYTES + " bytes");
+            }
+            bytes.write(buffer, 0, numRead);
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static String requireParam(Map<String, String> params, String name) throws Exception {
+        String value = params.get(name);
+        if(value == null || value.trim().isEmpty()) {
+            throw new Exception("Missing parameter \"" + name + "\"");
+        }
+        return value;
+    }
+
+    private static double parseDouble(Map<String, String> params, String name) throws Exception {
+        String value = requireParam(params, name);
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException exception) {
+            throw new Exception("Parameter \"" + name + "\" is not a number: \"" + value + "\"");
+        }
+    }
+
+    private static void sendResponse(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void appendJsonArray(StringBuilder json, double[] vals, int length) {
+        json.append('[');
+        for(int i = 0; i < length; i++) {
+            if(i > 0) {
+                json.append(',');
+            }
+            json.append(jsonNumber(vals[i]));
+        }
+        json.append(']');
+    }
+
+    // JSON has no NaN or infinity, points where the equation has no value are written as null
+    private static String jsonNumber(double val) {
+        return (Double.isNaN(val) || Double.isInfinite(val)) ? "null" : Double.toString(val);
+    }
+
+    private static String jsonString(String val) {
+        if(val == null) {
+            return "null";
+        }
+        StringBuilder json = new StringBuilder(val.length() + 2).append('"');
+        for(int i = 0; i < val.length(); i++) {
+            char c = val.charAt(i);
+            if(c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if(c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        return json.append('"').toString();
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = (args.length > 0) ? Integer.parseInt(args[0]) : 8080;
+        GraphCalcServer server = new GraphCalcServer(port);
+        server.start();
+        System.out.println("GraphCalc service listening on http://localhost:" + server.getPort());
+    }
+}
@@ -1,10 +1,13 @@
 /*
  * GraphDisplayer.java
- * draws rectangles to represent points on a graph. Solves the equation for each x value to determine
- * the x and y coordinates for each point. Draws axis as a reference for the graph
+ * draws curves on a graph. Solves the equations for each x value to determine
+ * the x and y coordinates for each point, and joins the points into lines. Draws axis as a reference for the graph.
+ * Several equations can share one window, each drawn in its own color. The Analyze menu finds roots, extremums
+ * and intersections, marks them on the graph and adds them to the calculator history
  */
 package com.ryan.graphcalc;
 
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.scene.Group;
 import javafx.scene.Scene;
@@ -16,23 +19,33 @@ import javafx.scene.layout.*;
 import javafx.scene.layout.StackPane;
 import javafx.scene.paint.Color;
 import javafx.scene.paint.Paint;
+import javafx.scene.shape.Circle;
 import javafx.scene.shape.Line;
-import javafx.scene.shape.Rectangle;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 import javafx.scene.text.Text;
 import javafx.stage.Stage;
 import javafx.scene.control.*;
 import javafx.geometry.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
 
 /**
  * Created by ryanj on 8/6/2017.
  * plot a graph for an equation that follows the format y = f(x)
  */
 public class GraphDisplayer {
-  // the maximum number of points that can be plotted
-  private static int MAX_GRAPH_STEPS = (int) Math.pow(10, 4) * 40;
+  // the maximum number of points that can be solved for, only about four per pixel column get drawn
+  private static int MAX_GRAPH_STEPS = (int) Math.pow(10, 6) * 4;
 
   // the Stage to use as the top level container
   private Stage mWindow;
@@ -43,11 +56,25 @@ public class GraphDisplayer {
   // screen coordinates of graph
   private static final double graphWidth = 600.0;
 
-  // Calculator used to solve for x
-  private Calculator calc = new Calculator();
+  // parses the equation, stateless so it is shared by all graph windows
+  private static final EquationEngine engine = new EquationEngine();
 
-  // Calculator used to solve trig functions
-  private TrigonometryCalculator trigCalculator = new TrigonometryCalculator();
+  // solves the equation for each x value, shared by all graph windows
+  private static final GraphSampler sampler = new GraphSampler();
+
+  // most memory the cached graphs of all windows may use
+  private static final long SAMPLE_CACHE_BYTES =
+          Long.getLong("graphcalc.sampleCacheMB", 64) * 1024 * 1024;
+
+  // recently sampled graphs, shared by all graph windows
+  private static final SampleCache sampleCache = new SampleCache(SAMPLE_CACHE_BYTES);
+
+  // runs the plot jobs of all graph windows, daemon threads so an unfinished plot never keeps the app open
+  private static final ExecutorService plotExecutor = Executors.newCachedThreadPool(runnable -> {
+    Thread plotThread = new Thread(runnable, "graph-plotter");
+    plotThread.setDaemon(true);
+    return plotThread;
+  });
 
   // factor to multiply actual values to get their pixel values
   private double mScaleFactor;
@@ -61,8 +88,27 @@ public class GraphDisplayer {
   // value to increment x for each point
   private double mStepSize;
 
-  // color to paint each point
-  private Paint plotColor;
+  // colors given to the equations in the order they are added
+  private static final Color[] seriesColors = {
+          Color.DARKCYAN, Color.CRIMSON, Color.DARKORANGE, Color.SEAGREEN, Color.MEDIUMPURPLE, Color.SADDLEBROWN
+  };
+
+  // equations plotted in the window, in the order they were added
+  private final List<PlotSeries> mSeries = new ArrayList<>();
+
+  // color to paint the points of each equation
+  private final Map<PlotSeries, Paint> mSeriesColors = new HashMap<>();
+
+  // newest frame of each equation, kept until the range or step changes so adding or removing an
+  // equation does not sample the others again
+  private final Map<PlotSeries, PlotFrame> mSeriesFrames = new HashMap<>();
+
+  // equation and order of each plotted derivative, so it can be differentiated again when recompiled.
+  // Derivatives of derivatives point at the first equation with the orders added up
+  private final Map<PlotSeries, DerivativeSource> mDerivativeSources = new HashMap<>();
+
+  // number of equations added so far, picks the color of the next one
+  private int mNumSeriesAdded;
 
   // root node for window
   private StackPane mStackPane;
@@ -70,8 +116,11 @@ public class GraphDisplayer {
   // group node for graph lines
   private Group plotArea;
 
-  // equation to solve for
-  private String mSolveEquation;
+  // group node inside plotArea for the graph curves, redrawn for each frame of a plot
+  private Group mCurveGroup;
+
+  // summary of the points that had no answer, at the bottom left of the window
+  private Text mErrorSummaryTxt;
 
   public static Double settingsReturnVal;
 
@@ -90,6 +139,82 @@ public class GraphDisplayer {
   // graph line width
   private double mGraphLineWidth;
 
+  // ways the graph curves can be drawn, shown in the settings menu
+  private static final PlotRenderer[] plotRenderers = { new CanvasPlotRenderer(), new NodePlotRenderer() };
+
+  // draws the graph curves into the plot area
+  private PlotRenderer mPlotRenderer = plotRenderers[0];
+
+  // sample more points where the curve bends instead of using mStepSize everywhere
+  private boolean mAdaptiveSampling = true;
+
+  // with adaptive sampling, find where the curve bends from its second derivative
+  private boolean mCurvatureSampling;
+
+  // solve trig functions with FastTrig, only as precise as the plot can show
+  private boolean mFastTrig;
+
+  // menu item showing how many points the last plot solved for
+  private MenuItem mSamplesMenuItem;
+
+  // plot still being sampled in the background, cancelled when the settings change
+  private PlotJob mPlotJob;
+
+  // id of the newest plot, frames from older plots are dropped
+  private int mPlotId;
+
+  // newest frames waiting to be drawn, frames that arrive before they are drawn replace them
+  private final AtomicReference<List<PlotFrame>> mPendingFrames = new AtomicReference<>();
+
+  // menu item showing how often sampled graphs came from the cache
+  private MenuItem mCacheMenuItem;
+
+  // maps values to screen coordinates for the current plot
+  private PlotViewport mViewport;
+
+  // group node inside plotArea for the points found by the Analyze menu, drawn above the axes
+  private Group mFeatureGroup;
+
+  // points found by the Analyze menu, kept until they are cleared or an equation they belong to is removed
+  private final List<FeatureMark> mFeatureMarks = new ArrayList<>();
+
+  // receives a description and the answer of each point found by the Analyze menu
+  private BiConsumer<String, Double> mAnalysisListener;
+
+  // most points of one search added to the calculator history, so a search with many results does not
+  // push everything else out of it. They are all still marked on the graph
+  private static final int MAX_HISTORY_FEATURES = 5;
+
+  // radius of the circle marking a point found by the Analyze menu
+  private static final double FEATURE_MARK_RADIUS = 4;
+
+  // a point found by the Analyze menu, with the search that found it and the equations it belongs to
+  private static class FeatureMark {
+    private final EquationAnalyzer.Feature feature;
+    private final String search;
+    private final List<String> equationLines;
+    private final Paint paint;
+
+    FeatureMark(EquationAnalyzer.Feature feature, String search, List<String> equationLines, Paint paint) {
+      this.feature = feature;
+      this.search = search;
+      this.equationLines = equationLines;
+      this.paint = paint;
+    }
+  }
+
+  // equation a plotted derivative was found from as it was typed, and whether it is the first or second
+  // derivative of it
+  private static class DerivativeSource {
+    private final String equationLine;
+    private final int order;
+
+    DerivativeSource(String equationLine, int order) {
+      this.equationLine = equationLine;
+      this.order = order;
+    }
+  }
+
   // constructor for GraphDisplayer
   public GraphDisplayer() {
     // defaults for parameters of graph
@@ -110,19 +235,113 @@ public class GraphDisplayer {
     // determine scale factor by ratio of minimum / maximum values for x
     mScaleFactor = (((mEndRangeX - mStartRangeX) != 0.0) ? 600 / (mEndRangeX - mStartRangeX) : 1);
 
-    // how much width for the graph line (dimensions of each point)
+    // how much width for the graph line
     mGraphLineWidth = 2;
-    // color to paint graph line with
-    plotColor = Color.DARKCYAN;
   }
 
-  // add a new graph to be plotted
+  // add a new graph to be plotted, next to the ones already in the window
   public void addNewGraphAndOpen(String inputEquation) {
-    // equation used to solve for x
-    mSolveEquation = inputEquation;
-    // create a new Stage object for the window
-    mWindow = new Stage();
+    // parse the equation once, each point only has to solve the tree
+    PlotSeries series;
+    try {
+      series = new PlotSeries(inputEquation, engine.compile(inputEquation, mFastTrig), sampler);
+    } catch (Exception exception) {
+      showGraphSettingsAlertMsg("Error: " + exception.getMessage());
+      return;
+    }
+    mSeries.add(series);
+    mSeriesColors.put(series, seriesColors[mNumSeriesAdded++ % seriesColors.length]);
+
+    if(mWindow == null) {
+      // create a new Stage object for the window
+      mWindow = new Stage();
+      // nothing left to draw the plot into once the window is closed
+      mWindow.setOnHidden(e -> cancelPlot());
+    }
+    // only the new equation gets sampled, the others keep their frames
+    plotGraph();
+  }
+
+  // set what receives the points found by the Analyze menu, so they can be added to the calculator history
+  public void setOnAnalysisResult(BiConsumer<String, Double> analysisListener) {
+    mAnalysisListener = analysisListener;
+  }
+
+  // detect if the window is still open, so more equations can be added to it
+  public boolean isOpen() {
+    return mWindow != null && mWindow.isShowing();
+  }
+
+  // stop plotting an equation, the others are drawn again without being sampled
+  private void removeSeries(PlotSeries series) {
+    mSeries.remove(series);
+    mSeriesColors.remove(series);
+    mSeriesFrames.remove(series);
+    mDerivativeSources.remove(series);
+    mFeatureMarks.removeIf(mark -> mark.equationLines.contains(series.getEquationLine()));
+    plotGraph();
+  }
+
+  // compile every equation again for the trig precision that was picked, keeping their colors
+  private void setFastTrig(boolean fastTrig) {
+    mFastTrig = fastTrig;
+    for (int i = 0; i < mSeries.size(); i++) {
+      PlotSeries oldSeries = mSeries.get(i);
+      String equationLine = oldSeries.getEquationLine();
+      DerivativeSource derivativeSource = mDerivativeSources.get(oldSeries);
+      PlotSeries series;
+      try {
+        CompiledEquation compiledEquation = (derivativeSource == null) ? engine.compile(equationLine, fastTrig)
+                : engine.compile(derivativeSource.equationLine, fastTrig)
+                        .differentiate(equationLine, derivativeSource.order);
+        series = new PlotSeries(equationLine, compiledEquation, sampler);
+      } catch (Exception exception) {
+        // each equation already compiled once, so this only happens if the parser itself is broken. The
+        // equation keeps its old precision and the others are still recompiled
+        showGraphSettingsAlertMsg("Error: " + exception.getMessage());
+        continue;
+      }
+      if(derivativeSource != null) {
+        mDerivativeSources.put(series, mDerivativeSources.remove(oldSeries));
+      }
+      mSeries.set(i, series);
+      mSeriesColors.put(series, mSeriesColors.remove(oldSeries));
+    }
+    replotAllSeries();
+  }
+
+  // plot the first (order 1) or second (order 2) derivative of an equation as an equation of its own.
+  // The derivative of a derivative is found from the equation that was typed, with the orders added up
+  private void addDerivative(PlotSeries sourceSeries, int order) {
+    DerivativeSource sourceDerivative = mDerivativeSources.get(sourceSeries);
+    String sourceLine = (sourceDerivative == null) ? sourceSeries.getEquationLine() : sourceDerivative.equationLine;
+    int totalOrder = order + getDerivativeOrder(sourceSeries);
+    String expression = sourceLine.substring(sourceLine.indexOf('=') + 1).trim();
+    String equationLine = ((totalOrder == 1) ? "y' = d/dx(" : "y'' = d2/dx2(") + expression + ")";
+    PlotSeries series;
+    try {
+      series = new PlotSeries(equationLine,
+              engine.compile(sourceLine, mFastTrig).differentiate(equationLine, totalOrder), sampler);
+    } catch (Exception exception) {
+      // the menus only offer orders up to 2, and the equation already compiled once
+      showGraphSettingsAlertMsg("Error: " + exception.getMessage());
+      return;
+    }
+    mSeries.add(series);
+    mSeriesColors.put(series, seriesColors[mNumSeriesAdded++ % seriesColors.length]);
+    mDerivativeSources.put(series, new DerivativeSource(sourceLine, totalOrder));
+    plotGraph();
+  }
+
+  // 0 for an equation that was typed, otherwise which derivative of its equation the series is
+  private int getDerivativeOrder(PlotSeries series) {
+    DerivativeSource derivativeSource = mDerivativeSources.get(series);
+    return (derivativeSource == null) ? 0 : derivativeSource.order;
+  }
 
+  // the range, step or way of sampling changed, so every equation has to be sampled again
+  private void replotAllSeries() {
+    mSeriesFrames.clear();
     plotGraph();
   }
 
@@ -135,17 +354,25 @@ public class GraphDisplayer {
 
     plotArea = new Group();
 
+    // the graph curves go below the axes
+    mCurveGroup = new Group();
+    plotArea.getChildren().add(mCurveGroup);
+
     // use the StackPane as the parent of the group
     mStackPane.getChildren().add(plotArea);
 
     // add static text to display what the equation is
     displayEquationLabel();
 
+    // text listing the points that could not be solved, filled in as frames are drawn
+    displayErrorSummary();
+
     // menu bar with options for graph
     MenuBar mMainMenuBar = new MenuBar();
 
-    // add range menus to alter graph settings, window menu to close window
-    mMainMenuBar.getMenus().addAll(buildSettingsMenu(), buildWindowMenu());
+    // add range menus to alter graph settings, equations menu to add or remove equations, analyze menu
+    // to find points on the graphs, window menu to close window
+    mMainMenuBar.getMenus().addAll(buildSettingsMenu(), buildSeriesMenu(), buildAnalyzeMenu(), buildWindowMenu());
 
     BorderPane layout = new BorderPane();
     // menu bar goes at top
@@ -163,11 +390,15 @@ public class GraphDisplayer {
     mScreenWidth = mScene.getWidth() - mLeftMargin * 2;
     mScreenHeight = mScene.getHeight() - mTopMargin * 2;
 
-    // determine scale factor to map actual values to screen values
-    mScaleFactor = (((mEndRangeX - mStartRangeX) != 0.0) ? mScreenWidth / (mEndRangeX - mStartRangeX) : 1);
+    // maps values to screen coordinates for this plot
+    mViewport = new PlotViewport(mStartRangeX, mEndRangeX, mScreenWidth, mScreenHeight, mLeftMargin);
+    mScaleFactor = mViewport.getScaleFactor();
+
+    // sample the graph points in the background, they are drawn as each pass finishes
+    startPlotJob(mViewport);
 
-    // draw the graph points
-    drawAllPoints();
+    // equations that were already sampled are drawn right away
+    drawSeriesFrames();
 
     // draw x-axis and labels
     drawXAxis();
@@ -175,12 +406,17 @@ public class GraphDisplayer {
     // draw Y-axis and labels
     drawYAxis();
 
+    // mark the points found by the Analyze menu above the axes
+    mFeatureGroup = new Group();
+    plotArea.getChildren().add(mFeatureGroup);
+    drawFeatureMarks();
+
     // close button to close the window
     addCloseButton();
 
     // show the stage if this is the first time calling plotGraph
     if(!mWindow.isShowing()) {
-      mWindow.showAndWait();
+      mWindow.show();
     }
   }
 
@@ -212,67 +448,207 @@ public class GraphDisplayer {
     return settingsReturnVal;
   }
 
-  // draw a point on the graph as a rectangle
-  private void drawGraphPoint(double xVal, double yVal) {
-    // account for coordinate system (starts at top left for origin)
-    double xScreenVal = mScreenWidth / 2 + mLeftMargin;
-    double yScreenVal = mScreenHeight / 2 + 1;
+  // start sampling the equations that have no finished frame in the background, replacing any plot
+  // still in flight. They are sampled together over the same x values
+  private void startPlotJob(PlotViewport viewport) {
+    cancelPlot();
+    List<PlotSeries> unfinishedSeries = new ArrayList<>();
+    for (PlotSeries series : mSeries) {
+      PlotFrame frame = mSeriesFrames.get(series);
+      if(frame == null || !frame.isFinalFrame()) {
+        unfinishedSeries.add(series);
+      }
+    }
+    if(unfinishedSeries.isEmpty()) {
+      return;
+    }
+    int plotId = ++mPlotId;
+    mPlotJob = new PlotJob(plotId, unfinishedSeries, sampleCache, viewport,
+                           mStepSize, mAdaptiveSampling, mCurvatureSampling, mGraphLineWidth, this::publishFrames);
+    plotExecutor.execute(mPlotJob);
+  }
 
-    // multiply actual values by scaling factor
-    xScreenVal += mScaleFactor * xVal;
-    yScreenVal -= mScaleFactor * yVal;
+  // stop the plot still being sampled, its frames are no longer drawn
+  private void cancelPlot() {
+    if(mPlotJob != null) {
+      mPlotJob.cancel();
+      mPlotJob = null;
+    }
+    mPlotId++;
+  }
 
-    // if out of range
-    if(xScreenVal < 0 || xScreenVal >= mScreenWidth
-       || yScreenVal < 0 || yScreenVal >= mScreenHeight) {
-      return;
+  // called from the plot thread, only schedules a redraw if the last one was already drawn so the
+  // JavaFX Application Thread is never flooded with frames it would draw over right away
+  private void publishFrames(List<PlotFrame> frames) {
+    if(mPendingFrames.getAndSet(frames) == null) {
+      Platform.runLater(this::drawPendingFrames);
     }
-    //create a point at the coordinates
-    Rectangle point = new Rectangle(xScreenVal, yScreenVal, mGraphLineWidth, mGraphLineWidth);
-    point.setFill(plotColor);
-    point.setStroke(plotColor);
-    point.setStrokeWidth(1);
+  }
 
-    // add to the group node
-    plotArea.getChildren().add(point);
+  // keep the newest frames of the plot and draw them with the other equations
+  private void drawPendingFrames() {
+    List<PlotFrame> frames = mPendingFrames.getAndSet(null);
+    if(frames == null || frames.isEmpty() || frames.get(0).getPlotId() != mPlotId) {
+      return;
+    }
+    for (PlotFrame frame : frames) {
+      // the equation may have been removed while it was sampled
+      if(mSeriesColors.containsKey(frame.getSeries())) {
+        mSeriesFrames.put(frame.getSeries(), frame);
+      }
+    }
+    drawSeriesFrames();
   }
 
-  // draw all graph points to create a line / curve
-  public void drawAllPoints() {
-    for (double xVal = mStartRangeX; xVal < mEndRangeX; xVal += mStepSize) {
-      // use try - catch to catch problems evaluating equation for a certain x value
-      try {
-        // call the function that includes a second parameter so that each x can be replaced with xVal
-        String processedEquation = trigCalculator.processTrigFunctions(mSolveEquation, xVal);
-        double yVal = calc.processLine(processedEquation, xVal);
-        // draw each point to mimic a line or curve
-        drawGraphPoint(xVal, yVal);
-      } catch (Exception exception) {
-        System.err.println("Error printing point");
+  // draw the newest frame of every equation to create lines / curves
+  private void drawSeriesFrames() {
+    mCurveGroup.getChildren().clear();
+    int numSamples = 0;
+    int numSolved = 0;
+    int numCulled = 0;
+    boolean finished = true;
+    StringBuilder errorSummary = new StringBuilder();
+    for (PlotSeries series : mSeries) {
+      PlotFrame frame = mSeriesFrames.get(series);
+      if(frame == null) {
+        finished = false;
+        continue;
+      }
+      // join the points of each segment into a line, the curve breaks between segments
+      mPlotRenderer.drawCurve(mCurveGroup, frame.getXScreenVals(), frame.getYScreenVals(), frame.getSegmentEnds(),
+                              frame.getNumSegments(), mSeriesColors.get(series), mGraphLineWidth,
+                              mScreenWidth, mScreenHeight);
+      numSamples += frame.getNumSamples();
+      // only the equations of the newest plot were solved for it
+      if(frame.getPlotId() == mPlotId) {
+        numSolved += frame.getNumSolved();
+        numCulled += frame.getNumCulled();
+      }
+      finished &= frame.isFinalFrame();
+      // points with no answer were counted while sampling, one line per equation that had any
+      if(frame.getNumErrors() > 0) {
+        if(errorSummary.length() > 0) {
+          errorSummary.append('\n');
+        }
+        errorSummary.append(String.format("%s: no answer at %,d point%s, first at x = %s",
+                getEquationName(series), frame.getNumErrors(), (frame.getNumErrors() == 1) ? "" : "s",
+                GraphEquation.roundDouble(frame.getFirstErrorX(), 6)));
       }
     }
+    mErrorSummaryTxt.setText(errorSummary.toString());
+
+    if(finished) {
+      mSamplesMenuItem.setText(String.format("Samples used: %,d (%,d newly solved, %,d skipped off screen or flat)",
+              numSamples, numSolved, numCulled));
+      mCacheMenuItem.setText(String.format("Cache: %,d hits, %,d misses, %,d evicted",
+              sampleCache.getHits(), sampleCache.getMisses(), sampleCache.getEvictions()));
+    } else {
+      mSamplesMenuItem.setText(String.format("Sampling... %,d points so far", numSamples));
+    }
   }
 
-  // display equation at top left of screen
+  // display the equations at top left of screen, one per line
   public void displayEquationLabel() {
-    // make sure equation name includes left hand side
-    String equationName = ((mSolveEquation.indexOf('=') == -1) ? "y = " + mSolveEquation : mSolveEquation);
+    // VBox to make them appear at top left
+    VBox vEquationInfoBox = new VBox();
+    vEquationInfoBox.setPadding(new Insets(10.0, 10.0, 10.0, 10.0));
+    vEquationInfoBox.setAlignment(Pos.TOP_LEFT);
+    vEquationInfoBox.setMouseTransparent(true);
+    for (PlotSeries series : mSeries) {
+      // initialize text node with equation string
+      Text equationFunctionTxt = new Text(getEquationName(series));
+
+      // use bold text to make it clearly visible
+      equationFunctionTxt.setFont(Font.font("verdana", FontWeight.BOLD, 15));
+
+      // color is same as the graph curve
+      equationFunctionTxt.setFill(mSeriesColors.get(series));
+      vEquationInfoBox.getChildren().add(equationFunctionTxt);
+    }
+    mStackPane.getChildren().add(vEquationInfoBox);
+  }
 
-    // initialize text node with equation string
-    Text equationFunctionTxt = new Text(equationName);
+  // display the summary of points with no answer at bottom left of screen, empty until a frame has some
+  private void displayErrorSummary() {
+    mErrorSummaryTxt = new Text();
+    mErrorSummaryTxt.setFont(Font.font("verdana", 12));
+    mErrorSummaryTxt.setFill(Color.FIREBRICK);
+
+    // HBox to make it appear at bottom left, below the close button so it never blocks it
+    HBox hErrorSummaryBox = new HBox();
+    hErrorSummaryBox.setPadding(new Insets(10.0, 10.0, 10.0, 10.0));
+    hErrorSummaryBox.setAlignment(Pos.BOTTOM_LEFT);
+    hErrorSummaryBox.setMouseTransparent(true);
+    hErrorSummaryBox.getChildren().add(mErrorSummaryTxt);
+    mStackPane.getChildren().add(hErrorSummaryBox);
+  }
 
-    // use bold text to make it clearly visible
-    equationFunctionTxt.setFont(Font.font("verdana", FontWeight.BOLD, 15));
+  // draw a circle with its coordinates at each point found by the Analyze menu
+  private void drawFeatureMarks() {
+    mFeatureGroup.getChildren().clear();
+    for (FeatureMark mark : mFeatureMarks) {
+      EquationAnalyzer.Feature feature = mark.feature;
+      double xScreenVal = mViewport.toScreenX(feature.getXVal());
+      double yScreenVal = mViewport.toScreenY(feature.getYVal());
+      // points found before the range changed may be off screen now
+      if(feature.getXVal() < mStartRangeX || feature.getXVal() > mEndRangeX
+              || yScreenVal < 0 || yScreenVal > mScreenHeight) {
+        continue;
+      }
+      Circle marker = new Circle(xScreenVal, yScreenVal, FEATURE_MARK_RADIUS, Color.WHITE);
+      marker.setStroke(mark.paint);
+      marker.setStrokeWidth(2);
+      Text markerTxt = new Text(xScreenVal + FEATURE_MARK_RADIUS + 2, yScreenVal - FEATURE_MARK_RADIUS - 2,
+              "(" + GraphEquation.roundDouble(feature.getXVal(), 3) + ", "
+                      + GraphEquation.roundDouble(feature.getYVal(), 3) + ")");
+      markerTxt.setFont(Font.font("verdana", 11));
+      mFeatureGroup.getChildren().addAll(marker, markerTxt);
+    }
+  }
 
-    // color is same as the graph points
-    equationFunctionTxt.setFill(plotColor);
+  // mark the points one search found, replacing what the same search found before, and add the first
+  // few to the calculator history
+  private void reportFeatures(String search, List<EquationAnalyzer.Feature> features, List<String> equationLines,
+                              Paint paint, String otherEquation) {
+    mFeatureMarks.removeIf(mark -> mark.search.equals(search));
+    if(features.isEmpty()) {
+      Alert alert = new Alert(Alert.AlertType.INFORMATION);
+      alert.setHeaderText("Nothing was found");
+      alert.setContentText(String.format("No %s between x = %s and x = %s", search, mStartRangeX, mEndRangeX));
+      alert.setTitle("Analyze");
+      alert.showAndWait();
+    }
+    String equation = equationLines.get(0);
+    equation = equation.substring(equation.indexOf('=') + 1).trim();
+    for (int i = 0; i < features.size(); i++) {
+      EquationAnalyzer.Feature feature = features.get(i);
+      mFeatureMarks.add(new FeatureMark(feature, search, equationLines, paint));
+      if(mAnalysisListener == null || i >= MAX_HISTORY_FEATURES) {
+        continue;
+      }
+      // roots and intersections are answered with x, extremums with y at the x value in the description
+      switch (feature.getType()) {
+        case ROOT:
+          mAnalysisListener.accept(equation + " = 0 at x", feature.getXVal());
+          break;
+        case MINIMUM:
+        case MAXIMUM:
+          mAnalysisListener.accept(String.format("%s of %s at x = %s",
+                  (feature.getType() == EquationAnalyzer.FeatureType.MINIMUM) ? "min" : "max", equation,
+                  GraphEquation.roundDouble(feature.getXVal(), 6)), feature.getYVal());
+          break;
+        case INTERSECTION:
+          mAnalysisListener.accept(equation + " = " + otherEquation + " at x", feature.getXVal());
+          break;
+      }
+    }
+    drawFeatureMarks();
+  }
 
-    // HBox to make it appear at top left
-    HBox hEquationInfoBox = new HBox();
-    hEquationInfoBox.setPadding(new Insets(10.0, 10.0, 10.0, 10.0));
-    hEquationInfoBox.setAlignment(Pos.TOP_LEFT);
-    hEquationInfoBox.getChildren().add(equationFunctionTxt);
-    mStackPane.getChildren().add(hEquationInfoBox);
+  // equation as it is shown, making sure it includes the left hand side
+  private static String getEquationName(PlotSeries series) {
+    String equationLine = series.getEquationLine();
+    return ((equationLine.indexOf('=') == -1) ? "y = " + equationLine : equationLine);
   }
 
   // draw x-axis by using a Line shape
@@ -407,12 +783,69 @@ public class GraphDisplayer {
     MenuItem stepMenuItem = new MenuItem("Enter _Step Size");
     stepMenuItem.setMnemonicParsing(true);
 
+    CheckMenuItem adaptiveMenuItem = new CheckMenuItem("_Adaptive Sampling");
+    adaptiveMenuItem.setMnemonicParsing(true);
+    adaptiveMenuItem.setSelected(mAdaptiveSampling);
+    // fewer points solved, but each coarse point costs more to differentiate
+    CheckMenuItem curvatureMenuItem = new CheckMenuItem("_Curvature Sampling (derivatives)");
+    curvatureMenuItem.setMnemonicParsing(true);
+    curvatureMenuItem.setSelected(mCurvatureSampling);
+    curvatureMenuItem.setDisable(!mAdaptiveSampling);
+    // trade trig precision the plot can not show for speed, the calculator always uses full precision
+    CheckMenuItem fastTrigMenuItem = new CheckMenuItem(String.format("_Plot Precision Trig (error < %.0e)",
+            FastTrig.MAX_ABS_ERROR));
+    fastTrigMenuItem.setMnemonicParsing(true);
+    fastTrigMenuItem.setSelected(mFastTrig);
+    // shows how many points were solved for, filled in once the graph is sampled
+    mSamplesMenuItem = new MenuItem();
+    mSamplesMenuItem.setDisable(true);
+    mCacheMenuItem = new MenuItem();
+    mCacheMenuItem.setDisable(true);
+    // size of the trees that solve the equations after constant parts were solved ahead of time, and
+    // how many distinct nodes are left once the parts they repeat are shared
+    int numNodes = 0;
+    int numNodesRemoved = 0;
+    List<EquationNode> roots = new ArrayList<>();
+    for (PlotSeries series : mSeries) {
+      numNodes += series.getCompiledEquation().getNumNodes();
+      numNodesRemoved += series.getCompiledEquation().getNumNodesRemoved();
+      roots.add(series.getCompiledEquation().getRoot());
+    }
+    MenuItem nodesMenuItem = new MenuItem(String.format(
+            "Equations: %,d nodes (%,d removed by simplifying), %,d distinct",
+            numNodes, numNodesRemoved, new EquationDag(roots).getNumNodes()));
+    nodesMenuItem.setDisable(true);
+
     // add the MenuItem options
     settingsMenu.getItems().addAll(
             rangeMenuItem,
-            stepMenuItem
+            stepMenuItem,
+            buildRendererMenu(),
+            adaptiveMenuItem,
+            curvatureMenuItem,
+            fastTrigMenuItem,
+            new SeparatorMenuItem(),
+            mSamplesMenuItem,
+            mCacheMenuItem,
+            nodesMenuItem
     );
 
+    // switch between adaptive sampling and solving every step
+    adaptiveMenuItem.setOnAction(e -> {
+      mAdaptiveSampling = adaptiveMenuItem.isSelected();
+      curvatureMenuItem.setDisable(!mAdaptiveSampling);
+      replotAllSeries();
+    });
+
+    // switch between splitting by the second derivative and by middle points
+    curvatureMenuItem.setOnAction(e -> {
+      mCurvatureSampling = curvatureMenuItem.isSelected();
+      replotAllSeries();
+    });
+
+    // switch between FastTrig and the Math trig functions
+    fastTrigMenuItem.setOnAction(e -> setFastTrig(fastTrigMenuItem.isSelected()));
+
     // set action handler for clicking to change range
     rangeMenuItem.setOnAction(e -> {
       mStartRangeX = askRangePrompt("Enter minimum for x: ", "Range for x values");
@@ -430,8 +863,8 @@ public class GraphDisplayer {
         showGraphSettingsAlertMsg("Error: The range is too large. Try setting a smaller step size first.");
         return;
       }
-      // call plotGraph again to show the graph with the changes
-      plotGraph();
+      // plot the graph again to show the changes
+      replotAllSeries();
     });
 
     // action handler for changing delta x (distance between points
@@ -445,18 +878,145 @@ public class GraphDisplayer {
         showGraphSettingsAlertMsg("Error: The step size is too small. Try setting a larger step size.");
         return;
       }
-      plotGraph();
+      replotAllSeries();
     });
     return settingsMenu;
   }
 
+  // build a sub menu to pick how the graph curves are drawn
+  private Menu buildRendererMenu() {
+    Menu rendererMenu = new Menu("Re_nderer");
+    rendererMenu.setMnemonicParsing(true);
+    ToggleGroup rendererGroup = new ToggleGroup();
+    for (PlotRenderer plotRenderer : plotRenderers) {
+      RadioMenuItem rendererMenuItem = new RadioMenuItem(plotRenderer.getName());
+      rendererMenuItem.setToggleGroup(rendererGroup);
+      rendererMenuItem.setSelected(plotRenderer == mPlotRenderer);
+      // redraw the graph with the renderer that was picked, the points stay the same
+      rendererMenuItem.setOnAction(e -> {
+        mPlotRenderer = plotRenderer;
+        plotGraph();
+      });
+      rendererMenu.getItems().add(rendererMenuItem);
+    }
+    return rendererMenu;
+  }
+
+  // build a menu to add more equations to the graph or remove them
+  private Menu buildSeriesMenu() {
+    Menu seriesMenu = new Menu("_Equations");
+    seriesMenu.setMnemonicParsing(true);
+    MenuItem addMenuItem = new MenuItem("_Add Equation");
+    addMenuItem.setMnemonicParsing(true);
+    Menu removeMenu = new Menu("_Remove");
+    removeMenu.setMnemonicParsing(true);
+    Menu derivativeMenu = new Menu("Plot _Derivative");
+    derivativeMenu.setMnemonicParsing(true);
+    Menu secondDerivativeMenu = new Menu("Plot _Second Derivative");
+    secondDerivativeMenu.setMnemonicParsing(true);
+    for (PlotSeries series : mSeries) {
+      // only the first and second derivatives of the typed equation can be found
+      int derivativeOrder = getDerivativeOrder(series);
+      if(derivativeOrder + 1 <= 2) {
+        MenuItem derivativeMenuItem = new MenuItem(getEquationName(series));
+        derivativeMenuItem.setMnemonicParsing(false);
+        derivativeMenuItem.setOnAction(e -> addDerivative(series, 1));
+        derivativeMenu.getItems().add(derivativeMenuItem);
+      }
+
+      if(derivativeOrder + 2 <= 2) {
+        MenuItem secondDerivativeMenuItem = new MenuItem(getEquationName(series));
+        secondDerivativeMenuItem.setMnemonicParsing(false);
+        secondDerivativeMenuItem.setOnAction(e -> addDerivative(series, 2));
+        secondDerivativeMenu.getItems().add(secondDerivativeMenuItem);
+      }
+
+      MenuItem removeMenuItem = new MenuItem(getEquationName(series));
+      removeMenuItem.setMnemonicParsing(false);
+      // the window always keeps at least one equation
+      removeMenuItem.setDisable(mSeries.size() == 1);
+      removeMenuItem.setOnAction(e -> removeSeries(series));
+      removeMenu.getItems().add(removeMenuItem);
+    }
+    derivativeMenu.setDisable(derivativeMenu.getItems().isEmpty());
+    secondDerivativeMenu.setDisable(secondDerivativeMenu.getItems().isEmpty());
+    seriesMenu.getItems().addAll(addMenuItem, removeMenu, derivativeMenu, secondDerivativeMenu);
+
+    // ask for another equation to plot in this window
+    addMenuItem.setOnAction(e -> {
+      TextInputDialog askFunctionDialog = new TextInputDialog();
+      askFunctionDialog.setTitle("Function for Graph");
+      askFunctionDialog.setHeaderText("Enter using the form y = f(x)");
+      askFunctionDialog.setContentText("y = ");
+      askFunctionDialog.showAndWait().ifPresent(this::addNewGraphAndOpen);
+    });
+    return seriesMenu;
+  }
+
+  // build a menu to find roots, extremums and intersections of the equations across the range
+  private Menu buildAnalyzeMenu() {
+    Menu analyzeMenu = new Menu("_Analyze");
+    analyzeMenu.setMnemonicParsing(true);
+    Menu rootsMenu = new Menu("Find _Roots");
+    rootsMenu.setMnemonicParsing(true);
+    Menu extremaMenu = new Menu("Find _Extremums");
+    extremaMenu.setMnemonicParsing(true);
+    Menu intersectionsMenu = new Menu("Find _Intersections");
+    intersectionsMenu.setMnemonicParsing(true);
+    MenuItem clearMenuItem = new MenuItem("_Clear Marks");
+    clearMenuItem.setMnemonicParsing(true);
+    clearMenuItem.setDisable(mFeatureMarks.isEmpty());
+
+    for (int i = 0; i < mSeries.size(); i++) {
+      PlotSeries series = mSeries.get(i);
+      Paint paint = mSeriesColors.get(series);
+      List<String> equationLines = Collections.singletonList(series.getEquationLine());
+      MenuItem rootsMenuItem = new MenuItem(getEquationName(series));
+      rootsMenuItem.setMnemonicParsing(false);
+      rootsMenuItem.setOnAction(e -> reportFeatures("roots of " + getEquationName(series),
+              new EquationAnalyzer(mStartRangeX, mEndRangeX).findRoots(series.getCompiledEquation()),
+              equationLines, paint, null));
+      rootsMenu.getItems().add(rootsMenuItem);
+
+      MenuItem extremaMenuItem = new MenuItem(getEquationName(series));
+      extremaMenuItem.setMnemonicParsing(false);
+      extremaMenuItem.setOnAction(e -> reportFeatures("extremums of " + getEquationName(series),
+              new EquationAnalyzer(mStartRangeX, mEndRangeX).findExtrema(series.getCompiledEquation()),
+              equationLines, paint, null));
+      extremaMenu.getItems().add(extremaMenuItem);
+
+      // every pair of equations, marked in the color of the first
+      for (PlotSeries otherSeries : mSeries.subList(i + 1, mSeries.size())) {
+        String otherEquation = otherSeries.getEquationLine();
+        MenuItem intersectionsMenuItem = new MenuItem(getEquationName(series) + "  and  "
+                + getEquationName(otherSeries));
+        intersectionsMenuItem.setMnemonicParsing(false);
+        intersectionsMenuItem.setOnAction(e -> reportFeatures(
+                "intersections of " + getEquationName(series) + " and " + getEquationName(otherSeries),
+                new EquationAnalyzer(mStartRangeX, mEndRangeX).findIntersections(series.getCompiledEquation(),
+                        otherSeries.getCompiledEquation()),
+                Arrays.asList(series.getEquationLine(), otherEquation), paint,
+                otherEquation.substring(otherEquation.indexOf('=') + 1).trim()));
+        intersectionsMenu.getItems().add(intersectionsMenuItem);
+      }
+    }
+    // intersections need at least two equations in the window
+    intersectionsMenu.setDisable(mSeries.size() < 2);
+    analyzeMenu.getItems().addAll(rootsMenu, extremaMenu, intersectionsMenu, new SeparatorMenuItem(),
+            clearMenuItem);
+
+    // the menu is built before anything is found, so enable clearing whenever it is opened
+    analyzeMenu.setOnShowing(e -> clearMenuItem.setDisable(mFeatureMarks.isEmpty()));
+    clearMenuItem.setOnAction(e -> {
+      mFeatureMarks.clear();
+      drawFeatureMarks();
+    });
+    return analyzeMenu;
+  }
+
   // calculate the number of points that will be plotted when graph is made
   private int calcTotalPoints() {
-    int numPoints = 0;
-    if(mStepSize != 0) {
-      numPoints = (int) Math.round((mEndRangeX - mStartRangeX) / mStepSize);
-    }
-    return numPoints;
+    return GraphSampler.countPoints(mStartRangeX, mEndRangeX, mStepSize);
   }
 
   // build a menu for window options
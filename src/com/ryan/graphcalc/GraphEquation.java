@@ -5,18 +5,25 @@
  */
 package com.ryan.graphcalc;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 // class to store original equation (as entered by user) and the evaluated result
 class GraphEquation {
   private String originalEquation;
   private Double ans;
 
+  // set for a point found on a graph, whose description can not be entered again as an equation
+  private final boolean graphResult;
+
+  // why the equation has no answer, shown in place of the answer, null if it was solved
+  private String error;
 
   public GraphEquation(String originalEquation, Double ans) {
+    this(originalEquation, ans, false);
+  }
+
+  public GraphEquation(String originalEquation, Double ans, boolean graphResult) {
     this.originalEquation = originalEquation;
     this.ans = ans;
+    this.graphResult = graphResult;
   }
 
   public String getOriginalEquation() {
@@ -35,23 +42,16 @@ class GraphEquation {
     this.ans = ans;
   }
 
-  // get the closing parentheses in the equation
-  public static int getClosingParentheses(String equationLine, int startSearchPos) {
-    // find right parentheses
-    int numParens = 1;
-    int j = startSearchPos + 1;
-    while(j < equationLine.length() && numParens >= 1) {
-      j++;
-      if(equationLine.charAt(j) == '(') {
-        numParens++;
-      } else if(equationLine.charAt(j) == ')') {
-        numParens--;
-      }
-    }
-    if(j < equationLine.length() && numParens == 0) {
-      return j;
-    }
-    return -1;
+  public String getError() {
+    return error;
+  }
+
+  public void setError(String error) {
+    this.error = error;
+  }
+
+  public boolean isGraphResult() {
+    return graphResult;
   }
 
   // round a number to the nearest n places
@@ -61,28 +61,11 @@ class GraphEquation {
 
   // detect if an equation has variables
   public static boolean hasVariables(String equation) {
-    Pattern hasVariablesP0 = Pattern.compile("[^a-z][a-z][^a-z]");
-    Pattern hasVariablesP1 = Pattern.compile("^[a-z][^a-z]");
-    Pattern hasVariablesP2 = Pattern.compile("[^a-z][a-z]$");
-    Matcher hasVariablesM0 = hasVariablesP0.matcher(equation);
-    Matcher hasVariablesM1 = hasVariablesP1.matcher(equation);
-    Matcher hasVariablesM2 = hasVariablesP2.matcher(equation);
-    if(hasVariablesM0.find() || hasVariablesM1.find() || hasVariablesM2.find()) {
-      return true;
-    } else {
-      return false;
-    }
+    return EquationLexer.hasVariables(equation);
   }
 
   // determine if its a trig function
   public static boolean isTrigFunction(String eqStr) {
-    Pattern mFuncPattern = Pattern.compile("(sin|cos|tan)", Pattern.CASE_INSENSITIVE);
-    Matcher mFuncMatcher = mFuncPattern.matcher(eqStr);
-
-    // found a function in the equation line
-    if(mFuncMatcher.find()) {
-      return true;
-    }
-    return false;
+    return TrigFunction.fromName(eqStr.toLowerCase()) != null;
   }
 }
@@ -0,0 +1,115 @@
+/*
+ * GraphSampler.java
+ * Solves an equation at evenly spaced x values across a range. Point i is always at
+ * x = start + i * step, so the range can be split into chunks that are solved on separate threads
+ * and written straight into their own part of the sample arrays. Several equations merged into an
+ * EquationDag can be solved together over the same x values
+ */
+package com.ryan.graphcalc;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public class GraphSampler {
+    // smallest number of points worth handing to another thread
+    private static final int MIN_CHUNK_POINTS = 4096;
+
+    // pool that runs the sampling tasks
+    private final ForkJoinPool mPool;
+
+    // sampler using the shared common pool
+    public GraphSampler() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public GraphSampler(ForkJoinPool pool) {
+        mPool = pool;
+    }
+
+    // number of points in [start, end) when stepping by step
+    public static int countPoints(double start, double end, double step) {
+        if(step <= 0 || end <= start) {
+            return 0;
+        }
+        // small tolerance so a range that is an exact multiple of step does not gain an extra point
+        return (int) Math.ceil((end - start) / step - 1e-9);
+    }
+
+    // solve the equation for every point of the range
+    public SampleBuffer sample(CompiledEquation compiledEquation, double start, double end, double step) {
+        int numPoints = countPoints(start, end, step);
+        double[] xVals = new double[numPoints];
+        double[] yVals = new double[numPoints];
+
+        mPool.invoke(new SampleTask((x, from, to) -> compiledEquation.evaluate(x, yVals, from, to),
+                                    start, step, xVals, 0, numPoints, calcChunkPoints(numPoints)));
+        return new SampleBuffer(xVals, yVals, numPoints);
+    }
+
+    // solve the equation for the first numPoints x values, which do not have to be evenly spaced
+    public void evaluate(CompiledEquation compiledEquation, double[] xVals, double[] yVals, int numPoints) {
+        mPool.invoke(new SampleTask((x, from, to) -> compiledEquation.evaluate(x, yVals, from, to),
+                                    Double.NaN, Double.NaN, xVals, 0, numPoints, calcChunkPoints(numPoints)));
+    }
+
+    // solve every equation of the graph for the first numPoints x values, the answers of equation i go
+    // in yColumns[i]
+    void evaluate(EquationDag dag, double[] xVals, double[][] yColumns, int numPoints) {
+        mPool.invoke(new SampleTask((x, from, to) -> dag.evaluate(x, yColumns, from, to),
+                                    Double.NaN, Double.NaN, xVals, 0, numPoints, calcChunkPoints(numPoints)));
+    }
+
+    // split into a few chunks per core so threads that finish early can steal more work
+    private int calcChunkPoints(int numPoints) {
+        return Math.max(MIN_CHUNK_POINTS, numPoints / (mPool.getParallelism() * 4));
+    }
+
+    // solves the points from index from up to (not including) index to, writing their answers into the
+    // arrays it was made for
+    private interface ChunkSolver {
+        void solve(double[] xVals, int from, int to);
+    }
+
+    // fills in the points from index from up to (not including) index to. If start is NaN the x
+    // values are already filled in, otherwise they are calculated from start and step. Tasks only live
+    // inside the pool, they are never serialized
+    @SuppressWarnings("serial")
+    private static class SampleTask extends RecursiveAction {
+        private final ChunkSolver solver;
+        private final double start;
+        private final double step;
+        private final double[] xVals;
+        private final int from;
+        private final int to;
+        private final int chunkPoints;
+
+        SampleTask(ChunkSolver solver, double start, double step, double[] xVals, int from, int to,
+                   int chunkPoints) {
+            this.solver = solver;
+            this.start = start;
+            this.step = step;
+            this.xVals = xVals;
+            this.from = from;
+            this.to = to;
+            this.chunkPoints = chunkPoints;
+        }
+
+        @Override
+        protected void compute() {
+            // small enough to solve on this thread
+            if(to - from <= chunkPoints) {
+                if(!Double.isNaN(start)) {
+                    for(int i = from; i < to; i++) {
+                        xVals[i] = start + i * step;
+                    }
+                }
+                solver.solve(xVals, from, to);
+                return;
+            }
+            // split in half, each half writes to its own part of the arrays so no merging is needed
+            int middle = (from + to) >>> 1;
+            invokeAll(new SampleTask(solver, start, step, xVals, from, middle, chunkPoints),
+                      new SampleTask(solver, start, step, xVals, middle, to, chunkPoints));
+        }
+    }
+}
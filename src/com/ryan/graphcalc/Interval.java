@@ -0,0 +1,68 @@
+/*
+ * Interval.java
+ * A range of values [lo, hi] that part of an equation is known to stay within for every x in a range of
+ * x values. An interval with an infinite end also stands for answers that may be infinite or NaN, so
+ * only a finite interval proves anything about the answers
+ */
+package com.ryan.graphcalc;
+
+public final class Interval {
+    // nothing is known about the answers
+    public static final Interval WHOLE = new Interval(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+
+    private final double lo;
+    private final double hi;
+
+    private Interval(double lo, double hi) {
+        this.lo = lo;
+        this.hi = hi;
+    }
+
+    // the interval from lo to hi, or WHOLE if either end is NaN
+    public static Interval of(double lo, double hi) {
+        if(Double.isNaN(lo) || Double.isNaN(hi)) {
+            return WHOLE;
+        }
+        return new Interval(lo, hi);
+    }
+
+    // the interval holding only value
+    public static Interval point(double value) {
+        return of(value, value);
+    }
+
+    public double getLo() {
+        return lo;
+    }
+
+    public double getHi() {
+        return hi;
+    }
+
+    // detect if both ends are finite, which proves every answer is finite
+    public boolean isFinite() {
+        return Double.isFinite(lo) && Double.isFinite(hi);
+    }
+
+    public boolean contains(double value) {
+        return lo <= value && value <= hi;
+    }
+
+    // detect if the interval contains offset + k * period for some whole number k. The ends are moved out
+    // a little so a point the interval only misses by rounding still counts
+    public boolean containsPeriodic(double offset, double period) {
+        double tolerance = 1e-9 * (1 + Math.max(Math.abs(lo), Math.abs(hi)));
+        double k = Math.ceil((lo - tolerance - offset) / period);
+        return offset + k * period <= hi + tolerance;
+    }
+
+    // the interval moved out by margin at both ends, for answers only accurate to within margin
+    public Interval widen(double margin) {
+        return of(lo - margin, hi + margin);
+    }
+
+    @Override
+    public String toString() {
+        return "[" + lo + ", " + hi + "]";
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * IntervalCuller.java
+ * Finds the runs of x values an equation does not have to be solved at point by point. The equation is
+ * solved once for a whole run with interval arithmetic. If that proves every answer in the run is finite
+ * and either off screen (above or below the plot area) or inside one pixel row, only the first and last
+ * point of the run are needed. The curve between them is then either dropped or drawn as the straight
+ * line between them, which stays in that row. Runs that can not be proven are split in half and tried
+ * again, so only the parts near where the curve crosses the plot area get solved point by point
+ */
+package com.ryan.graphcalc;
+
+public class IntervalCuller {
+    // runs with fewer points than this are solved point by point, checking them costs about as much
+    private static final int MIN_RUN_POINTS = 8;
+
+    // maps answers to the plot area
+    private final PlotViewport mViewport;
+
+    // answers above mMaxY or below mMinY are off screen. Lines are clipped a line width beyond the plot
+    // area, so that is where off screen starts
+    private final double mMinY;
+    private final double mMaxY;
+
+    public IntervalCuller(PlotViewport viewport, double lineWidth) {
+        mViewport = viewport;
+        mMaxY = viewport.fromScreenY(-lineWidth);
+        mMinY = viewport.fromScreenY(viewport.getScreenHeight() + lineWidth);
+    }
+
+    // mark the points inside each run of xVals (in increasing order) that does not have to be solved,
+    // leaving the known points alone. Returns the number of points marked in culled
+    public int cull(EquationNode root, double[] xVals, boolean[] known, boolean[] culled) {
+        return (xVals.length > 0) ? cullRun(root, xVals, 0, xVals.length - 1, known, culled) : 0;
+    }
+
+    // cull the points between from and to (both kept), splitting the run if it can not be culled whole
+    private int cullRun(EquationNode root, double[] xVals, int from, int to, boolean[] known, boolean[] culled) {
+        if(to - from + 1 < MIN_RUN_POINTS) {
+            return 0;
+        }
+        Interval answers = root.evaluateInterval(Interval.of(xVals[from], xVals[to]));
+        if(canSkip(answers)) {
+            int numCulled = 0;
+            for(int i = from + 1; i < to; i++) {
+                if(!known[i]) {
+                    culled[i] = true;
+                    numCulled++;
+                }
+            }
+            return numCulled;
+        }
+        int middle = (from + to) >>> 1;
+        return cullRun(root, xVals, from, middle, known, culled) + cullRun(root, xVals, middle, to, known, culled);
+    }
+
+    // detect if the curve can be drawn from the ends of a run whose answers stay within the interval
+    private boolean canSkip(Interval answers) {
+        if(!answers.isFinite()) {
+            return false;
+        }
+        if(answers.getLo() > mMaxY || answers.getHi() < mMinY) {
+            return true;
+        }
+        // screen y grows downwards, so the highest answer is in the row with the smallest y
+        return Math.floor(mViewport.toScreenY(answers.getHi())) == Math.floor(mViewport.toScreenY(answers.getLo()));
+    }
+}
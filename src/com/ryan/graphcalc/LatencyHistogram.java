@@ -0,0 +1,66 @@
+/*
+ * LatencyHistogram.java
+ * Counts how long requests take in buckets that double in width, starting at one microsecond. Any
+ * number of threads may record at once without locking. Percentiles are reported as the upper edge of
+ * the bucket they land in, so they are accurate to within a factor of two
+ */
+package com.ryan.graphcalc;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class LatencyHistogram {
+    // bucket i counts latencies below 2^i microseconds, the last bucket counts everything longer
+    private static final int NUM_BUCKETS = 32;
+
+    private final AtomicLongArray mBuckets = new AtomicLongArray(NUM_BUCKETS);
+
+    private final AtomicLong mCount = new AtomicLong();
+    private final AtomicLong mTotalNanos = new AtomicLong();
+    private final AtomicLong mMaxNanos = new AtomicLong();
+
+    // record one request that took the given time
+    public void record(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        int bucket = Math.min(NUM_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+        mBuckets.incrementAndGet(bucket);
+        mCount.incrementAndGet();
+        mTotalNanos.addAndGet(nanos);
+
+        long maxNanos = mMaxNanos.get();
+        while(nanos > maxNanos && !mMaxNanos.compareAndSet(maxNanos, nanos)) {
+            maxNanos = mMaxNanos.get();
+        }
+    }
+
+    public long getCount() {
+        return mCount.get();
+    }
+
+    // average latency in microseconds
+    public double getMeanMicros() {
+        long count = mCount.get();
+        return (count == 0) ? 0 : mTotalNanos.get() / 1000.0 / count;
+    }
+
+    public double getMaxMicros() {
+        return mMaxNanos.get() / 1000.0;
+    }
+
+    // latency in microseconds that the given fraction (0 to 1) of requests finished within
+    public long getPercentileMicros(double fraction) {
+        long count = mCount.get();
+        if(count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(fraction * count);
+        long seen = 0;
+        for(int i = 0; i < NUM_BUCKETS; i++) {
+            seen += mBuckets.get(i);
+            if(seen >= rank) {
+                return 1L << i;
+            }
+        }
+        return 1L << (NUM_BUCKETS - 1);
+    }
+}
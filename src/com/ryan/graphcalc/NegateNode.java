@@ -0,0 +1,132 @@
+/*
+ * NegateNode.java
+ * A minus sign in front of a number, variable, function or parentheses
+ */
+package com.ryan.graphcalc;
+
+import java.util.Map;
+
+class NegateNode extends EquationNode {
+    // the value being negated
+    private final EquationNode operand;
+
+    public NegateNode(EquationNode operand) {
+        this.operand = operand;
+    }
+
+    public EquationNode getOperand() {
+        return operand;
+    }
+
+    @Override
+    public double evaluate(double xVal) {
+        return -operand.evaluate(xVal);
+    }
+
+    @Override
+    public void evaluate(double[] xVals, double[] yVals, int length, EvaluationBuffers buffers) {
+        operand.evaluate(xVals, yVals, length, buffers);
+        for(int i = 0; i < length; i++) {
+            yVals[i] = -yVals[i];
+        }
+    }
+
+    @Override
+    public void evaluateDerivatives(double[] xVals, double[] yVals, double[] dyVals, double[] d2yVals,
+                                    int length, EvaluationBuffers buffers) {
+        operand.evaluateDerivatives(xVals, yVals, dyVals, d2yVals, length, buffers);
+        for(int i = 0; i < length; i++) {
+            yVals[i] = -yVals[i];
+            dyVals[i] = -dyVals[i];
+            d2yVals[i] = -d2yVals[i];
+        }
+    }
+
+    @Override
+    public void evaluateDerivatives(double xVal, double[] derivatives, int offset) {
+        operand.evaluateDerivatives(xVal, derivatives, offset);
+        derivatives[offset] = -derivatives[offset];
+        derivatives[offset + 1] = -derivatives[offset + 1];
+        derivatives[offset + 2] = -derivatives[offset + 2];
+    }
+
+    @Override
+    public Interval evaluateInterval(Interval xInterval) {
+        Interval operandInterval = operand.evaluateInterval(xInterval);
+        return Interval.of(-operandInterval.getHi(), -operandInterval.getLo());
+    }
+
+    @Override
+    public void emitBytecode(EquationClassWriter writer) throws Exception {
+        writer.emitNode(operand);
+        writer.negate();
+    }
+
+    @Override
+    public boolean hasVariables() {
+        return operand.hasVariables();
+    }
+
+    @Override
+    public EquationNode simplify() {
+        EquationNode simpleOperand = operand.simplify();
+        // negative number
+        if(simpleOperand instanceof ConstantNode) {
+            return new ConstantNode(-((ConstantNode) simpleOperand).getValue());
+        }
+        // two negative signs cancel out
+        if(simpleOperand instanceof NegateNode) {
+            return ((NegateNode) simpleOperand).getOperand();
+        }
+        return (simpleOperand == operand) ? this : new NegateNode(simpleOperand);
+    }
+
+    @Override
+    public int countNodes() {
+        return 1 + operand.countNodes();
+    }
+
+    @Override
+    public EquationNode share(Map<EquationNode, EquationNode> sharedNodes) {
+        EquationNode sharedOperand = operand.share(sharedNodes);
+        return intern(sharedNodes, (sharedOperand == operand) ? this : new NegateNode(sharedOperand));
+    }
+
+    @Override
+    public EquationNode[] getOperands() {
+        return new EquationNode[] {operand};
+    }
+
+    @Override
+    public void evaluateFromOperands(double[] xVals, double[] operand0Vals, double[] operand1Vals,
+                                     double[] yVals, int length) {
+        for(int i = 0; i < length; i++) {
+            yVals[i] = -operand0Vals[i];
+        }
+    }
+
+    @Override
+    public void evaluateDerivativesFromOperands(double[] xVals, double[][] operand0Vals, double[][] operand1Vals,
+                                                double[][] yVals, int length) {
+        for(int i = 0; i < length; i++) {
+            yVals[0][i] = -operand0Vals[0][i];
+            yVals[1][i] = -operand0Vals[1][i];
+            yVals[2][i] = -operand0Vals[2][i];
+        }
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof NegateNode && ((NegateNode) other).operand == operand;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * NegateNode.class.hashCode() + System.identityHashCode(operand);
+    }
+
+    @Override
+    public String toString() {
+        return "-" + operand;
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * NodePlotRenderer.java
+ * draws the graph as Polyline nodes in the scene graph, one for each segment of the curve
+ */
+package com.ryan.graphcalc;
+
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.paint.Paint;
+import javafx.scene.shape.Circle;
+import javafx.scene.shape.Polyline;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.shape.StrokeLineCap;
+import javafx.scene.shape.StrokeLineJoin;
+
+import java.util.ArrayList;
+
+public class NodePlotRenderer implements PlotRenderer {
+
+  @Override
+  public String getName() {
+    return "Shapes";
+  }
+
+  @Override
+  public void drawCurve(Group plotArea, double[] xScreenVals, double[] yScreenVals, int[] segmentEnds,
+                        int numSegments, Paint plotColor, double lineWidth, double plotWidth, double plotHeight) {
+    // build all the nodes first so the group is only changed once
+    ArrayList<Node> segments = new ArrayList<>();
+    int segmentStart = 0;
+    for (int s = 0; s < numSegments; s++) {
+      int segmentEnd = segmentEnds[s];
+      if (segmentEnd - segmentStart == 1) {
+        // a point with no neighbours to join, drawn as a dot as wide as the line
+        Circle point = new Circle(xScreenVals[segmentStart], yScreenVals[segmentStart], lineWidth / 2, plotColor);
+        segments.add(point);
+      } else {
+        // Polyline takes the x and y of each point one after the other
+        double[] points = new double[(segmentEnd - segmentStart) * 2];
+        for (int i = segmentStart; i < segmentEnd; i++) {
+          points[(i - segmentStart) * 2] = xScreenVals[i];
+          points[(i - segmentStart) * 2 + 1] = yScreenVals[i];
+        }
+        Polyline segment = new Polyline(points);
+        segment.setStroke(plotColor);
+        segment.setStrokeWidth(lineWidth);
+        segment.setStrokeLineCap(StrokeLineCap.ROUND);
+        segment.setStrokeLineJoin(StrokeLineJoin.ROUND);
+        segments.add(segment);
+      }
+      segmentStart = segmentEnd;
+    }
+    // cut off the lines the same as the Canvas renderer does
+    Group curve = new Group(segments);
+    curve.setClip(new Rectangle(plotWidth + lineWidth + 1, plotHeight + lineWidth + 1));
+    // add to the group node
+    plotArea.getChildren().add(curve);
+  }
+}
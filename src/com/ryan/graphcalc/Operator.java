@@ -35,4 +35,297 @@ public enum Operator {
     public int getOrder() {
         return precedence;
     }
+
+    // given the two operands, return the result of applying the operator
+    public double apply(double operand0, double operand1) {
+        switch(this) {
+            case ADD:
+                return operand0 + operand1;
+            case SUBTRACT:
+                return operand0 - operand1;
+            case MULTIPLY:
+                return operand0 * operand1;
+            case DIVIDE:
+                return operand0 / operand1;
+            case EXPONENT:
+                return Math.pow(operand0, operand1);
+        }
+        return 0;
+    }
+
+    // the interval the results stay within for any pair of operands from the two intervals. Math.pow is
+    // semi-monotonic like the other operators, so solving at the ends of the intervals bounds every
+    // answer in between. Any interval with an infinite end gives WHOLE
+    public Interval apply(Interval operand0, Interval operand1) {
+        if(!operand0.isFinite() || !operand1.isFinite()) {
+            return Interval.WHOLE;
+        }
+        switch(this) {
+            case ADD:
+                return Interval.of(operand0.getLo() + operand1.getLo(), operand0.getHi() + operand1.getHi());
+            case SUBTRACT:
+                return Interval.of(operand0.getLo() - operand1.getHi(), operand0.getHi() - operand1.getLo());
+            case MULTIPLY:
+                return applyToCorners(operand0, operand1);
+            case DIVIDE:
+                // dividing by a range that includes 0 can give anything
+                return operand1.contains(0) ? Interval.WHOLE : applyToCorners(operand0, operand1);
+            case EXPONENT:
+                return applyExponent(operand0, operand1);
+        }
+        return Interval.WHOLE;
+    }
+
+    // the smallest and largest answer at the four corners, which bound an operator that only rises or
+    // only falls with each operand
+    private Interval applyToCorners(Interval operand0, Interval operand1) {
+        double answer0 = apply(operand0.getLo(), operand1.getLo());
+        double answer1 = apply(operand0.getLo(), operand1.getHi());
+        double answer2 = apply(operand0.getHi(), operand1.getLo());
+        double answer3 = apply(operand0.getHi(), operand1.getHi());
+        return Interval.of(Math.min(Math.min(answer0, answer1), Math.min(answer2, answer3)),
+                           Math.max(Math.max(answer0, answer1), Math.max(answer2, answer3)));
+    }
+
+    // interval of base ^ exponent, WHOLE wherever a NaN or infinite answer is possible
+    private static Interval applyExponent(Interval base, Interval exponent) {
+        double power = exponent.getLo();
+        if(power == exponent.getHi() && power == Math.rint(power)) {
+            // a whole number power is defined for every base and only turns at 0
+            if(power == 0) {
+                return Interval.point(1);
+            }
+            if(power < 0 && base.contains(0)) {
+                return Interval.WHOLE;
+            }
+            double answerLo = Math.pow(base.getLo(), power);
+            double answerHi = Math.pow(base.getHi(), power);
+            double lo = Math.min(answerLo, answerHi);
+            double hi = Math.max(answerLo, answerHi);
+            // an even power is lowest at 0
+            boolean evenPower = (power % 2 == 0);
+            return Interval.of((evenPower && base.contains(0)) ? 0 : lo, hi);
+        }
+        // other powers of a negative base are NaN, and 0 to a power below 0 is infinite
+        if(base.getLo() < 0 || (base.getLo() == 0 && exponent.getLo() <= 0)) {
+            return Interval.WHOLE;
+        }
+        return EXPONENT.applyToCorners(base, exponent);
+    }
+
+    // apply the operator to each pair of values, the results replace the left operands
+    public void apply(double[] operands0, double[] operands1, int length) {
+        apply(operands0, operands1, operands0, length);
+    }
+
+    // apply the operator to each pair of values, storing the results in results. Any of the arrays may
+    // be the same array, each position is read before it is written
+    public void apply(double[] operands0, double[] operands1, double[] results, int length) {
+        switch(this) {
+            case ADD:
+                for(int i = 0; i < length; i++) { results[i] = operands0[i] + operands1[i]; }
+                break;
+            case SUBTRACT:
+                for(int i = 0; i < length; i++) { results[i] = operands0[i] - operands1[i]; }
+                break;
+            case MULTIPLY:
+                for(int i = 0; i < length; i++) { results[i] = operands0[i] * operands1[i]; }
+                break;
+            case DIVIDE:
+                for(int i = 0; i < length; i++) { results[i] = operands0[i] / operands1[i]; }
+                break;
+            case EXPONENT:
+                for(int i = 0; i < length; i++) { results[i] = Math.pow(operands0[i], operands1[i]); }
+                break;
+        }
+    }
+
+    // apply the operator to each pair of operands along with their first and second derivatives, the
+    // results and their derivatives replace the left operands. Each is found with the chain rule from
+    // the operands at the same position, so no other x values are needed
+    public void applyDerivatives(double[] operands0, double[] derivatives0, double[] secondDerivatives0,
+                                 double[] operands1, double[] derivatives1, double[] secondDerivatives1,
+                                 int length) {
+        switch(this) {
+            case ADD:
+                for(int i = 0; i < length; i++) {
+                    operands0[i] += operands1[i];
+                    derivatives0[i] += derivatives1[i];
+                    secondDerivatives0[i] += secondDerivatives1[i];
+                }
+                break;
+            case SUBTRACT:
+                for(int i = 0; i < length; i++) {
+                    operands0[i] -= operands1[i];
+                    derivatives0[i] -= derivatives1[i];
+                    secondDerivatives0[i] -= secondDerivatives1[i];
+                }
+                break;
+            case MULTIPLY:
+                // (uv)' = u'v + uv', (uv)'' = u''v + 2u'v' + uv''
+                for(int i = 0; i < length; i++) {
+                    double u = operands0[i];
+                    double du = derivatives0[i];
+                    double v = operands1[i];
+                    double dv = derivatives1[i];
+                    operands0[i] = u * v;
+                    derivatives0[i] = du * v + u * dv;
+                    secondDerivatives0[i] = secondDerivatives0[i] * v + 2 * du * dv + u * secondDerivatives1[i];
+                }
+                break;
+            case DIVIDE:
+                // y = u / v, so u = yv and the derivatives of y follow from the product rule
+                for(int i = 0; i < length; i++) {
+                    double v = operands1[i];
+                    double dv = derivatives1[i];
+                    double y = operands0[i] / v;
+                    double dy = (derivatives0[i] - y * dv) / v;
+                    operands0[i] = y;
+                    derivatives0[i] = dy;
+                    secondDerivatives0[i] = (secondDerivatives0[i] - 2 * dy * dv - y * secondDerivatives1[i]) / v;
+                }
+                break;
+            case EXPONENT:
+                double[] results = new double[3];
+                for(int i = 0; i < length; i++) {
+                    applyExponentDerivatives(operands0[i], derivatives0[i], secondDerivatives0[i], operands1[i],
+                                             derivatives1[i], secondDerivatives1[i], results, 0);
+                    operands0[i] = results[0];
+                    derivatives0[i] = results[1];
+                    secondDerivatives0[i] = results[2];
+                }
+                break;
+        }
+    }
+
+    // apply the operator to one pair of operands, each stored with its first and second derivatives in
+    // the three positions from offset0 and offset1 of derivatives. The results replace the left operand
+    public void applyDerivatives(double[] derivatives, int offset0, int offset1) {
+        double u = derivatives[offset0];
+        double du = derivatives[offset0 + 1];
+        double d2u = derivatives[offset0 + 2];
+        double v = derivatives[offset1];
+        double dv = derivatives[offset1 + 1];
+        double d2v = derivatives[offset1 + 2];
+        switch(this) {
+            case ADD:
+                derivatives[offset0] = u + v;
+                derivatives[offset0 + 1] = du + dv;
+                derivatives[offset0 + 2] = d2u + d2v;
+                break;
+            case SUBTRACT:
+                derivatives[offset0] = u - v;
+                derivatives[offset0 + 1] = du - dv;
+                derivatives[offset0 + 2] = d2u - d2v;
+                break;
+            case MULTIPLY:
+                derivatives[offset0] = u * v;
+                derivatives[offset0 + 1] = du * v + u * dv;
+                derivatives[offset0 + 2] = d2u * v + 2 * du * dv + u * d2v;
+                break;
+            case DIVIDE:
+                double y = u / v;
+                double dy = (du - y * dv) / v;
+                derivatives[offset0] = y;
+                derivatives[offset0 + 1] = dy;
+                derivatives[offset0 + 2] = (d2u - 2 * dy * dv - y * d2v) / v;
+                break;
+            case EXPONENT:
+                applyExponentDerivatives(u, du, d2u, v, dv, d2v, derivatives, offset0);
+                break;
+        }
+    }
+
+    // apply the operator with the same right operand for every left operand, along with the first and
+    // second derivatives of the left operands. The right operand does not change with x
+    public void applyDerivatives(double[] operands0, double[] derivatives0, double[] secondDerivatives0,
+                                 double operand1, int length) {
+        switch(this) {
+            case ADD:
+                for(int i = 0; i < length; i++) { operands0[i] += operand1; }
+                break;
+            case SUBTRACT:
+                for(int i = 0; i < length; i++) { operands0[i] -= operand1; }
+                break;
+            case MULTIPLY:
+                for(int i = 0; i < length; i++) {
+                    operands0[i] *= operand1;
+                    derivatives0[i] *= operand1;
+                    secondDerivatives0[i] *= operand1;
+                }
+                break;
+            case DIVIDE:
+                for(int i = 0; i < length; i++) {
+                    operands0[i] /= operand1;
+                    derivatives0[i] /= operand1;
+                    secondDerivatives0[i] /= operand1;
+                }
+                break;
+            case EXPONENT:
+                double[] results = new double[3];
+                for(int i = 0; i < length; i++) {
+                    applyExponentDerivatives(operands0[i], derivatives0[i], secondDerivatives0[i], operand1, 0, 0,
+                                             results, 0);
+                    operands0[i] = results[0];
+                    derivatives0[i] = results[1];
+                    secondDerivatives0[i] = results[2];
+                }
+                break;
+        }
+    }
+
+    // u ^ v and its first and second derivatives, stored in the three positions from offset of results
+    private static void applyExponentDerivatives(double u, double du, double d2u, double v, double dv, double d2v,
+                                                 double[] results, int offset) {
+        double y = Math.pow(u, v);
+        results[offset] = y;
+        if(dv == 0 && d2v == 0) {
+            // a power that does not change with x works for negative bases too. u ^ (v - 1) is y / u
+            // except at 0, where terms multiplied by 0 are left out so they do not turn into 0 * infinity
+            double dPow;
+            double d2Pow;
+            if(u != 0) {
+                dPow = v * y / u;
+                d2Pow = (v - 1) * dPow / u;
+            } else {
+                dPow = (v == 0) ? 0 : v * Math.pow(u, v - 1);
+                d2Pow = (v == 0 || v == 1) ? 0 : v * (v - 1) * Math.pow(u, v - 2);
+            }
+            results[offset + 1] = dPow * du;
+            results[offset + 2] = d2Pow * du * du + dPow * d2u;
+            return;
+        }
+        // y = e ^ w with w = v ln(u), so y' = y w' and y'' = y (w'' + w'^2)
+        double logU = Math.log(u);
+        double dw = dv * logU + v * du / u;
+        double d2w = d2v * logU + 2 * dv * du / u + v * (d2u * u - du * du) / (u * u);
+        results[offset + 1] = y * dw;
+        results[offset + 2] = y * (d2w + dw * dw);
+    }
+
+    // apply the operator with the same right operand for every left operand
+    public void apply(double[] operands0, double operand1, int length) {
+        apply(operands0, operand1, operands0, length);
+    }
+
+    // apply the operator with the same right operand for every left operand, storing the results in results
+    public void apply(double[] operands0, double operand1, double[] results, int length) {
+        switch(this) {
+            case ADD:
+                for(int i = 0; i < length; i++) { results[i] = operands0[i] + operand1; }
+                break;
+            case SUBTRACT:
+                for(int i = 0; i < length; i++) { results[i] = operands0[i] - operand1; }
+                break;
+            case MULTIPLY:
+                for(int i = 0; i < length; i++) { results[i] = operands0[i] * operand1; }
+                break;
+            case DIVIDE:
+                for(int i = 0; i < length; i++) { results[i] = operands0[i] / operand1; }
+                break;
+            case EXPONENT:
+                for(int i = 0; i < length; i++) { results[i] = Math.pow(operands0[i], operand1); }
+                break;
+        }
+    }
 }
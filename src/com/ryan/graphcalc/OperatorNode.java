@@ -0,0 +1,229 @@
+/*
+ * OperatorNode.java
+ * Two operands joined by one of the binary operators (+, -, *, /, ^)
+ */
+package com.ryan.graphcalc;
+
+import java.util.Map;
+
+class OperatorNode extends EquationNode {
+    // symbol in between the two operands
+    private final Operator operator;
+
+    // value on left side of operator
+    private final EquationNode operand0;
+
+    // value on right side of operator
+    private final EquationNode operand1;
+
+    public OperatorNode(Operator operator, EquationNode operand0, EquationNode operand1) {
+        this.operator = operator;
+        this.operand0 = operand0;
+        this.operand1 = operand1;
+    }
+
+    public Operator getOperator() {
+        return operator;
+    }
+
+    public EquationNode getOperand0() {
+        return operand0;
+    }
+
+    public EquationNode getOperand1() {
+        return operand1;
+    }
+
+    @Override
+    public double evaluate(double xVal) {
+        return operator.apply(operand0.evaluate(xVal), operand1.evaluate(xVal));
+    }
+
+    @Override
+    public void evaluate(double[] xVals, double[] yVals, int length, EvaluationBuffers buffers) {
+        operand0.evaluate(xVals, yVals, length, buffers);
+        // a number on the right side does not need its own array
+        if(operand1 instanceof ConstantNode) {
+            operator.apply(yVals, ((ConstantNode) operand1).getValue(), length);
+            return;
+        }
+        double[] operand1Vals = buffers.take();
+        operand1.evaluate(xVals, operand1Vals, length, buffers);
+        operator.apply(yVals, operand1Vals, length);
+        buffers.release();
+    }
+
+    @Override
+    public void evaluateDerivatives(double[] xVals, double[] yVals, double[] dyVals, double[] d2yVals,
+                                    int length, EvaluationBuffers buffers) {
+        operand0.evaluateDerivatives(xVals, yVals, dyVals, d2yVals, length, buffers);
+        // a number on the right side has no derivatives, so it does not need its own arrays either
+        if(operand1 instanceof ConstantNode) {
+            operator.applyDerivatives(yVals, dyVals, d2yVals, ((ConstantNode) operand1).getValue(), length);
+            return;
+        }
+        double[] operand1Vals = buffers.take();
+        double[] operand1Derivatives = buffers.take();
+        double[] operand1SecondDerivatives = buffers.take();
+        operand1.evaluateDerivatives(xVals, operand1Vals, operand1Derivatives, operand1SecondDerivatives, length,
+                                     buffers);
+        operator.applyDerivatives(yVals, dyVals, d2yVals, operand1Vals, operand1Derivatives,
+                                  operand1SecondDerivatives, length);
+        buffers.release();
+        buffers.release();
+        buffers.release();
+    }
+
+    @Override
+    public void evaluateDerivatives(double xVal, double[] derivatives, int offset) {
+        // the right operand goes in the positions after the left one
+        operand0.evaluateDerivatives(xVal, derivatives, offset);
+        operand1.evaluateDerivatives(xVal, derivatives, offset + 3);
+        operator.applyDerivatives(derivatives, offset, offset + 3);
+    }
+
+    @Override
+    public Interval evaluateInterval(Interval xInterval) {
+        Interval operand0Interval = operand0.evaluateInterval(xInterval);
+        if(operator == Operator.MULTIPLY && operand0 == operand1 && operand0Interval.isFinite()) {
+            // a shared node times itself, as x^2 is simplified to, is never below 0. Multiplying the two
+            // intervals as if they were unrelated would allow answers below 0
+            double lo = operand0Interval.getLo();
+            double hi = operand0Interval.getHi();
+            double squareHi = Math.max(lo * lo, hi * hi);
+            return Interval.of(operand0Interval.contains(0) ? 0 : Math.min(lo * lo, hi * hi), squareHi);
+        }
+        return operator.apply(operand0Interval, operand1.evaluateInterval(xInterval));
+    }
+
+    @Override
+    public void emitBytecode(EquationClassWriter writer) throws Exception {
+        // both operands are left on the stack, then the operator combines them
+        writer.emitNode(operand0);
+        writer.emitNode(operand1);
+        writer.applyOperator(operator);
+    }
+
+    @Override
+    public boolean hasVariables() {
+        return operand0.hasVariables() || operand1.hasVariables();
+    }
+
+    @Override
+    public EquationNode simplify() {
+        EquationNode simple0 = operand0.simplify();
+        EquationNode simple1 = operand1.simplify();
+
+        // both sides are numbers, solve it now
+        if(simple0 instanceof ConstantNode && simple1 instanceof ConstantNode) {
+            return new ConstantNode(operator.apply(((ConstantNode) simple0).getValue(),
+                                                   ((ConstantNode) simple1).getValue()));
+        }
+        // identities are only removed if they give exactly the same answer for every x, including NaN,
+        // infinity and the sign of zero, so x * 0 and x + 0 (which turns -0 into 0) are left alone
+        if(simple1 instanceof ConstantNode) {
+            double value1 = ((ConstantNode) simple1).getValue();
+            switch(operator) {
+                case ADD:
+                    if(isNegativeZero(value1)) { return simple0; }
+                    break;
+                case SUBTRACT:
+                    if(isPositiveZero(value1)) { return simple0; }
+                    break;
+                case MULTIPLY:
+                case DIVIDE:
+                    if(value1 == 1) { return simple0; }
+                    break;
+                case EXPONENT:
+                    if(value1 == 1) { return simple0; }
+                    // Math.pow gives 1 for a power of 0 even if the base is NaN
+                    if(value1 == 0) { return new ConstantNode(1); }
+                    // multiplying is much cheaper than Math.pow, only done for x so nothing is solved twice
+                    if(value1 == 2 && simple0 instanceof VariableNode) {
+                        return new OperatorNode(Operator.MULTIPLY, simple0, simple0);
+                    }
+                    break;
+            }
+        }
+        if(simple0 instanceof ConstantNode) {
+            double value0 = ((ConstantNode) simple0).getValue();
+            if(operator == Operator.ADD && isNegativeZero(value0)
+                    || operator == Operator.MULTIPLY && value0 == 1) {
+                return simple1;
+            }
+        }
+        return (simple0 == operand0 && simple1 == operand1) ? this : new OperatorNode(operator, simple0, simple1);
+    }
+
+    private static boolean isPositiveZero(double value) {
+        return Double.doubleToRawLongBits(value) == 0;
+    }
+
+    private static boolean isNegativeZero(double value) {
+        return Double.doubleToRawLongBits(value) == Double.doubleToRawLongBits(-0.0);
+    }
+
+    @Override
+    public int countNodes() {
+        return 1 + operand0.countNodes() + operand1.countNodes();
+    }
+
+    @Override
+    public EquationNode share(Map<EquationNode, EquationNode> sharedNodes) {
+        EquationNode shared0 = operand0.share(sharedNodes);
+        EquationNode shared1 = operand1.share(sharedNodes);
+        return intern(sharedNodes, (shared0 == operand0 && shared1 == operand1)
+                                   ? this : new OperatorNode(operator, shared0, shared1));
+    }
+
+    @Override
+    public EquationNode[] getOperands() {
+        return new EquationNode[] {operand0, operand1};
+    }
+
+    @Override
+    public void evaluateFromOperands(double[] xVals, double[] operand0Vals, double[] operand1Vals,
+                                     double[] yVals, int length) {
+        // a number on the right side is used as it is instead of an array filled with it
+        if(operand1 instanceof ConstantNode) {
+            operator.apply(operand0Vals, ((ConstantNode) operand1).getValue(), yVals, length);
+        } else {
+            operator.apply(operand0Vals, operand1Vals, yVals, length);
+        }
+    }
+
+    @Override
+    public void evaluateDerivativesFromOperands(double[] xVals, double[][] operand0Vals, double[][] operand1Vals,
+                                                double[][] yVals, int length) {
+        // the operator is applied in place, over a copy of the left operand
+        for(int j = 0; j < 3; j++) {
+            System.arraycopy(operand0Vals[j], 0, yVals[j], 0, length);
+        }
+        if(operand1 instanceof ConstantNode) {
+            operator.applyDerivatives(yVals[0], yVals[1], yVals[2], ((ConstantNode) operand1).getValue(), length);
+        } else {
+            operator.applyDerivatives(yVals[0], yVals[1], yVals[2], operand1Vals[0], operand1Vals[1], operand1Vals[2],
+                                      length);
+        }
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if(!(other instanceof OperatorNode)) {
+            return false;
+        }
+        OperatorNode otherNode = (OperatorNode) other;
+        return otherNode.operator == operator && otherNode.operand0 == operand0 && otherNode.operand1 == operand1;
+    }
+
+    @Override
+    public int hashCode() {
+        return (31 * operator.ordinal() + System.identityHashCode(operand0)) * 31
+                + System.identityHashCode(operand1);
+    }
+
+    @Override
+    public String toString() {
+        return "(" + operand0 + operator.getOpName() + operand1 + ")";
+    }
+}
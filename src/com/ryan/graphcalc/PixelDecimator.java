@@ -0,0 +1,57 @@
+/*
+ * PixelDecimator.java
+ * Reduces the points of a graph to at most four per pixel column: the first, the last, the lowest and
+ * the highest. The graph is only as wide as the screen, so every other point in a column is drawn
+ * between those four and would not change what is shown. The same holds for a line through the points,
+ * which only passes through the column between the lowest and highest of them
+ */
+package com.ryan.graphcalc;
+
+public class PixelDecimator {
+
+    // keep at most four points for each pixel column of the points from index from up to (not
+    // including) index to, xScreenVals must be in increasing order. The kept points are moved to start
+    // at from in their original order. Returns the index after the last one
+    public static int decimate(double[] xScreenVals, double[] yScreenVals, int from, int to) {
+        int numPoints = to;
+        int numKept = from;
+        int columnStart = from;
+        while(columnStart < numPoints) {
+            // find every point in the same pixel column as the first one
+            double column = Math.floor(xScreenVals[columnStart]);
+            int minIndex = columnStart;
+            int maxIndex = columnStart;
+            int columnEnd = columnStart + 1;
+            while(columnEnd < numPoints && Math.floor(xScreenVals[columnEnd]) == column) {
+                if(yScreenVals[columnEnd] < yScreenVals[minIndex]) { minIndex = columnEnd; }
+                if(yScreenVals[columnEnd] > yScreenVals[maxIndex]) { maxIndex = columnEnd; }
+                columnEnd++;
+            }
+            int lastIndex = columnEnd - 1;
+
+            // keep first, min, max and last in the order they were sampled, without duplicates.
+            // numKept never passes columnStart, so points are only written over after being read
+            int lowerIndex = Math.min(minIndex, maxIndex);
+            int upperIndex = Math.max(minIndex, maxIndex);
+            numKept = keepPoint(xScreenVals, yScreenVals, columnStart, numKept);
+            if(lowerIndex > columnStart) {
+                numKept = keepPoint(xScreenVals, yScreenVals, lowerIndex, numKept);
+            }
+            if(upperIndex > lowerIndex) {
+                numKept = keepPoint(xScreenVals, yScreenVals, upperIndex, numKept);
+            }
+            if(lastIndex > upperIndex) {
+                numKept = keepPoint(xScreenVals, yScreenVals, lastIndex, numKept);
+            }
+            columnStart = columnEnd;
+        }
+        return numKept;
+    }
+
+    // move a point to the next kept position, return the new number of kept points
+    private static int keepPoint(double[] xScreenVals, double[] yScreenVals, int index, int numKept) {
+        xScreenVals[numKept] = xScreenVals[index];
+        yScreenVals[numKept] = yScreenVals[index];
+        return numKept + 1;
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * PlotFrame.java
+ * One drawing of a graph ready to be handed to a PlotRenderer: the line segments of one series' curve in
+ * screen coordinates, how many points were sampled to get them, and how many of those had no answer
+ */
+package com.ryan.graphcalc;
+
+public class PlotFrame {
+    // identifies the plot this frame belongs to, frames of an older plot are not drawn
+    private final int mPlotId;
+
+    // the equation the points belong to
+    private final PlotSeries mSeries;
+
+    // screen coordinates of the points to draw
+    private final double[] mXScreenVals;
+    private final double[] mYScreenVals;
+
+    // number of points to draw
+    private final int mNumPoints;
+
+    // index after the last point of each segment, the points of a segment are joined by lines and the
+    // curve breaks between segments
+    private final int[] mSegmentEnds;
+    private final int mNumSegments;
+
+    // number of points sampled for this frame, and how many of them had to be solved
+    private final int mNumSamples;
+    private final int mNumSolved;
+
+    // number of points that were not solved because interval arithmetic proved they were not needed
+    private final int mNumCulled;
+
+    // number of sampled points whose answer was NaN or infinite, and the smallest x of them (NaN if none)
+    private final int mNumErrors;
+    private final double mFirstErrorX;
+
+    // true for the last frame of a plot, at full resolution
+    private final boolean mFinalFrame;
+
+    public PlotFrame(int plotId, PlotSeries series, double[] xScreenVals, double[] yScreenVals, int numPoints,
+                     int[] segmentEnds, int numSegments, int numSamples, int numSolved, int numCulled,
+                     int numErrors, double firstErrorX, boolean finalFrame) {
+        mPlotId = plotId;
+        mSeries = series;
+        mXScreenVals = xScreenVals;
+        mYScreenVals = yScreenVals;
+        mNumPoints = numPoints;
+        mSegmentEnds = segmentEnds;
+        mNumSegments = numSegments;
+        mNumSamples = numSamples;
+        mNumSolved = numSolved;
+        mNumCulled = numCulled;
+        mNumErrors = numErrors;
+        mFirstErrorX = firstErrorX;
+        mFinalFrame = finalFrame;
+    }
+
+    public int getPlotId() {
+        return mPlotId;
+    }
+
+    public PlotSeries getSeries() {
+        return mSeries;
+    }
+
+    public double[] getXScreenVals() {
+        return mXScreenVals;
+    }
+
+    public double[] getYScreenVals() {
+        return mYScreenVals;
+    }
+
+    public int getNumPoints() {
+        return mNumPoints;
+    }
+
+    public int[] getSegmentEnds() {
+        return mSegmentEnds;
+    }
+
+    public int getNumSegments() {
+        return mNumSegments;
+    }
+
+    public int getNumSamples() {
+        return mNumSamples;
+    }
+
+    public int getNumSolved() {
+        return mNumSolved;
+    }
+
+    public int getNumCulled() {
+        return mNumCulled;
+    }
+
+    public int getNumErrors() {
+        return mNumErrors;
+    }
+
+    public double getFirstErrorX() {
+        return mFirstErrorX;
+    }
+
+    public boolean isFinalFrame() {
+        return mFinalFrame;
+    }
+}
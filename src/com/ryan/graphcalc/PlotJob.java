@@ -0,0 +1,203 @@
+/*
+ * PlotJob.java
+ * Samples a graph away from the JavaFX Application Thread. The first pass uses a step coarse enough to
+ * be solved almost instantly, then each pass halves the step until it reaches the requested one. Every
+ * pass reuses the points of the pass before it, so the passes together cost about the same as the
+ * last one alone. Frames are handed to a publisher at most once per MIN_FRAME_INTERVAL_NANOS, except
+ * the final frame which is always published. Every series of the job is sampled over the same x values
+ * in each pass, and each publish hands over one frame per series. Runs of points that interval
+ * arithmetic proves are off screen, or flat within one pixel row, are not solved at all
+ */
+package com.ryan.graphcalc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+public class PlotJob implements Runnable {
+    // the first pass has at least this many points
+    private static final int FIRST_PASS_POINTS = 256;
+
+    // shortest time between two published frames (about one frame at 60 fps)
+    private static final long MIN_FRAME_INTERVAL_NANOS = 16000000L;
+
+    // how far in pixels a curve may bend inside an interval before the adaptive sampler splits it
+    private static final double ADAPTIVE_TOLERANCE_PIXELS = 0.5;
+
+    // widest the coarse step of the adaptive sampler may be in pixels. Samples are joined by lines, so
+    // they only need to be close enough for the sampler to notice where the curve bends
+    private static final double MAX_COARSE_STEP_PIXELS = 4;
+
+    // identifies this plot in the frames it publishes
+    private final int mPlotId;
+
+    // equations to plot, with the points already solved for each
+    private final List<PlotSeries> mSeries;
+
+    // graphs sampled before, shared by all windows
+    private final SampleCache mSampleCache;
+
+    // maps points to the plot area
+    private final PlotViewport mViewport;
+
+    // value to increment x for each point
+    private final double mStepSize;
+
+    // sample more points where the curve bends instead of using mStepSize everywhere
+    private final boolean mAdaptiveSampling;
+
+    // find where the curve bends from its second derivative instead of from the middle of each interval
+    private final boolean mCurvatureSampling;
+
+    // width of the drawn curve in pixels
+    private final double mLineWidth;
+
+    // receives the frames of every series once they are ready
+    private final Consumer<List<PlotFrame>> mPublisher;
+
+    // set when a newer plot replaces this one
+    private volatile boolean mCancelled;
+
+    public PlotJob(int plotId, List<PlotSeries> series, SampleCache sampleCache, PlotViewport viewport,
+                   double stepSize, boolean adaptiveSampling, boolean curvatureSampling, double lineWidth,
+                   Consumer<List<PlotFrame>> publisher) {
+        mPlotId = plotId;
+        mSeries = new ArrayList<>(series);
+        mSampleCache = sampleCache;
+        mViewport = viewport;
+        mStepSize = stepSize;
+        mAdaptiveSampling = adaptiveSampling;
+        mCurvatureSampling = curvatureSampling;
+        mLineWidth = lineWidth;
+        mPublisher = publisher;
+    }
+
+    // stop the job at the end of the pass it is working on
+    public void cancel() {
+        mCancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return mCancelled;
+    }
+
+    @Override
+    public void run() {
+        double start = mViewport.getStartX();
+        double end = mViewport.getEndX();
+        double scaleFactor = mViewport.getScaleFactor();
+
+        // adaptive sampling also depends on the pixel size, which changes with the scale factor, and the
+        // points that get culled depend on the y values that are on screen
+        String sampling = (mAdaptiveSampling ? (mCurvatureSampling ? "curvature " : "adaptive ") + scaleFactor : "fixed")
+                          + " culled to " + scaleFactor + " " + mViewport.getScreenHeight() + " " + mLineWidth;
+        IntervalCuller culler = new IntervalCuller(mViewport, mLineWidth);
+
+        // series sampled before are drawn straight from the cache, the rest are sampled together
+        List<PlotFrame> cachedFrames = new ArrayList<>();
+        List<PlotSeries> sampledSeries = new ArrayList<>();
+        List<SampleSegmentStore> segmentStores = new ArrayList<>();
+        List<SampleCache.Key> cacheKeys = new ArrayList<>();
+        for(PlotSeries series : mSeries) {
+            // points solved with FastTrig are not the same as full precision ones
+            CompiledEquation compiledEquation = series.getCompiledEquation();
+            SampleCache.Key cacheKey = new SampleCache.Key(compiledEquation.getNormalizedEquation(), start, end,
+                                                           mStepSize, compiledEquation.isFastTrig()
+                                                                      ? sampling + " fast trig" : sampling);
+            SampleBuffer cachedSamples = mSampleCache.get(cacheKey);
+            if(cachedSamples != null) {
+                cachedFrames.add(buildFrame(series, cachedSamples, 0, 0, true));
+            } else {
+                sampledSeries.add(series);
+                segmentStores.add(series.getSegmentStore());
+                cacheKeys.add(cacheKey);
+            }
+        }
+        if(sampledSeries.isEmpty()) {
+            mPublisher.accept(cachedFrames);
+            return;
+        }
+
+        // the adaptive sampler refines its coarse grid after the last pass
+        double finalStep = mAdaptiveSampling ? calcCoarseStep() : mStepSize;
+        double passStep = finalStep;
+        while((end - start) / (passStep * 2) >= FIRST_PASS_POINTS) {
+            passStep *= 2;
+        }
+
+        int[] numSolved = new int[sampledSeries.size()];
+        int[] numCulled = new int[sampledSeries.size()];
+        long lastPublishTime = 0;
+        while(!mCancelled) {
+            // only the points not solved by an earlier pass (or earlier plot), and not culled, get solved
+            ColumnarSampleBuffer samples = SampleSegmentStore.sample(segmentStores, start, end, passStep, culler);
+            for(int i = 0; i < numSolved.length; i++) {
+                numSolved[i] += segmentStores.get(i).getLastNumSolved();
+                // each pass culls the points of the one before again, so only the newest pass counts
+                numCulled[i] = segmentStores.get(i).getLastNumCulled();
+            }
+
+            if(passStep <= finalStep) {
+                List<PlotFrame> frames = new ArrayList<>(cachedFrames);
+                for(int i = 0; i < numSolved.length; i++) {
+                    SampleBuffer seriesSamples = samples.getColumn(i);
+                    if(mAdaptiveSampling) {
+                        // split intervals where the curve bends, never closer than mStepSize. The points
+                        // are joined by lines, so steep parts that are straight need no extra points, and
+                        // with curvature sampling the second derivative at the coarse points tells how
+                        // much each interval bends.
+                        // Intervals wider than the coarse step are runs that were culled
+                        AdaptiveSampler adaptiveSampler = new AdaptiveSampler(
+                                sampledSeries.get(i).getCompiledEquation(), mStepSize,
+                                ADAPTIVE_TOLERANCE_PIXELS / scaleFactor, Double.POSITIVE_INFINITY,
+                                finalStep * 1.5, mCurvatureSampling);
+                        seriesSamples = adaptiveSampler.refine(seriesSamples);
+                        numSolved[i] += adaptiveSampler.getNumEvaluations();
+                    }
+                    if(mCancelled) {
+                        return;
+                    }
+                    mSampleCache.put(cacheKeys.get(i), seriesSamples);
+                    frames.add(buildFrame(sampledSeries.get(i), seriesSamples, numSolved[i], numCulled[i], true));
+                }
+                mPublisher.accept(frames);
+                return;
+            }
+            if(System.nanoTime() - lastPublishTime >= MIN_FRAME_INTERVAL_NANOS) {
+                List<PlotFrame> frames = new ArrayList<>(cachedFrames);
+                for(int i = 0; i < numSolved.length; i++) {
+                    frames.add(buildFrame(sampledSeries.get(i), samples.getColumn(i), numSolved[i], numCulled[i],
+                                          false));
+                }
+                mPublisher.accept(frames);
+                lastPublishTime = System.nanoTime();
+            }
+            passStep /= 2;
+        }
+    }
+
+    // the largest power of two times mStepSize that is no wider than MAX_COARSE_STEP_PIXELS, so the
+    // points the adaptive sampler adds all land on the mStepSize grid
+    private double calcCoarseStep() {
+        double coarseStep = mStepSize;
+        while(coarseStep * 2 * mViewport.getScaleFactor() <= MAX_COARSE_STEP_PIXELS) {
+            coarseStep *= 2;
+        }
+        return coarseStep;
+    }
+
+    // map the samples of a series to screen coordinates and join them into the segments of its curve
+    private PlotFrame buildFrame(PlotSeries series, SampleBuffer samples, int numSolved, int numCulled,
+                                 boolean finalFrame) {
+        // points the equation has no answer for (outside its domain, or at a division by zero) come back
+        // as NaN or infinity instead of throwing, the builder counts them and breaks the curve there
+        PolylineBuilder polylineBuilder = new PolylineBuilder(series.getCompiledEquation(), mViewport, mLineWidth);
+        polylineBuilder.build(samples);
+        return new PlotFrame(mPlotId, series, polylineBuilder.getXScreenVals(), polylineBuilder.getYScreenVals(),
+                             polylineBuilder.getNumPoints(), polylineBuilder.getSegmentEnds(),
+                             polylineBuilder.getNumSegments(), samples.getNumPoints(),
+                             numSolved + polylineBuilder.getNumEvaluations(), numCulled,
+                             polylineBuilder.getNumErrors(),
+                             polylineBuilder.getFirstErrorX(), finalFrame);
+    }
+}
@@ -0,0 +1,20 @@
+/*
+ * PlotRenderer.java
+ * Draws the curve of a graph into the plot area of a GraphDisplayer window
+ */
+package com.ryan.graphcalc;
+
+import javafx.scene.Group;
+import javafx.scene.paint.Paint;
+
+public interface PlotRenderer {
+  // name shown in the graph settings menu
+  String getName();
+
+  // draw the first numSegments segments of the curve, joining the points of each one with lines. Segment
+  // i runs from segmentEnds[i - 1] (0 for the first) up to (not including) segmentEnds[i], a segment of
+  // one point is drawn as a dot. Coordinates are already in screen pixels, anything outside the plot
+  // area is cut off
+  void drawCurve(Group plotArea, double[] xScreenVals, double[] yScreenVals, int[] segmentEnds, int numSegments,
+                 Paint plotColor, double lineWidth, double plotWidth, double plotHeight);
+}
@@ -0,0 +1,35 @@
+/*
+ * PlotSeries.java
+ * One equation plotted in a graph window alongside others: the equation as typed, its compiled form
+ * and the points already solved for it
+ */
+package com.ryan.graphcalc;
+
+public class PlotSeries {
+    // the equation as it was typed
+    private final String mEquationLine;
+
+    // equation parsed into a tree, solved for each x value
+    private final CompiledEquation mCompiledEquation;
+
+    // points already solved for the equation, reused when the range or step changes
+    private final SampleSegmentStore mSegmentStore;
+
+    public PlotSeries(String equationLine, CompiledEquation compiledEquation, GraphSampler sampler) {
+        mEquationLine = equationLine;
+        mCompiledEquation = compiledEquation;
+        mSegmentStore = new SampleSegmentStore(compiledEquation, sampler);
+    }
+
+    public String getEquationLine() {
+        return mEquationLine;
+    }
+
+    public CompiledEquation getCompiledEquation() {
+        return mCompiledEquation;
+    }
+
+    public SampleSegmentStore getSegmentStore() {
+        return mSegmentStore;
+    }
+}
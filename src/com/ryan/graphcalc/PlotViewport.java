@@ -0,0 +1,77 @@
+/*
+ * PlotViewport.java
+ * Maps the x and y values of an equation to pixel coordinates inside the plot area of a graph window.
+ * The same scale factor is used for both axes, so the visible y range follows from the x range
+ */
+package com.ryan.graphcalc;
+
+public class PlotViewport {
+    // minimum value for x
+    private final double mStartX;
+
+    // maximum value for x
+    private final double mEndX;
+
+    // size of the plot area in pixels
+    private final double mScreenWidth;
+    private final double mScreenHeight;
+
+    // left margin for beginning of x-axis
+    private final double mLeftMargin;
+
+    // factor to multiply actual values to get their pixel values
+    private final double mScaleFactor;
+
+    public PlotViewport(double startX, double endX, double screenWidth, double screenHeight, double leftMargin) {
+        mStartX = startX;
+        mEndX = endX;
+        mScreenWidth = screenWidth;
+        mScreenHeight = screenHeight;
+        mLeftMargin = leftMargin;
+        // determine scale factor to map actual values to screen values
+        mScaleFactor = ((endX - startX) != 0.0) ? screenWidth / (endX - startX) : 1;
+    }
+
+    // x screen coordinate for an x value (coordinate system starts at top left for origin)
+    public double toScreenX(double xVal) {
+        return mScreenWidth / 2 + mLeftMargin + mScaleFactor * xVal;
+    }
+
+    // y screen coordinate for a y value
+    public double toScreenY(double yVal) {
+        return mScreenHeight / 2 + 1 - mScaleFactor * yVal;
+    }
+
+    // y value at a y screen coordinate, the opposite of toScreenY
+    public double fromScreenY(double yScreenVal) {
+        return (mScreenHeight / 2 + 1 - yScreenVal) / mScaleFactor;
+    }
+
+    // detect if a point in screen coordinates lands inside the plot area
+    public boolean isOnScreen(double xScreenVal, double yScreenVal) {
+        // NaN fails every comparison, so check for it separately
+        return !Double.isNaN(yScreenVal)
+                && xScreenVal >= 0 && xScreenVal < mScreenWidth
+                && yScreenVal >= 0 && yScreenVal < mScreenHeight;
+    }
+
+    public double getStartX() {
+        return mStartX;
+    }
+
+    public double getEndX() {
+        return mEndX;
+    }
+
+    public double getScreenWidth() {
+        return mScreenWidth;
+    }
+
+    public double getScreenHeight() {
+        return mScreenHeight;
+    }
+
+    public double getScaleFactor() {
+        return mScaleFactor;
+    }
+}
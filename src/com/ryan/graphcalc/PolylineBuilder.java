@@ -0,0 +1,233 @@
+/*
+ * PolylineBuilder.java
+ * Turns the samples of an equation into the line segments of its curve in screen coordinates. Each
+ * sample is joined to the next one unless the curve breaks between them: one of them has no answer
+ * (NaN or infinite), or the jump between them does not shrink when the interval between them is
+ * bisected, as at the asymptotes of tan(x). A continuous curve's jump halves with every bisection, a
+ * break stays as wide as it was. Lines are clipped to a band just taller than the plot area, so a line
+ * leaving the top or bottom keeps its slope while parts of the curve far off screen are dropped. Each
+ * segment is then reduced to at most four points per pixel column
+ */
+package com.ryan.graphcalc;
+
+import java.util.Arrays;
+
+public class PolylineBuilder {
+    // a jump between two neighbouring samples larger than this many pixels is bisected to find out if
+    // the curve is continuous across it
+    private static final double MAX_JUMP_PIXELS = 8;
+
+    // most bisections of a jump, enough for a continuous curve to shrink a jump of half a million pixels
+    private static final int MAX_BISECTIONS = 16;
+
+    // equation the samples belong to, solved again in between samples that jump
+    private final CompiledEquation mCompiledEquation;
+
+    // scratch space for solving the equation at one x value, kept between calls
+    private final double[] mDerivatives;
+
+    // maps the samples to the plot area
+    private final PlotViewport mViewport;
+
+    // y screen coordinates lines are clipped to, a line width beyond the plot area so no line ends show
+    private final double mTopY;
+    private final double mBottomY;
+
+    // points of the segments, segment i runs from the end of segment i - 1 (0 for the first) up to
+    // (not including) mSegmentEnds[i]
+    private double[] mXScreenVals;
+    private double[] mYScreenVals;
+    private int mNumPoints;
+    private int[] mSegmentEnds;
+    private int mNumSegments;
+
+    // first point of the segment being built
+    private int mSegmentStart;
+
+    // number of samples with no answer, and the smallest x of them (NaN if none)
+    private int mNumErrors;
+    private double mFirstErrorX;
+
+    // number of times the equation was solved to check jumps
+    private int mNumEvaluations;
+
+    public PolylineBuilder(CompiledEquation compiledEquation, PlotViewport viewport, double lineWidth) {
+        mCompiledEquation = compiledEquation;
+        mDerivatives = new double[compiledEquation.getDerivativesLength()];
+        mViewport = viewport;
+        mTopY = -lineWidth;
+        mBottomY = viewport.getScreenHeight() + lineWidth;
+    }
+
+    // build the segments of the curve through the samples, which must be in increasing order of x
+    public void build(SampleBuffer samples) {
+        double[] xVals = samples.getXVals();
+        double[] yVals = samples.getYVals();
+        int numSamples = samples.getNumPoints();
+
+        mXScreenVals = new double[Math.max(16, numSamples)];
+        mYScreenVals = new double[mXScreenVals.length];
+        mNumPoints = 0;
+        mSegmentEnds = new int[16];
+        mNumSegments = 0;
+        mSegmentStart = 0;
+        mNumErrors = 0;
+        mFirstErrorX = Double.NaN;
+        mNumEvaluations = 0;
+
+        // the sample before this one in value and screen coordinates, if it had an answer
+        boolean havePrevious = false;
+        double prevXVal = 0;
+        double prevYVal = 0;
+        double prevXScreenVal = 0;
+        double prevYScreenVal = 0;
+        // true if the segment being built ends at the previous sample, so a line from it continues it
+        boolean penDown = false;
+        for(int i = 0; i < numSamples; i++) {
+            double xVal = xVals[i];
+            double yVal = yVals[i];
+            if(!Double.isFinite(yVal)) {
+                // no answer here, the curve breaks on both sides of it
+                if(mNumErrors++ == 0) {
+                    mFirstErrorX = xVal;
+                }
+                endSegment();
+                havePrevious = false;
+                continue;
+            }
+            double xScreenVal = mViewport.toScreenX(xVal);
+            double yScreenVal = mViewport.toScreenY(yVal);
+
+            boolean offScreen = havePrevious && (prevYScreenVal < mTopY && yScreenVal < mTopY
+                                                 || prevYScreenVal > mBottomY && yScreenVal > mBottomY);
+            if(offScreen) {
+                // the whole line is above or below the plot area
+                endSegment();
+                penDown = false;
+            } else if(!havePrevious || !isContinuous(prevXVal, prevYVal, xVal, yVal, yScreenVal - prevYScreenVal)) {
+                // a new segment starts here, a point on its own still gets drawn
+                endSegment();
+                penDown = isInBand(yScreenVal);
+                if(penDown) {
+                    addPoint(xScreenVal, yScreenVal);
+                }
+            } else {
+                // clip the line to the band, moving an end that is outside it onto its edge
+                if(!penDown) {
+                    endSegment();
+                    double clippedY = clampToBand(prevYScreenVal);
+                    addPoint(interpolateX(prevXScreenVal, prevYScreenVal, xScreenVal, yScreenVal, clippedY),
+                             clippedY);
+                }
+                penDown = isInBand(yScreenVal);
+                double clippedY = clampToBand(yScreenVal);
+                addPoint(interpolateX(prevXScreenVal, prevYScreenVal, xScreenVal, yScreenVal, clippedY), clippedY);
+            }
+            havePrevious = true;
+            prevXVal = xVal;
+            prevYVal = yVal;
+            prevXScreenVal = xScreenVal;
+            prevYScreenVal = yScreenVal;
+        }
+        endSegment();
+    }
+
+    public double[] getXScreenVals() {
+        return mXScreenVals;
+    }
+
+    public double[] getYScreenVals() {
+        return mYScreenVals;
+    }
+
+    public int getNumPoints() {
+        return mNumPoints;
+    }
+
+    public int[] getSegmentEnds() {
+        return mSegmentEnds;
+    }
+
+    public int getNumSegments() {
+        return mNumSegments;
+    }
+
+    public int getNumErrors() {
+        return mNumErrors;
+    }
+
+    public double getFirstErrorX() {
+        return mFirstErrorX;
+    }
+
+    public int getNumEvaluations() {
+        return mNumEvaluations;
+    }
+
+    // detect if the curve is continuous between two samples that are jumpPixels apart on screen. The
+    // half of the interval with the larger jump is bisected until the jump is small enough to draw as a
+    // line, or the bisections run out with the jump still there
+    private boolean isContinuous(double x0, double y0, double x1, double y1, double jumpPixels) {
+        double scaleFactor = mViewport.getScaleFactor();
+        for(int i = 0; i < MAX_BISECTIONS && Math.abs(jumpPixels) > MAX_JUMP_PIXELS; i++) {
+            double xMid = (x0 + x1) / 2;
+            double yMid = mCompiledEquation.evaluate(xMid, mDerivatives);
+            mNumEvaluations++;
+            if(!Double.isFinite(yMid)) {
+                return false;
+            }
+            if(Math.abs(yMid - y0) >= Math.abs(y1 - yMid)) {
+                x1 = xMid;
+                y1 = yMid;
+            } else {
+                x0 = xMid;
+                y0 = yMid;
+            }
+            jumpPixels = (y1 - y0) * scaleFactor;
+        }
+        return Math.abs(jumpPixels) <= MAX_JUMP_PIXELS;
+    }
+
+    private boolean isInBand(double yScreenVal) {
+        return yScreenVal >= mTopY && yScreenVal <= mBottomY;
+    }
+
+    private double clampToBand(double yScreenVal) {
+        return Math.max(mTopY, Math.min(mBottomY, yScreenVal));
+    }
+
+    // x where the line from (x0, y0) to (x1, y1) reaches y, which lies between y0 and y1
+    private static double interpolateX(double x0, double y0, double x1, double y1, double y) {
+        if(y == y1) {
+            return x1;
+        }
+        if(y == y0) {
+            return x0;
+        }
+        return x0 + (x1 - x0) * ((y - y0) / (y1 - y0));
+    }
+
+    // add a point to the end of the segment being built
+    private void addPoint(double xScreenVal, double yScreenVal) {
+        if(mNumPoints == mXScreenVals.length) {
+            mXScreenVals = Arrays.copyOf(mXScreenVals, mNumPoints * 2);
+            mYScreenVals = Arrays.copyOf(mYScreenVals, mNumPoints * 2);
+        }
+        mXScreenVals[mNumPoints] = xScreenVal;
+        mYScreenVals[mNumPoints] = yScreenVal;
+        mNumPoints++;
+    }
+
+    // finish the segment being built, if it has any points, keeping at most four of them per pixel column
+    private void endSegment() {
+        if(mNumPoints == mSegmentStart) {
+            return;
+        }
+        mNumPoints = PixelDecimator.decimate(mXScreenVals, mYScreenVals, mSegmentStart, mNumPoints);
+        if(mNumSegments == mSegmentEnds.length) {
+            mSegmentEnds = Arrays.copyOf(mSegmentEnds, mNumSegments * 2);
+        }
+        mSegmentEnds[mNumSegments++] = mNumPoints;
+        mSegmentStart = mNumPoints;
+    }
+}
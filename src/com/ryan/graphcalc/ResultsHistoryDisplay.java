@@ -52,13 +52,19 @@ public class ResultsHistoryDisplay {
 
         // read the last 5 answers from the answer history queue
         Double[] lastAnswers = calc.getAnswersHistory();
+        String[] lastErrors = calc.getErrorsHistory();
         // build answer string
         String answersOutput = "";
         int startAnswer = Math.max(lastAnswers.length - 5, 0);
         for(int i = startAnswer; i < lastAnswers.length; i++) {
             // add equations to every line
             answersOutput += " \n";
-            answersOutput += ((lastAnswers[i] == null)? "  " : lastAnswers[i]) + "\n";
+            // an equation that could not be solved shows why instead
+            if(lastErrors[i] != null) {
+                answersOutput += lastErrors[i] + "\n";
+            } else {
+                answersOutput += ((lastAnswers[i] == null)? "  " : lastAnswers[i]) + "\n";
+            }
         }
         // use equation string as text of equation label
         Label answersLabel = new Label(answersOutput);
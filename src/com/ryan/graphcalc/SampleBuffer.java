@@ -0,0 +1,34 @@
+/*
+ * SampleBuffer.java
+ * The points of a graph stored in primitive arrays, x values in one and their y values in the other
+ */
+package com.ryan.graphcalc;
+
+public class SampleBuffer {
+    // x value of each point
+    private final double[] xVals;
+
+    // y value of each point, NaN where the equation has no answer
+    private final double[] yVals;
+
+    // number of points stored
+    private final int numPoints;
+
+    public SampleBuffer(double[] xVals, double[] yVals, int numPoints) {
+        this.xVals = xVals;
+        this.yVals = yVals;
+        this.numPoints = numPoints;
+    }
+
+    public double[] getXVals() {
+        return xVals;
+    }
+
+    public double[] getYVals() {
+        return yVals;
+    }
+
+    public int getNumPoints() {
+        return numPoints;
+    }
+}
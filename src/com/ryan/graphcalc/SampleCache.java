@@ -0,0 +1,138 @@
+/*
+ * SampleCache.java
+ * Keeps the most recently used sampled graphs so plotting the same equation over the same range and
+ * step again does not have to solve it again. The cache is bounded by the memory the sample arrays
+ * take up, the least recently used graphs are dropped first
+ */
+package com.ryan.graphcalc;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class SampleCache {
+    // bytes stored per point, one double for x and one for y
+    private static final long BYTES_PER_POINT = 2 * Double.BYTES;
+
+    // most memory the cached sample arrays may take up
+    private final long mMaxBytes;
+
+    // cached graphs, iteration order goes from least to most recently used
+    private final LinkedHashMap<Key, SampleBuffer> mEntries = new LinkedHashMap<>(16, 0.75f, true);
+
+    // memory taken up by the cached sample arrays
+    private long mUsedBytes;
+
+    // counters for how well the cache is working
+    private long mHits;
+    private long mMisses;
+    private long mEvictions;
+
+    public SampleCache(long maxBytes) {
+        mMaxBytes = maxBytes;
+    }
+
+    // return the cached graph for the key, or null if it has to be sampled
+    public synchronized SampleBuffer get(Key key) {
+        SampleBuffer samples = mEntries.get(key);
+        if(samples == null) {
+            mMisses++;
+        } else {
+            mHits++;
+        }
+        return samples;
+    }
+
+    // add a sampled graph, dropping the least recently used ones until it fits
+    public synchronized void put(Key key, SampleBuffer samples) {
+        long entryBytes = sizeOf(samples);
+        // a graph bigger than the whole cache would only push everything else out
+        if(entryBytes > mMaxBytes) {
+            return;
+        }
+        SampleBuffer replaced = mEntries.put(key, samples);
+        if(replaced != null) {
+            mUsedBytes -= sizeOf(replaced);
+        }
+        mUsedBytes += entryBytes;
+
+        Iterator<Map.Entry<Key, SampleBuffer>> iterator = mEntries.entrySet().iterator();
+        while(mUsedBytes > mMaxBytes && iterator.hasNext()) {
+            Map.Entry<Key, SampleBuffer> eldest = iterator.next();
+            if(eldest.getKey().equals(key)) {
+                continue;
+            }
+            mUsedBytes -= sizeOf(eldest.getValue());
+            iterator.remove();
+            mEvictions++;
+        }
+    }
+
+    public synchronized long getHits() {
+        return mHits;
+    }
+
+    public synchronized long getMisses() {
+        return mMisses;
+    }
+
+    public synchronized long getEvictions() {
+        return mEvictions;
+    }
+
+    public synchronized long getUsedBytes() {
+        return mUsedBytes;
+    }
+
+    public synchronized int size() {
+        return mEntries.size();
+    }
+
+    // memory taken up by a graph's sample arrays
+    private static long sizeOf(SampleBuffer samples) {
+        return samples.getXVals().length * BYTES_PER_POINT;
+    }
+
+    // identifies a sampled graph: the equation, the range and step it was sampled over, and how
+    public static final class Key {
+        private final String equation;
+        private final double start;
+        private final double end;
+        private final double step;
+        private final String sampling;
+
+        // equation should be normalized so equivalent ways of typing it share one entry
+        public Key(String equation, double start, double end, double step, String sampling) {
+            this.equation = equation;
+            this.start = start;
+            this.end = end;
+            this.step = step;
+            this.sampling = sampling;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if(this == other) {
+                return true;
+            }
+            if(!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return Double.compare(start, key.start) == 0
+                    && Double.compare(end, key.end) == 0
+                    && Double.compare(step, key.step) == 0
+                    && equation.equals(key.equation)
+                    && sampling.equals(key.sampling);
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = equation.hashCode();
+            hash = 31 * hash + Double.hashCode(start);
+            hash = 31 * hash + Double.hashCode(end);
+            hash = 31 * hash + Double.hashCode(step);
+            return 31 * hash + sampling.hashCode();
+        }
+    }
+}
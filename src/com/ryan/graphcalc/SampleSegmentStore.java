@@ -0,0 +1,412 @@
+/*
+ * SampleSegmentStore.java
+ * Remembers the points already solved for one equation so a new range or step only has to solve
+ * the points that were not solved before. Points sit on a grid anchored at x = 0 (point k is at
+ * x = k * step), so ranges that overlap share the same x values. Each grid keeps its solved points
+ * as segments of consecutive grid indexes. The stores of several equations can be sampled together,
+ * each still only solving the points it is missing. An equation that is part of another one, like an
+ * equation and its derivative, is solved in the same pass as it. An IntervalCuller can rule out points
+ * that need no answer at all, those are neither solved nor remembered
+ */
+package com.ryan.graphcalc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+public class SampleSegmentStore {
+    // number of different step sizes remembered
+    private static final int MAX_GRIDS = 4;
+
+    // most points remembered across all grids
+    private static final long MAX_STORED_POINTS = 2000000;
+
+    // how close a ratio of two step sizes must be to a whole number for their grids to line up
+    private static final double GRID_RATIO_TOLERANCE = 1e-9;
+
+    // equation the points belong to
+    private final CompiledEquation mCompiledEquation;
+
+    // solves the points that are missing
+    private final GraphSampler mSampler;
+
+    // segments for each step size, keyed by the grid index of their first point. The grids are kept
+    // in order from least to most recently used
+    private final LinkedHashMap<Double, TreeMap<Long, Segment>> mGrids = new LinkedHashMap<>(8, 0.75f, true);
+
+    // number of points solved / reused / culled by the last call to sample
+    private int mLastNumSolved;
+    private int mLastNumReused;
+    private int mLastNumCulled;
+
+    public SampleSegmentStore(CompiledEquation compiledEquation, GraphSampler sampler) {
+        mCompiledEquation = compiledEquation;
+        mSampler = sampler;
+    }
+
+    // first grid index at or after x
+    public static long firstGridIndex(double xVal, double step) {
+        // small tolerance so a value that is a multiple of step lands on its own index
+        return (long) Math.ceil(xVal / step - 1e-9);
+    }
+
+    // return the grid points in [start, end), solving only the ones not already known
+    public SampleBuffer sample(double start, double end, double step) {
+        return sample(Collections.singletonList(this), start, end, step).getColumn(0);
+    }
+
+    // return the grid points in [start, end) of every store's equation, one column per store in the same
+    // order. Each store only solves the points it does not already know. Stores missing the same points
+    // are solved in one pass, so the parts their equations have in common are solved once per x value. So
+    // are stores whose equation is part of another one's, which costs nothing extra where both need points
+    public static ColumnarSampleBuffer sample(List<SampleSegmentStore> stores, double start, double end,
+                                              double step) {
+        return sample(stores, start, end, step, null);
+    }
+
+    // sample the stores like above, leaving out the points culler proves each equation does not have to be
+    // solved at. A null culler solves every point
+    public static ColumnarSampleBuffer sample(List<SampleSegmentStore> stores, double start, double end,
+                                              double step, IntervalCuller culler) {
+        long firstIndex = firstGridIndex(start, step);
+        int numPoints = (int) Math.max(0, firstGridIndex(end, step) - firstIndex);
+        double[] xVals = new double[numPoints];
+        for(int i = 0; i < numPoints; i++) {
+            xVals[i] = (firstIndex + i) * step;
+        }
+
+        // copy the points each store already knows, and cull the ones it does not
+        double[][] yColumns = new double[stores.size()][];
+        boolean[][] knownColumns = new boolean[stores.size()][];
+        boolean[][] culledColumns = (culler != null) ? new boolean[stores.size()][] : null;
+        // points each store does not have to solve, known or culled
+        boolean[][] skippedColumns = new boolean[stores.size()][];
+        for(int s = 0; s < stores.size(); s++) {
+            yColumns[s] = new double[numPoints];
+            knownColumns[s] = new boolean[numPoints];
+            stores.get(s).copyKnownPoints(step, firstIndex, yColumns[s], knownColumns[s]);
+            skippedColumns[s] = knownColumns[s];
+            if(culler != null) {
+                culledColumns[s] = new boolean[numPoints];
+                culler.cull(stores.get(s).mCompiledEquation.getRoot(), xVals, knownColumns[s], culledColumns[s]);
+                skippedColumns[s] = new boolean[numPoints];
+                for(int i = 0; i < numPoints; i++) {
+                    skippedColumns[s][i] = knownColumns[s][i] || culledColumns[s][i];
+                }
+            }
+        }
+
+        // share the trees of the stores with each other, so an equation that is part of another store's
+        // equation is the very same node in both
+        Map<EquationNode, EquationNode> sharedNodes = new HashMap<>();
+        EquationNode[] roots = new EquationNode[stores.size()];
+        List<Set<EquationNode>> parts = new ArrayList<>(stores.size());
+        for(int s = 0; s < stores.size(); s++) {
+            roots[s] = stores.get(s).mCompiledEquation.getRoot().share(sharedNodes);
+            Set<EquationNode> storeParts = Collections.newSetFromMap(new IdentityHashMap<>());
+            addParts(roots[s], storeParts);
+            parts.add(storeParts);
+        }
+
+        // solve the rest, grouping the stores that are missing exactly the same points, or whose equation
+        // is part of the equation of a store already in the group
+        boolean[] grouped = new boolean[stores.size()];
+        for(int s = 0; s < stores.size(); s++) {
+            if(grouped[s]) {
+                continue;
+            }
+            List<Integer> group = new ArrayList<>();
+            group.add(s);
+            grouped[s] = true;
+            // every store added can bring in more, so go over the rest until none is added
+            boolean added = true;
+            while(added) {
+                added = false;
+                for(int t = s + 1; t < stores.size(); t++) {
+                    if(!grouped[t] && belongsInGroup(group, roots, parts, skippedColumns, t)) {
+                        group.add(t);
+                        grouped[t] = true;
+                        added = true;
+                    }
+                }
+            }
+            solveMissing(stores, group, xVals, yColumns, skippedColumns);
+        }
+
+        for(int s = 0; s < stores.size(); s++) {
+            stores.get(s).addSamples(step, firstIndex, yColumns[s], knownColumns[s],
+                                     (culler != null) ? culledColumns[s] : null);
+        }
+        return new ColumnarSampleBuffer(xVals, yColumns, numPoints, culledColumns);
+    }
+
+    // detect if store t is missing the same points as the first store of the group, or if one of the
+    // equations of t and a store in the group is part of the other
+    private static boolean belongsInGroup(List<Integer> group, EquationNode[] roots, List<Set<EquationNode>> parts,
+                                          boolean[][] skippedColumns, int t) {
+        if(Arrays.equals(skippedColumns[group.get(0)], skippedColumns[t])) {
+            return true;
+        }
+        for(int s : group) {
+            if(parts.get(s).contains(roots[t]) || parts.get(t).contains(roots[s])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // add node and every node below it
+    private static void addParts(EquationNode node, Set<EquationNode> parts) {
+        if(parts.add(node)) {
+            for(EquationNode operand : node.getOperands()) {
+                addParts(operand, parts);
+            }
+        }
+    }
+
+    // solve the points that are not known (or culled) for each store of the group, putting them in place
+    // in yColumns. The points any store of the group is missing are solved for all of them, but each store
+    // only keeps the ones it was missing
+    private static void solveMissing(List<SampleSegmentStore> stores, List<Integer> group, double[] xVals,
+                                     double[][] yColumns, boolean[][] skippedColumns) {
+        boolean[] known = new boolean[xVals.length];
+        Arrays.fill(known, true);
+        for(int s : group) {
+            for(int i = 0; i < known.length; i++) {
+                known[i] &= skippedColumns[s][i];
+            }
+        }
+        int numMissing = 0;
+        for(boolean isKnown : known) {
+            if(!isKnown) { numMissing++; }
+        }
+        if(numMissing == 0) {
+            return;
+        }
+        // gather the points that are still missing, solve them together and put them back in place
+        double[] missingXVals = new double[numMissing];
+        int missingIndex = 0;
+        for(int i = 0; i < known.length; i++) {
+            if(!known[i]) { missingXVals[missingIndex++] = xVals[i]; }
+        }
+        double[][] missingYColumns = new double[group.size()][numMissing];
+        GraphSampler sampler = stores.get(group.get(0)).mSampler;
+        if(group.size() == 1) {
+            sampler.evaluate(stores.get(group.get(0)).mCompiledEquation, missingXVals, missingYColumns[0], numMissing);
+        } else {
+            List<EquationNode> roots = new ArrayList<>(group.size());
+            for(int s : group) {
+                roots.add(stores.get(s).mCompiledEquation.getRoot());
+            }
+            sampler.evaluate(new EquationDag(roots), missingXVals, missingYColumns, numMissing);
+        }
+        for(int g = 0; g < group.size(); g++) {
+            double[] yVals = yColumns[group.get(g)];
+            boolean[] skipped = skippedColumns[group.get(g)];
+            missingIndex = 0;
+            for(int i = 0; i < known.length; i++) {
+                if(known[i]) {
+                    continue;
+                }
+                // points the store already knew or culled are left as they are
+                if(!skipped[i]) { yVals[i] = missingYColumns[g][missingIndex]; }
+                missingIndex++;
+            }
+        }
+    }
+
+    // copy the points that are already known from the requested grid and any grid that lines up with it
+    private synchronized void copyKnownPoints(double step, long firstIndex, double[] yVals, boolean[] known) {
+        for(Map.Entry<Double, TreeMap<Long, Segment>> grid : mGrids.entrySet()) {
+            copyGridPoints(grid.getKey(), grid.getValue(), step, firstIndex, yVals, known);
+        }
+    }
+
+    // remember the points of a finished sample, known marks the ones that did not have to be solved.
+    // Culled points have no answer to remember, so each run of points between them is a segment of its
+    // own. culled is null if no points were culled
+    private synchronized void addSamples(double step, long firstIndex, double[] yVals, boolean[] known,
+                                         boolean[] culled) {
+        int numReused = 0;
+        int numCulled = 0;
+        for(int i = 0; i < yVals.length; i++) {
+            if(known[i]) { numReused++; }
+            if(culled != null && culled[i]) { numCulled++; }
+        }
+        mLastNumSolved = yVals.length - numReused - numCulled;
+        mLastNumReused = numReused;
+        mLastNumCulled = numCulled;
+        if(numCulled == 0) {
+            if(yVals.length > 0) {
+                addSegment(step, new Segment(firstIndex, yVals));
+            }
+            return;
+        }
+        int runStart = 0;
+        while(runStart < yVals.length) {
+            if(culled[runStart]) {
+                runStart++;
+                continue;
+            }
+            int runEnd = runStart + 1;
+            while(runEnd < yVals.length && !culled[runEnd]) {
+                runEnd++;
+            }
+            addSegment(step, new Segment(firstIndex + runStart, Arrays.copyOfRange(yVals, runStart, runEnd)));
+            runStart = runEnd;
+        }
+    }
+
+    // number of points the last call to sample had to solve
+    public synchronized int getLastNumSolved() {
+        return mLastNumSolved;
+    }
+
+    // number of points the last call to sample reused
+    public synchronized int getLastNumReused() {
+        return mLastNumReused;
+    }
+
+    // number of points the last call to sample did not have to solve because they were culled
+    public synchronized int getLastNumCulled() {
+        return mLastNumCulled;
+    }
+
+    // copy the known points of one grid to the requested grid where their x values are the same
+    private static void copyGridPoints(double gridStep, TreeMap<Long, Segment> segments, double step,
+                                        long firstIndex, double[] yVals, boolean[] known) {
+        long endIndex = firstIndex + yVals.length;
+        if(gridStep == step) {
+            // same grid, copy the part of each segment that overlaps the range
+            for(Segment segment : segments.values()) {
+                long from = Math.max(firstIndex, segment.firstIndex);
+                long to = Math.min(endIndex, segment.endIndex());
+                for(long k = from; k < to; k++) {
+                    yVals[(int) (k - firstIndex)] = segment.yVals[(int) (k - segment.firstIndex)];
+                    known[(int) (k - firstIndex)] = true;
+                }
+            }
+            return;
+        }
+        long coarseRatio = wholeRatio(gridStep, step);
+        if(coarseRatio > 1) {
+            // stored grid is coarser, its point j is point j * coarseRatio of the requested grid
+            for(Segment segment : segments.values()) {
+                long from = Math.max(segment.firstIndex, ceilDiv(firstIndex, coarseRatio));
+                long to = Math.min(segment.endIndex(), ceilDiv(endIndex, coarseRatio));
+                for(long j = from; j < to; j++) {
+                    int i = (int) (j * coarseRatio - firstIndex);
+                    if(!known[i]) {
+                        yVals[i] = segment.yVals[(int) (j - segment.firstIndex)];
+                        known[i] = true;
+                    }
+                }
+            }
+            return;
+        }
+        long fineRatio = wholeRatio(step, gridStep);
+        if(fineRatio > 1) {
+            // stored grid is finer, point k of the requested grid is its point k * fineRatio
+            for(Segment segment : segments.values()) {
+                long from = Math.max(firstIndex, ceilDiv(segment.firstIndex, fineRatio));
+                long to = Math.min(endIndex, ceilDiv(segment.endIndex(), fineRatio));
+                for(long k = from; k < to; k++) {
+                    int i = (int) (k - firstIndex);
+                    if(!known[i]) {
+                        yVals[i] = segment.yVals[(int) (k * fineRatio - segment.firstIndex)];
+                        known[i] = true;
+                    }
+                }
+            }
+        }
+    }
+
+    // add a segment to a grid, merging it with segments it overlaps or touches
+    private void addSegment(double step, Segment segment) {
+        TreeMap<Long, Segment> segments = mGrids.get(step);
+        if(segments == null) {
+            segments = new TreeMap<>();
+            mGrids.put(step, segments);
+        }
+        long from = segment.firstIndex;
+        long to = segment.endIndex();
+        ArrayList<Segment> touching = new ArrayList<>();
+        for(Segment other : segments.values()) {
+            if(other.firstIndex <= to && other.endIndex() >= from) {
+                touching.add(other);
+                from = Math.min(from, other.firstIndex);
+                to = Math.max(to, other.endIndex());
+            }
+        }
+        // segments that touch are joined into one covering all of them, the new points win
+        double[] mergedYVals = new double[(int) (to - from)];
+        for(Segment other : touching) {
+            System.arraycopy(other.yVals, 0, mergedYVals, (int) (other.firstIndex - from), other.yVals.length);
+            segments.remove(other.firstIndex);
+        }
+        System.arraycopy(segment.yVals, 0, mergedYVals, (int) (segment.firstIndex - from), segment.yVals.length);
+        Segment merged = new Segment(from, mergedYVals);
+        segments.put(from, merged);
+        trim(step, merged);
+    }
+
+    // drop old grids, then other segments of the current grid, until the store fits its limits
+    private void trim(double currentStep, Segment currentSegment) {
+        Iterator<Map.Entry<Double, TreeMap<Long, Segment>>> gridIterator = mGrids.entrySet().iterator();
+        while(gridIterator.hasNext() && (mGrids.size() > MAX_GRIDS || countStoredPoints() > MAX_STORED_POINTS)) {
+            if(gridIterator.next().getKey() != currentStep) {
+                gridIterator.remove();
+            }
+        }
+        if(countStoredPoints() > MAX_STORED_POINTS) {
+            TreeMap<Long, Segment> segments = mGrids.get(currentStep);
+            segments.clear();
+            segments.put(currentSegment.firstIndex, currentSegment);
+        }
+    }
+
+    private long countStoredPoints() {
+        long numStored = 0;
+        for(TreeMap<Long, Segment> segments : mGrids.values()) {
+            for(Segment segment : segments.values()) {
+                numStored += segment.yVals.length;
+            }
+        }
+        return numStored;
+    }
+
+    // the whole number larger / smaller is, or 0 if it is not close to a whole number
+    private static long wholeRatio(double larger, double smaller) {
+        double ratio = larger / smaller;
+        long wholeRatio = Math.round(ratio);
+        return (Math.abs(ratio - wholeRatio) <= GRID_RATIO_TOLERANCE * ratio) ? wholeRatio : 0;
+    }
+
+    // divide rounding towards positive infinity
+    private static long ceilDiv(long dividend, long divisor) {
+        return -Math.floorDiv(-dividend, divisor);
+    }
+
+    // solved y values for consecutive grid indexes starting at firstIndex
+    private static class Segment {
+        private final long firstIndex;
+        private final double[] yVals;
+
+        Segment(long firstIndex, double[] yVals) {
+            this.firstIndex = firstIndex;
+            this.yVals = yVals;
+        }
+
+        long endIndex() {
+            return firstIndex + yVals.length;
+        }
+    }
+}
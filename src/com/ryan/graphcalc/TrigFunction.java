@@ -0,0 +1,208 @@
+/*
+ * TrigFunction.java
+ * Declaring an Enum type for the trigonometry functions that can be used in an equation
+ */
+package com.ryan.graphcalc;
+
+// each trig function has the name it is typed with in an equation
+public enum TrigFunction {
+    SIN("sin"),
+    COS("cos"),
+    TAN("tan");
+
+    // name of function as it appears in the equation
+    private final String funcName;
+
+    // enum constructor
+    TrigFunction(String funcName) {
+        this.funcName = funcName;
+    }
+
+    // return the function name
+    public String getFuncName() {
+        return funcName;
+    }
+
+    // solve the function for the given parameter
+    public double apply(double param) {
+        switch(this) {
+            // calculate sine
+            case SIN:
+                return Math.sin(param);
+            // calculate cosine
+            case COS:
+                return Math.cos(param);
+            // calculate tangent
+            case TAN:
+                return Math.tan(param);
+        }
+        return 0;
+    }
+
+    // solve the function for each parameter, the results replace the parameters
+    public void apply(double[] params, int length) {
+        apply(params, params, length);
+    }
+
+    // solve the function for each parameter, storing the results in results, which may be params
+    public void apply(double[] params, double[] results, int length) {
+        switch(this) {
+            case SIN:
+                for(int i = 0; i < length; i++) { results[i] = Math.sin(params[i]); }
+                break;
+            case COS:
+                for(int i = 0; i < length; i++) { results[i] = Math.cos(params[i]); }
+                break;
+            case TAN:
+                for(int i = 0; i < length; i++) { results[i] = Math.tan(params[i]); }
+                break;
+        }
+    }
+
+    // solve the function for each parameter along with its first and second derivatives, from the
+    // derivatives of the parameters. The results replace the parameters and their derivatives
+    public void applyDerivatives(double[] params, double[] dParams, double[] d2Params, int length, boolean fast) {
+        switch(this) {
+            case SIN:
+                // sin' = cos, sin'' = -sin
+                for(int i = 0; i < length; i++) {
+                    double sin = fast ? FastTrig.sin(params[i]) : Math.sin(params[i]);
+                    double cos = fast ? FastTrig.cos(params[i]) : Math.cos(params[i]);
+                    double dParam = dParams[i];
+                    params[i] = sin;
+                    dParams[i] = cos * dParam;
+                    d2Params[i] = cos * d2Params[i] - sin * dParam * dParam;
+                }
+                break;
+            case COS:
+                // cos' = -sin, cos'' = -cos
+                for(int i = 0; i < length; i++) {
+                    double sin = fast ? FastTrig.sin(params[i]) : Math.sin(params[i]);
+                    double cos = fast ? FastTrig.cos(params[i]) : Math.cos(params[i]);
+                    double dParam = dParams[i];
+                    params[i] = cos;
+                    dParams[i] = -sin * dParam;
+                    d2Params[i] = -sin * d2Params[i] - cos * dParam * dParam;
+                }
+                break;
+            case TAN:
+                // tan' = 1 + tan^2, tan'' = 2 tan (1 + tan^2)
+                for(int i = 0; i < length; i++) {
+                    double tan = fast ? FastTrig.tan(params[i]) : Math.tan(params[i]);
+                    double secSquared = 1 + tan * tan;
+                    double dParam = dParams[i];
+                    params[i] = tan;
+                    dParams[i] = secSquared * dParam;
+                    d2Params[i] = secSquared * d2Params[i] + 2 * tan * secSquared * dParam * dParam;
+                }
+                break;
+        }
+    }
+
+    // solve the function for one parameter stored with its first and second derivatives in the three
+    // positions from offset of derivatives, replacing them
+    public void applyDerivatives(double[] derivatives, int offset, boolean fast) {
+        double param = derivatives[offset];
+        double dParam = derivatives[offset + 1];
+        double d2Param = derivatives[offset + 2];
+        double y;
+        double dy;
+        double d2y;
+        switch(this) {
+            case SIN:
+                y = fast ? FastTrig.sin(param) : Math.sin(param);
+                dy = fast ? FastTrig.cos(param) : Math.cos(param);
+                d2y = -y;
+                break;
+            case COS:
+                y = fast ? FastTrig.cos(param) : Math.cos(param);
+                dy = -(fast ? FastTrig.sin(param) : Math.sin(param));
+                d2y = -y;
+                break;
+            default:
+                y = fast ? FastTrig.tan(param) : Math.tan(param);
+                dy = 1 + y * y;
+                d2y = 2 * y * dy;
+                break;
+        }
+        // chain rule, with dy and d2y the derivatives of the function at the parameter
+        derivatives[offset] = y;
+        derivatives[offset + 1] = dy * dParam;
+        derivatives[offset + 2] = dy * d2Param + d2y * dParam * dParam;
+    }
+
+    // solve the function with FastTrig, accurate enough for plotting but not for the calculator
+    public double applyFast(double param) {
+        switch(this) {
+            case SIN:
+                return FastTrig.sin(param);
+            case COS:
+                return FastTrig.cos(param);
+            case TAN:
+                return FastTrig.tan(param);
+        }
+        return 0;
+    }
+
+    // solve the function with FastTrig for each parameter, storing the results in results
+    public void applyFast(double[] params, double[] results, int length) {
+        switch(this) {
+            case SIN:
+                FastTrig.sin(params, results, length);
+                break;
+            case COS:
+                FastTrig.cos(params, results, length);
+                break;
+            case TAN:
+                FastTrig.tan(params, results, length);
+                break;
+        }
+    }
+
+    // the interval the function stays within for every parameter in param. Between its turning points
+    // each function only rises or only falls, and the Math functions are semi-monotonic, so the answers
+    // at the ends bound the ones in between. tan gives WHOLE if param includes an asymptote
+    public Interval apply(Interval param) {
+        if(!param.isFinite()) {
+            return Interval.WHOLE;
+        }
+        double answerLo = apply(param.getLo());
+        double answerHi = apply(param.getHi());
+        double lo = Math.min(answerLo, answerHi);
+        double hi = Math.max(answerLo, answerHi);
+        switch(this) {
+            case SIN:
+                // peaks at pi/2 + 2k pi, troughs at -pi/2 + 2k pi
+                return Interval.of(param.containsPeriodic(-Math.PI / 2, 2 * Math.PI) ? -1 : lo,
+                                   param.containsPeriodic(Math.PI / 2, 2 * Math.PI) ? 1 : hi);
+            case COS:
+                // peaks at 2k pi, troughs at pi + 2k pi
+                return Interval.of(param.containsPeriodic(Math.PI, 2 * Math.PI) ? -1 : lo,
+                                   param.containsPeriodic(0, 2 * Math.PI) ? 1 : hi);
+            case TAN:
+                // asymptotes at pi/2 + k pi, it rises everywhere in between
+                return param.containsPeriodic(Math.PI / 2, Math.PI) ? Interval.WHOLE : Interval.of(lo, hi);
+        }
+        return Interval.WHOLE;
+    }
+
+    // interval of the FastTrig function, the Math interval moved out by the most FastTrig can be off
+    public Interval applyFast(Interval param) {
+        Interval answers = apply(param);
+        if(this == TAN) {
+            return answers.widen(FastTrig.MAX_TAN_REL_ERROR
+                                 * Math.max(Math.abs(answers.getLo()), Math.abs(answers.getHi())));
+        }
+        return answers.widen(FastTrig.MAX_ABS_ERROR);
+    }
+
+    // look up a function by its name, null if there is no function with that name
+    public static TrigFunction fromName(String funcName) {
+        for(TrigFunction trigFunction : values()) {
+            if(trigFunction.funcName.equals(funcName)) {
+                return trigFunction;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * TrigFunctionNode.java
+ * A call to sin, cos or tan with the parameter inside its parentheses. Graphs can use the faster but
+ * less precise FastTrig functions instead of the Math ones
+ */
+package com.ryan.graphcalc;
+
+import java.util.Map;
+
+class TrigFunctionNode extends EquationNode {
+    // the function being called
+    private final TrigFunction trigFunction;
+
+    // parameter passed to the function
+    private final EquationNode param;
+
+    // true to solve with FastTrig instead of the full precision Math functions
+    private final boolean fastTrig;
+
+    public TrigFunctionNode(TrigFunction trigFunction, EquationNode param) {
+        this(trigFunction, param, false);
+    }
+
+    public TrigFunctionNode(TrigFunction trigFunction, EquationNode param, boolean fastTrig) {
+        this.trigFunction = trigFunction;
+        this.param = param;
+        this.fastTrig = fastTrig;
+    }
+
+    public TrigFunction getTrigFunction() {
+        return trigFunction;
+    }
+
+    public EquationNode getParam() {
+        return param;
+    }
+
+    public boolean isFastTrig() {
+        return fastTrig;
+    }
+
+    @Override
+    public double evaluate(double xVal) {
+        double paramVal = param.evaluate(xVal);
+        return fastTrig ? trigFunction.applyFast(paramVal) : trigFunction.apply(paramVal);
+    }
+
+    @Override
+    public void evaluate(double[] xVals, double[] yVals, int length, EvaluationBuffers buffers) {
+        param.evaluate(xVals, yVals, length, buffers);
+        if(fastTrig) {
+            trigFunction.applyFast(yVals, yVals, length);
+        } else {
+            trigFunction.apply(yVals, length);
+        }
+    }
+
+    @Override
+    public void evaluateDerivatives(double[] xVals, double[] yVals, double[] dyVals, double[] d2yVals,
+                                    int length, EvaluationBuffers buffers) {
+        param.evaluateDerivatives(xVals, yVals, dyVals, d2yVals, length, buffers);
+        trigFunction.applyDerivatives(yVals, dyVals, d2yVals, length, fastTrig);
+    }
+
+    @Override
+    public void evaluateDerivatives(double xVal, double[] derivatives, int offset) {
+        param.evaluateDerivatives(xVal, derivatives, offset);
+        trigFunction.applyDerivatives(derivatives, offset, fastTrig);
+    }
+
+    @Override
+    public Interval evaluateInterval(Interval xInterval) {
+        Interval paramInterval = param.evaluateInterval(xInterval);
+        return fastTrig ? trigFunction.applyFast(paramInterval) : trigFunction.apply(paramInterval);
+    }
+
+    @Override
+    public void emitBytecode(EquationClassWriter writer) throws Exception {
+        writer.emitNode(param);
+        writer.applyTrigFunction(trigFunction, fastTrig);
+    }
+
+    @Override
+    public boolean hasVariables() {
+        return param.hasVariables();
+    }
+
+    @Override
+    public EquationNode simplify() {
+        EquationNode simpleParam = param.simplify();
+        // function of a number, like sin(0.5), is solved once so it can use full precision
+        if(simpleParam instanceof ConstantNode) {
+            return new ConstantNode(trigFunction.apply(((ConstantNode) simpleParam).getValue()));
+        }
+        return (simpleParam == param) ? this : new TrigFunctionNode(trigFunction, simpleParam, fastTrig);
+    }
+
+    @Override
+    public int countNodes() {
+        return 1 + param.countNodes();
+    }
+
+    @Override
+    public EquationNode share(Map<EquationNode, EquationNode> sharedNodes) {
+        EquationNode sharedParam = param.share(sharedNodes);
+        return intern(sharedNodes, (sharedParam == param) ? this
+                                                          : new TrigFunctionNode(trigFunction, sharedParam, fastTrig));
+    }
+
+    @Override
+    public EquationNode[] getOperands() {
+        return new EquationNode[] {param};
+    }
+
+    @Override
+    public void evaluateFromOperands(double[] xVals, double[] operand0Vals, double[] operand1Vals,
+                                     double[] yVals, int length) {
+        if(fastTrig) {
+            trigFunction.applyFast(operand0Vals, yVals, length);
+        } else {
+            trigFunction.apply(operand0Vals, yVals, length);
+        }
+    }
+
+    @Override
+    public void evaluateDerivativesFromOperands(double[] xVals, double[][] operand0Vals, double[][] operand1Vals,
+                                                double[][] yVals, int length) {
+        for(int j = 0; j < 3; j++) {
+            System.arraycopy(operand0Vals[j], 0, yVals[j], 0, length);
+        }
+        trigFunction.applyDerivatives(yVals[0], yVals[1], yVals[2], length, fastTrig);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof TrigFunctionNode && ((TrigFunctionNode) other).trigFunction == trigFunction
+                && ((TrigFunctionNode) other).param == param && ((TrigFunctionNode) other).fastTrig == fastTrig;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (2 * trigFunction.ordinal() + (fastTrig ? 1 : 0)) + System.identityHashCode(param);
+    }
+
+    @Override
+    public String toString() {
+        return trigFunction.getFuncName() + "(" + param + ")";
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * VariableNode.java
+ * The x variable in an equation of the form y = f(x)
+ */
+package com.ryan.graphcalc;
+
+import java.util.Arrays;
+import java.util.Map;
+
+class VariableNode extends EquationNode {
+
+    @Override
+    public double evaluate(double xVal) {
+        return xVal;
+    }
+
+    @Override
+    public void evaluate(double[] xVals, double[] yVals, int length, EvaluationBuffers buffers) {
+        System.arraycopy(xVals, 0, yVals, 0, length);
+    }
+
+    @Override
+    public void evaluateDerivatives(double[] xVals, double[] yVals, double[] dyVals, double[] d2yVals,
+                                    int length, EvaluationBuffers buffers) {
+        System.arraycopy(xVals, 0, yVals, 0, length);
+        Arrays.fill(dyVals, 0, length, 1);
+        Arrays.fill(d2yVals, 0, length, 0);
+    }
+
+    @Override
+    public void evaluateDerivatives(double xVal, double[] derivatives, int offset) {
+        derivatives[offset] = xVal;
+        derivatives[offset + 1] = 1;
+        derivatives[offset + 2] = 0;
+    }
+
+    @Override
+    public Interval evaluateInterval(Interval xInterval) {
+        return xInterval;
+    }
+
+    @Override
+    public void emitBytecode(EquationClassWriter writer) {
+        writer.loadVariable();
+    }
+
+    @Override
+    public boolean hasVariables() {
+        return true;
+    }
+
+    @Override
+    public EquationNode simplify() {
+        return this;
+    }
+
+    @Override
+    public int countNodes() {
+        return 1;
+    }
+
+    @Override
+    public EquationNode share(Map<EquationNode, EquationNode> sharedNodes) {
+        return intern(sharedNodes, this);
+    }
+
+    @Override
+    public EquationNode[] getOperands() {
+        return NO_OPERANDS;
+    }
+
+    @Override
+    public void evaluateFromOperands(double[] xVals, double[] operand0Vals, double[] operand1Vals,
+                                     double[] yVals, int length) {
+        System.arraycopy(xVals, 0, yVals, 0, length);
+    }
+
+    @Override
+    public void evaluateDerivativesFromOperands(double[] xVals, double[][] operand0Vals, double[][] operand1Vals,
+                                                double[][] yVals, int length) {
+        System.arraycopy(xVals, 0, yVals[0], 0, length);
+        Arrays.fill(yVals[1], 0, length, 1);
+        Arrays.fill(yVals[2], 0, length, 0);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof VariableNode;
+    }
+
+    @Override
+    public int hashCode() {
+        return VariableNode.class.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "x";
+    }
+}
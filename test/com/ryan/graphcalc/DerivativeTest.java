@@ -0,0 +1,161 @@
+/*
+ * DerivativeTest.java
+ * Checks the automatic differentiation against finite differences, and that a derivative gives the same
+ * answers whichever way it is solved: one x value at a time, in batches, or in one pass with the equation
+ * it was found from
+ */
+package com.ryan.graphcalc;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DerivativeTest {
+    // equations covering every operator, trig, negative signs and parts that repeat
+    private static final String[] EQUATIONS = {
+            "3x^2 - 2x + 1",
+            "sin(x) * cos(2x) + tan(x / 4)",
+            "(x + 1)(x - 1) / (x * x + 1)",
+            "-x^3 + 2^x",
+            "x^x",
+            "sin(x)^2 + 2sin(x) + 1",
+            "-(x / 3)"
+    };
+
+    // x values away from poles and from where x^x stops being real
+    private static final double[] X_VALS = { 0.3, 0.75, 1, 1.5, 2.25, 3.1 };
+
+    // step of the central differences the derivatives are checked against
+    private static final double STEP = 1e-4;
+
+    private final EquationEngine engine = new EquationEngine();
+
+    @Test
+    void derivativesMatchFiniteDifferences() throws Exception {
+        for(String equation : EQUATIONS) {
+            CompiledEquation compiledEquation = engine.compile(equation);
+            double[] derivatives = new double[compiledEquation.getDerivativesLength()];
+            for(double xVal : X_VALS) {
+                compiledEquation.evaluateDerivatives(xVal, derivatives);
+                double y = compiledEquation.evaluate(xVal);
+                double yBefore = compiledEquation.evaluate(xVal - STEP);
+                double yAfter = compiledEquation.evaluate(xVal + STEP);
+                String message = "\"" + equation + "\" at x = " + xVal;
+                assertEquals(y, derivatives[0], 1e-12 * Math.max(1, Math.abs(y)), message);
+                double dy = (yAfter - yBefore) / (2 * STEP);
+                assertEquals(dy, derivatives[1], 1e-6 * Math.max(1, Math.abs(dy)), message);
+                double d2y = (yAfter - 2 * y + yBefore) / (STEP * STEP);
+                assertEquals(d2y, derivatives[2], 1e-3 * Math.max(1, Math.abs(d2y)), message);
+            }
+        }
+    }
+
+    @Test
+    void batchMatchesSingleValues() throws Exception {
+        for(String equation : EQUATIONS) {
+            CompiledEquation compiledEquation = engine.compile(equation);
+            double[][] batch = new double[3][X_VALS.length];
+            compiledEquation.evaluateDerivatives(X_VALS, batch[0], batch[1], batch[2], 0, X_VALS.length);
+            double[] derivatives = new double[compiledEquation.getDerivativesLength()];
+            for(int i = 0; i < X_VALS.length; i++) {
+                compiledEquation.evaluateDerivatives(X_VALS[i], derivatives);
+                for(int order = 0; order < 3; order++) {
+                    assertEquals(Double.doubleToRawLongBits(batch[order][i]),
+                                 Double.doubleToRawLongBits(derivatives[order]),
+                                 "\"" + equation + "\" order " + order + " at x = " + X_VALS[i]);
+                }
+            }
+        }
+    }
+
+    @Test
+    void derivativeEquationsMatchEveryWayOfSolving() throws Exception {
+        for(String equation : EQUATIONS) {
+            CompiledEquation compiledEquation = engine.compile(equation);
+            double[][] expected = new double[3][X_VALS.length];
+            compiledEquation.evaluateDerivatives(X_VALS, expected[0], expected[1], expected[2], 0, X_VALS.length);
+            for(int order = 1; order <= 2; order++) {
+                CompiledEquation derivative = compiledEquation.differentiate("y' = " + equation, order);
+                double[] batch = new double[X_VALS.length];
+                derivative.evaluate(X_VALS, batch, 0, X_VALS.length);
+                double[] scratch = new double[derivative.getDerivativesLength()];
+                for(int i = 0; i < X_VALS.length; i++) {
+                    String message = "\"" + equation + "\" order " + order + " at x = " + X_VALS[i];
+                    assertEquals(Double.doubleToRawLongBits(expected[order][i]),
+                                 Double.doubleToRawLongBits(derivative.evaluate(X_VALS[i])), message);
+                    assertEquals(Double.doubleToRawLongBits(expected[order][i]),
+                                 Double.doubleToRawLongBits(derivative.evaluate(X_VALS[i], scratch)), message);
+                    assertEquals(Double.doubleToRawLongBits(expected[order][i]),
+                                 Double.doubleToRawLongBits(batch[i]), message);
+                }
+            }
+        }
+    }
+
+    @Test
+    void equationIsSolvedOnceWithItsDerivatives() throws Exception {
+        for(String equation : EQUATIONS) {
+            // compiled separately, the way a graph window compiles a derivative, so sharing has to find
+            // the equation inside the derivatives
+            CompiledEquation compiledEquation = engine.compile(equation);
+            CompiledEquation firstDerivative = engine.compile(equation).differentiate("y'", 1);
+            CompiledEquation secondDerivative = engine.compile(equation).differentiate("y''", 2);
+            List<EquationNode> roots = Arrays.asList(compiledEquation.getRoot(), firstDerivative.getRoot(),
+                                                     secondDerivative.getRoot());
+            EquationDag dag = new EquationDag(roots);
+            assertEquals(compiledEquation.getNumSharedNodes() + 2, dag.getNumNodes(), equation);
+
+            double[][] yColumns = new double[3][X_VALS.length];
+            dag.evaluate(X_VALS, yColumns, 0, X_VALS.length);
+            CompiledEquation[] separate = { compiledEquation, firstDerivative, secondDerivative };
+            for(int e = 0; e < separate.length; e++) {
+                double[] expected = new double[X_VALS.length];
+                separate[e].evaluate(X_VALS, expected, 0, X_VALS.length);
+                for(int i = 0; i < X_VALS.length; i++) {
+                    assertEquals(Double.doubleToRawLongBits(expected[i]), Double.doubleToRawLongBits(yColumns[e][i]),
+                                 () -> "\"" + equation + "\" in one pass with its derivatives");
+                }
+            }
+        }
+    }
+
+    @Test
+    void storesOfAnEquationAndItsDerivativeAreSampledTogether() throws Exception {
+        GraphSampler sampler = new GraphSampler();
+        // far off screen except near x = 0, so most of the equation is culled but none of its derivative
+        String equation = "x^3 * 1000";
+        CompiledEquation compiledEquation = engine.compile(equation);
+        CompiledEquation derivative = engine.compile(equation).differentiate("y' = d/dx(" + equation + ")", 1);
+        List<SampleSegmentStore> stores = Arrays.asList(new SampleSegmentStore(compiledEquation, sampler),
+                                                        new SampleSegmentStore(derivative, sampler));
+        IntervalCuller culler = new IntervalCuller(new PlotViewport(-15, 15, 600, 600, 22), 2);
+        ColumnarSampleBuffer samples = SampleSegmentStore.sample(stores, -15, 15, 0.025, culler);
+        assertTrue(stores.get(0).getLastNumCulled() > 0);
+        assertEquals(0, stores.get(1).getLastNumCulled());
+
+        double[] xVals = samples.getXVals();
+        for(int i = 0; i < samples.getNumPoints(); i++) {
+            assertEquals(Double.doubleToRawLongBits(derivative.evaluate(xVals[i])),
+                         Double.doubleToRawLongBits(samples.getYVals(1)[i]), "x = " + xVals[i]);
+        }
+        // solving the culled points anyway for the derivative does not make the equation keep them
+        assertEquals(samples.getNumPoints(),
+                     stores.get(0).getLastNumSolved() + stores.get(0).getLastNumCulled());
+    }
+
+    @Test
+    void onlyFirstAndSecondDerivativesExist() throws Exception {
+        CompiledEquation compiledEquation = engine.compile("x^2");
+        assertThrows(IllegalArgumentException.class, () -> compiledEquation.differentiate("y'''", 3));
+        // a derivative of a derivative past the second is not known
+        double[] derivatives = new double[compiledEquation.differentiate("y''", 2).getDerivativesLength()];
+        compiledEquation.differentiate("y''", 2).evaluateDerivatives(1, derivatives);
+        assertEquals(2, derivatives[0], 0);
+        assertTrue(Double.isNaN(derivatives[1]) && Double.isNaN(derivatives[2]));
+    }
+}
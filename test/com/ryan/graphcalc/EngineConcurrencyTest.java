@@ -0,0 +1,108 @@
+/*
+ * EngineConcurrencyTest.java
+ * Stress test for sharing one EquationEngine, and the CompiledEquations it makes, between threads. The
+ * answers are first solved on a single thread, then many threads solve the same equations at once, the
+ * three ways the engine is used: straight from the string, from a shared compiled equation that the
+ * threads race to compile to bytecode, and from an equation compiled for each call. Every answer has to
+ * match bit for bit
+ */
+package com.ryan.graphcalc;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EngineConcurrencyTest {
+    // equations covering every operator, negative signs, nesting, implicit multiplication and trig
+    private static final String[] EQUATIONS = {
+            "2 + 3 * 4 - 5 / 2",
+            "-2^2 + (3 - -4) * 2",
+            "y = 3x^2 - 2x + 1",
+            "sin(x) * cos(2x) + tan(x / 4)",
+            "(x + 1)(x - 1) / (x * x + 1)",
+            "2(3 + x)^2 - x sin(x)",
+            "((((x + 1) * 2 - 3) / 4) ^ 2) - cos(sin(x))",
+            "1 / (x - 1.5)"
+    };
+
+    // x values each equation is solved for
+    private static final double[] X_VALS = { -3.75, -1, -0.1, 0, 0.5, 1.5, 2, 7.25 };
+
+    private static final int NUM_THREADS = 8;
+
+    // times each thread goes through every equation and x value
+    private static final int NUM_ROUNDS = 200;
+
+    @Test
+    void sharedEngineGivesIdenticalAnswers() throws Exception {
+        EquationEngine engine = new EquationEngine();
+        CompiledEquation[] compiledEquations = new CompiledEquation[EQUATIONS.length];
+        long[][] expected = new long[EQUATIONS.length][X_VALS.length];
+        for(int i = 0; i < EQUATIONS.length; i++) {
+            // compiled but not solved yet, so the threads race to compile them to bytecode
+            compiledEquations[i] = engine.compile(EQUATIONS[i]);
+            for(int j = 0; j < X_VALS.length; j++) {
+                expected[i][j] = Double.doubleToRawLongBits(engine.solve(EQUATIONS[i], X_VALS[j]));
+            }
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(NUM_THREADS);
+        try {
+            // every thread starts at once so they overlap as much as possible
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Integer>> results = new ArrayList<>();
+            for(int thread = 0; thread < NUM_THREADS; thread++) {
+                int firstEquation = thread;
+                Callable<Integer> solver = () -> {
+                    start.await();
+                    int numChecked = 0;
+                    for(int round = 0; round < NUM_ROUNDS; round++) {
+                        for(int k = 0; k < EQUATIONS.length; k++) {
+                            int i = (firstEquation + k) % EQUATIONS.length;
+                            for(int j = 0; j < X_VALS.length; j++) {
+                                double xVal = X_VALS[j];
+                                check(expected[i][j], engine.solve(EQUATIONS[i], xVal), i, xVal);
+                                check(expected[i][j], compiledEquations[i].evaluate(xVal), i, xVal);
+                                if(round % 20 == 0) {
+                                    check(expected[i][j], engine.compile(EQUATIONS[i]).evaluate(xVal), i, xVal);
+                                }
+                                numChecked++;
+                            }
+                        }
+                    }
+                    return numChecked;
+                };
+                results.add(executor.submit(solver));
+            }
+            start.countDown();
+            for(Future<Integer> result : results) {
+                // rethrows the first wrong answer the thread found
+                assertEquals(NUM_ROUNDS * EQUATIONS.length * X_VALS.length, result.get().intValue());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // the shared equations with x were solved by the generated classes by the end
+        for(CompiledEquation compiledEquation : compiledEquations) {
+            assertTrue(!EquationBytecodeCompiler.isEnabled() || !compiledEquation.hasVariables()
+                       || compiledEquation.isBytecodeCompiled(),
+                       compiledEquation.getEquationLine());
+        }
+    }
+
+    private static void check(long expected, double ans, int equation, double xVal) {
+        assertEquals(expected, Double.doubleToRawLongBits(ans),
+                     () -> "\"" + EQUATIONS[equation] + "\" at x = " + xVal + " gave " + ans + " instead of "
+                           + Double.longBitsToDouble(expected));
+    }
+}
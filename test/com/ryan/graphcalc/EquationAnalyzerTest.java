@@ -0,0 +1,86 @@
+/*
+ * EquationAnalyzerTest.java
+ * Checks the roots, extremums and intersections found by EquationAnalyzer against ones known exactly,
+ * and that sign changes across asymptotes are not reported as roots
+ */
+package com.ryan.graphcalc;
+
+import com.ryan.graphcalc.EquationAnalyzer.Feature;
+import com.ryan.graphcalc.EquationAnalyzer.FeatureType;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EquationAnalyzerTest {
+    // how close a found x value has to be to the exact one
+    private static final double TOLERANCE = 1e-9;
+
+    private final EquationEngine engine = new EquationEngine();
+
+    private final EquationAnalyzer analyzer = new EquationAnalyzer(-15, 15);
+
+    @Test
+    void rootsAreNarrowedToFullPrecision() throws Exception {
+        List<Feature> roots = analyzer.findRoots(engine.compile("x^2 - 2"));
+        assertFeatures(roots, FeatureType.ROOT, -Math.sqrt(2), Math.sqrt(2));
+
+        // every multiple of pi in the range, in increasing order
+        roots = analyzer.findRoots(engine.compile("sin(x)"));
+        assertEquals(9, roots.size());
+        for(int i = 0; i < roots.size(); i++) {
+            assertEquals((i - 4) * Math.PI, roots.get(i).getXVal(), TOLERANCE);
+        }
+    }
+
+    @Test
+    void touchingRootsAreFound() throws Exception {
+        // the curve only touches 0, so there is no sign change to bracket
+        assertFeatures(analyzer.findRoots(engine.compile("(x - 1.3)^2")), FeatureType.ROOT, 1.3);
+    }
+
+    @Test
+    void asymptotesAreNotRoots() throws Exception {
+        assertTrue(analyzer.findRoots(engine.compile("1 / (x - 0.7)")).isEmpty());
+        // tan changes sign at its roots and at its poles, only the roots are kept
+        List<Feature> roots = analyzer.findRoots(engine.compile("tan(x)"));
+        for(Feature root : roots) {
+            assertEquals(0, Math.sin(root.getXVal()), TOLERANCE, "x = " + root.getXVal());
+        }
+        assertEquals(9, roots.size());
+    }
+
+    @Test
+    void extremaAreFoundWithTheirAnswers() throws Exception {
+        List<Feature> extrema = analyzer.findExtrema(engine.compile("x^3 - 3x"));
+        assertEquals(2, extrema.size());
+        assertEquals(FeatureType.MAXIMUM, extrema.get(0).getType());
+        assertEquals(-1, extrema.get(0).getXVal(), 1e-7);
+        assertEquals(2, extrema.get(0).getYVal(), TOLERANCE);
+        assertEquals(FeatureType.MINIMUM, extrema.get(1).getType());
+        assertEquals(1, extrema.get(1).getXVal(), 1e-7);
+        assertEquals(-2, extrema.get(1).getYVal(), TOLERANCE);
+
+        // the sides of a pole rise towards it without an extremum
+        assertTrue(analyzer.findExtrema(engine.compile("1 / (x - 0.7)^2")).isEmpty());
+    }
+
+    @Test
+    void intersectionsAreRootsOfTheDifference() throws Exception {
+        List<Feature> intersections = analyzer.findIntersections(engine.compile("x^2"), engine.compile("x + 2"));
+        assertFeatures(intersections, FeatureType.INTERSECTION, -1, 2);
+        assertEquals(1, intersections.get(0).getYVal(), TOLERANCE);
+        assertEquals(4, intersections.get(1).getYVal(), TOLERANCE);
+    }
+
+    // check the features are of the given type at exactly the given x values, in order
+    private static void assertFeatures(List<Feature> features, FeatureType type, double... xVals) {
+        assertEquals(xVals.length, features.size());
+        for(int i = 0; i < xVals.length; i++) {
+            assertEquals(type, features.get(i).getType());
+            assertEquals(xVals[i], features.get(i).getXVal(), TOLERANCE);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * EquationBytecodeCompilerTest.java
+ * Checks that the generated classes give the same answers as the trees they were made from, with and
+ * without FastTrig and with shared parts, and that equations the compiler can not handle keep working
+ * on the tree
+ */
+package com.ryan.graphcalc;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.function.DoubleUnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class EquationBytecodeCompilerTest {
+    // x values each equation is solved for
+    private static final double[] X_VALS = { -3.75, -1, -0.0, 0, 0.5, 2, 7.25, Double.NaN };
+
+    // random equations checked
+    private static final int NUM_EQUATIONS = 1000;
+
+    private final EquationEngine engine = new EquationEngine();
+
+    @BeforeEach
+    void requireBytecode() {
+        assumeTrue(EquationBytecodeCompiler.isEnabled(), "bytecode compiling is turned off");
+    }
+
+    @Test
+    void generatedClassesMatchTheTree() throws Exception {
+        RandomEquations randomEquations = new RandomEquations(20171);
+        for(int i = 0; i < NUM_EQUATIONS; i++) {
+            String equation = randomEquations.next(6);
+            for(boolean fastTrig : new boolean[] {false, true}) {
+                checkMatchesTree(engine.compile(equation, fastTrig));
+            }
+        }
+    }
+
+    @Test
+    void sharedPartsAreSolvedOnceAndMatch() throws Exception {
+        CompiledEquation compiledEquation = engine.compile("sin(x)^2 + 2sin(x) + 1 + (x + 1) / (x + 1)");
+        assertTrue(compiledEquation.getNumSharedNodes() < compiledEquation.getNumNodes());
+        checkMatchesTree(compiledEquation);
+        assertTrue(compiledEquation.isBytecodeCompiled());
+    }
+
+    @Test
+    void onlyEquationsWithXAreCompiled() throws Exception {
+        assertFalse(engine.compile("2 * (3 + 4)").isBytecodeCompiled());
+        assertTrue(engine.compile("2 * (3 + x)").isBytecodeCompiled());
+    }
+
+    @Test
+    void derivativesKeepSolvingTheTree() throws Exception {
+        CompiledEquation derivative = engine.compile("x^3").differentiate("y' = d/dx(x^3)", 1);
+        assertFalse(derivative.isBytecodeCompiled());
+        for(int i = 0; i < 20; i++) {
+            assertEquals(12, derivative.evaluate(2), 0);
+        }
+    }
+
+    // the generated class gives the answers of the tree, every NaN counting as the same
+    private static void checkMatchesTree(CompiledEquation compiledEquation) throws Exception {
+        EquationNode root = compiledEquation.getRoot();
+        DoubleUnaryOperator function = EquationBytecodeCompiler.compile(root);
+        for(double xVal : X_VALS) {
+            assertEquals(Double.doubleToLongBits(root.evaluate(xVal)),
+                         Double.doubleToLongBits(function.applyAsDouble(xVal)),
+                         () -> "\"" + compiledEquation.getEquationLine() + "\" at x = " + xVal
+                               + (compiledEquation.isFastTrig() ? " with FastTrig" : ""));
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * EquationParserTest.java
+ * Checks the rules equations are solved by, and that the single-pass EquationEvaluator and the tree built
+ * by EquationParser follow them the same way: the same answers down to the sign of zero, and the same error messages
+ */
+package com.ryan.graphcalc;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EquationParserTest {
+    // x values each random equation is solved for
+    private static final double[] X_VALS = { -3.75, -1, -0.0, 0, 0.5, 2, 7.25 };
+
+    // random equations checked
+    private static final int NUM_EQUATIONS = 3000;
+
+    private final EquationEngine engine = new EquationEngine();
+
+    @Test
+    void operatorsFollowTheirPrecedence() throws Exception {
+        checkAnswer("2 + 3 * 4 - 5 / 2", 11.5);
+        checkAnswer("8 / 4 / 2", 1);
+        checkAnswer("8 - 4 - 2", 2);
+        // powers are solved left to right like the other operators
+        checkAnswer("2^3^2", 64);
+        // a negative sign belongs to the value right after it, so it is solved before a power
+        checkAnswer("-2^2", 4);
+        checkAnswer("2^-1", 0.5);
+        checkAnswer("2 * -3", -6);
+        checkAnswer("--3", 3);
+        checkAnswer("y = (1 + 2) * (3 - 4)", -3);
+        checkAnswer("sin(0) + cos(0) * 2", 2);
+    }
+
+    @Test
+    void multiplicationCanBeLeftOut() throws Exception {
+        checkAnswer("2(3 + 4)", 14);
+        checkAnswer("(2)(3)", 6);
+        checkAnswer("2x", 4);
+        checkAnswer("x(x + 1)", 6);
+        checkAnswer("2sin(x)", 2 * Math.sin(2));
+        checkAnswer("sin(x)cos(x)", Math.sin(2) * Math.cos(2));
+        checkAnswer(".5 + 5.", 5.5);
+    }
+
+    @Test
+    void mistakesGiveTheSameErrorBothWays() {
+        checkError("", "There is no equation to solve");
+        checkError("1 +", "Missing a value at the end of \"1 +\"");
+        checkError("(1 + 2", "Failed to find closing parentheses after \"\"");
+        checkError("2 3", "Unexpected \"3\" after \"2 \"");
+        checkError("pi", "Unexpected \"p\" after \"\"");
+        checkError("1..2", "\"1..2\" is not a number");
+    }
+
+    @Test
+    void equationsWithoutXNeedNoValue() throws Exception {
+        assertEquals(14, engine.solve("2(3 + 4)"), 0);
+        Exception exception = assertThrows(Exception.class, () -> engine.solve("2x"));
+        assertEquals("Equation \"2x\" needs a value for x", exception.getMessage());
+    }
+
+    @Test
+    void evaluatorMatchesTreeForRandomEquations() throws Exception {
+        RandomEquations randomEquations = new RandomEquations(20171);
+        for(int i = 0; i < NUM_EQUATIONS; i++) {
+            String equation = randomEquations.next(6);
+            // solved once, so the tree is not compiled to bytecode
+            EquationNode root = engine.compile(equation).getRoot();
+            for(double xVal : X_VALS) {
+                // every NaN counts as the same, the sign of a NaN depends on the order operands are read in
+                assertEquals(Double.doubleToLongBits(engine.solve(equation, xVal)),
+                             Double.doubleToLongBits(root.evaluate(xVal)),
+                             () -> "\"" + equation + "\" at x = " + xVal);
+            }
+        }
+    }
+
+    @Test
+    void longEquationsAreSolvedWithoutRecursion() throws Exception {
+        // far more terms than the call stack could hold frames for
+        StringBuilder equation = new StringBuilder("0");
+        for(int i = 0; i < 200000; i++) {
+            equation.append(" + 1");
+        }
+        assertEquals(200000, engine.solve(equation.toString()), 0);
+    }
+
+    // check the evaluator and the tree both give answer for x = 2
+    private void checkAnswer(String equation, double answer) throws Exception {
+        assertEquals(answer, engine.solve(equation, 2), 1e-15, equation);
+        assertEquals(answer, engine.compile(equation).evaluate(2), 1e-15, equation);
+    }
+
+    private void checkError(String equation, String message) {
+        assertEquals(message, assertThrows(Exception.class, () -> engine.solve(equation, 2)).getMessage());
+        assertEquals(message, assertThrows(Exception.class, () -> engine.compile(equation)).getMessage());
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * EquationSimplifyTest.java
+ * Checks that simplified trees give exactly the same answers as solving the equation as it was typed,
+ * down to the sign of zero, and that the parts that can be solved ahead of time are removed
+ */
+package com.ryan.graphcalc;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EquationSimplifyTest {
+    // x values that tell apart identities which only almost hold
+    private static final double[] X_VALS = { -2, -0.0, 0, 1.5, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+                                             Double.NaN };
+
+    private final EquationEngine engine = new EquationEngine();
+
+    @Test
+    void simplifiedAnswersMatchBitForBit() throws Exception {
+        String[] equations = { "x + 0", "x - 0", "0 + x", "-0 + x", "x - -0", "x + -0", "x * 1", "1 * x",
+                               "x / 1", "x ^ 1", "x ^ 0", "x * 0", "x + 2 * 3", "sin(2) * x", "(x + 1)^2",
+                               "x^2", "1 / (x * -0 - -0)", "2(3 + 4) - x / (1 - 1)" };
+        for(String equation : equations) {
+            CompiledEquation compiledEquation = engine.compile(equation);
+            for(double xVal : X_VALS) {
+                double expected = engine.solve(equation, xVal);
+                // solved enough times to be compiled to bytecode as well
+                for(int i = 0; i < 20; i++) {
+                    assertEquals(Double.doubleToRawLongBits(expected),
+                                 Double.doubleToRawLongBits(compiledEquation.evaluate(xVal)),
+                                 () -> "\"" + equation + "\" at x = " + xVal);
+                }
+            }
+        }
+    }
+
+    @Test
+    void constantPartsAreSolvedAheadOfTime() throws Exception {
+        CompiledEquation constant = engine.compile("2 * (3 + 4) - sin(0)");
+        assertEquals(1, constant.getNumNodes());
+        assertEquals(14, constant.evaluate(0), 0);
+
+        // x * (2 * 3) becomes x * 6
+        CompiledEquation folded = engine.compile("x * (2 * 3)");
+        assertEquals(3, folded.getNumNodes());
+        assertEquals(2, folded.getNumNodesRemoved());
+    }
+
+    @Test
+    void onlyExactIdentitiesAreRemoved() throws Exception {
+        // removing these gives the same answer for every x
+        assertEquals(1, engine.compile("x - 0").getNumNodes());
+        assertEquals(1, engine.compile("x * 1").getNumNodes());
+        assertEquals(1, engine.compile("1 * x").getNumNodes());
+        assertEquals(1, engine.compile("x / 1").getNumNodes());
+        assertEquals(1, engine.compile("x ^ 1").getNumNodes());
+        assertEquals(1, engine.compile("x ^ 0").getNumNodes());
+
+        // these change the answer for -0, NaN or infinity
+        assertTrue(engine.compile("x + 0").getNumNodes() > 1);
+        assertTrue(engine.compile("0 + x").getNumNodes() > 1);
+        assertTrue(engine.compile("x - -0").getNumNodes() > 1);
+        assertTrue(engine.compile("x * 0").getNumNodes() > 1);
+    }
+
+    @Test
+    void repeatedPartsAreShared() throws Exception {
+        CompiledEquation compiledEquation = engine.compile("sin(x)^2 + 2sin(x) + 1");
+        assertTrue(compiledEquation.getNumSharedNodes() < compiledEquation.getNumNodes());
+        for(double xVal : X_VALS) {
+            assertEquals(Double.doubleToRawLongBits(engine.solve("sin(x)^2 + 2sin(x) + 1", xVal)),
+                         Double.doubleToRawLongBits(compiledEquation.evaluate(xVal)));
+        }
+    }
+}
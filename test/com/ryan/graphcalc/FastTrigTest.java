@@ -0,0 +1,75 @@
+/*
+ * FastTrigTest.java
+ * Checks FastTrig against the Math trig functions over dense sweeps of x, and that its documented
+ * largest errors hold. Also checks that the batch functions give the same answers as one at a time
+ */
+package com.ryan.graphcalc;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FastTrigTest {
+    // points checked by each sweep
+    private static final int NUM_CHECKED = 4000000;
+
+    // tan is only checked where it is smaller than this, closer to its poles both functions mostly
+    // measure how x was rounded
+    private static final double MAX_CHECKED_TAN = 1e8;
+
+    // compare FastTrig with the Math functions over a graph sized range, the whole reduced range, and
+    // right around the multiples of pi / 2 where the quadrant changes
+    @ParameterizedTest
+    @EnumSource(TrigFunction.class)
+    void errorStaysWithinBound(TrigFunction trigFunction) {
+        Random random = new Random(20171);
+        double maxError = 0;
+        for(int i = 0; i < NUM_CHECKED; i++) {
+            maxError = Math.max(maxError, error(trigFunction, -100 + 200.0 * i / NUM_CHECKED));
+            maxError = Math.max(maxError, error(trigFunction, (random.nextDouble() * 2 - 1) * 1e6));
+            double nearQuadrant = (random.nextInt(2000001) - 1000000) * Math.PI / 2
+                                  + (random.nextDouble() - 0.5) * 1e-3;
+            maxError = Math.max(maxError, error(trigFunction, nearQuadrant));
+        }
+        for(double special : new double[] {0, -0.0, Double.NaN, Double.POSITIVE_INFINITY, 2e6, -3e9}) {
+            maxError = Math.max(maxError, error(trigFunction, special));
+        }
+        double bound = (trigFunction == TrigFunction.TAN) ? FastTrig.MAX_TAN_REL_ERROR : FastTrig.MAX_ABS_ERROR;
+        assertTrue(maxError <= bound, "FastTrig " + trigFunction + " error " + maxError
+                                      + " is over its bound of " + bound);
+    }
+
+    @ParameterizedTest
+    @EnumSource(TrigFunction.class)
+    void batchMatchesSingleValues(TrigFunction trigFunction) {
+        double[] xVals = new double[1000];
+        for(int i = 0; i < xVals.length; i++) {
+            xVals[i] = -20 + 40.0 * i / xVals.length;
+        }
+        double[] yVals = new double[xVals.length];
+        trigFunction.applyFast(xVals, yVals, xVals.length);
+        for(int i = 0; i < xVals.length; i++) {
+            assertEquals(trigFunction.applyFast(xVals[i]), yVals[i], 0, "x = " + xVals[i]);
+        }
+    }
+
+    // absolute error of sin and cos, relative error of tan
+    private static double error(TrigFunction trigFunction, double x) {
+        double expected = trigFunction.apply(x);
+        double actual = trigFunction.applyFast(x);
+        if(Double.isNaN(expected) || Double.isNaN(actual)) {
+            return (Double.isNaN(expected) == Double.isNaN(actual)) ? 0 : Double.POSITIVE_INFINITY;
+        }
+        if(trigFunction != TrigFunction.TAN) {
+            return Math.abs(actual - expected);
+        }
+        if(Math.abs(expected) > MAX_CHECKED_TAN) {
+            return 0;
+        }
+        return (expected == 0) ? Math.abs(actual) : Math.abs(actual - expected) / Math.abs(expected);
+    }
+}
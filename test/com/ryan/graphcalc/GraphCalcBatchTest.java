@@ -0,0 +1,67 @@
+/*
+ * GraphCalcBatchTest.java
+ * Checks that GraphCalcBatch writes one result per input line in input order, answers with no value
+ * as NaN or Infinity instead of a rounded number, and errors in place of lines that can not be solved
+ */
+package com.ryan.graphcalc;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GraphCalcBatchTest {
+    @Test
+    void resultsLineUpWithInput() throws Exception {
+        String[] results = run("2 + 3 * 4\r\n\n1/3\n(1 + 2\n2x", Double.NaN);
+        assertEquals(Arrays.asList("14.0", "", "0.333333", "error: Failed to find closing parentheses after \"\"",
+                                   "error: Equation \"2x\" needs a value for x"), Arrays.asList(results));
+    }
+
+    @Test
+    void answersWithoutValueAreNotRounded() throws Exception {
+        String[] results = run("1/0\n-1/0\n0/0\ny = 1 / x", 0);
+        assertEquals(Arrays.asList("Infinity", "-Infinity", "NaN", "Infinity"), Arrays.asList(results));
+    }
+
+    @Test
+    void manyLinesKeepTheirOrder() throws Exception {
+        StringBuilder input = new StringBuilder();
+        for(int i = 0; i < 20000; i++) {
+            input.append(i).append(" + x\n");
+        }
+        String[] results = run(input.toString(), 0.5);
+        assertEquals(20000, results.length);
+        for(int i = 0; i < results.length; i++) {
+            assertEquals(Double.toString(i + 0.5), results[i]);
+        }
+    }
+
+    @Test
+    void tooLongLinesAreReportedInPlace() throws Exception {
+        // more than a megabyte without a newline, like a binary file
+        char[] longLine = new char[3 * 1024 * 1024];
+        Arrays.fill(longLine, '1');
+        String[] results = run("1 + 1\n" + new String(longLine) + "\n2 + 2", Double.NaN);
+        assertEquals(Arrays.asList("2.0", "error: Line is longer than 1048576 bytes", "4.0"), Arrays.asList(results));
+    }
+
+    // solve the lines of input with 4 threads, returning one result per line
+    private static String[] run(String input, double xVal) throws Exception {
+        GraphCalcBatch batch = new GraphCalcBatch(4, xVal);
+        StringWriter out = new StringWriter();
+        try {
+            batch.run(Channels.newChannel(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8))), out);
+        } finally {
+            batch.shutdown();
+        }
+        // every result ends with a newline, so the last piece is always empty
+        String[] results = out.toString().split("\n", -1);
+        return Arrays.copyOf(results, results.length - 1);
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * GraphCalcServerTest.java
+ * Runs GraphCalcServer on a free port and checks its answers over HTTP: answers with no value come
+ * back as null, and equations or bodies that are too large get an error instead of an empty reply
+ */
+package com.ryan.graphcalc;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GraphCalcServerTest {
+    private GraphCalcServer server;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        // port 0 picks any free port
+        server = new GraphCalcServer(0);
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void answersAreRounded() throws Exception {
+        assertEquals("{\"result\": 0.333333}", get("/eval?expr=" + encode("1/3")).body);
+        assertEquals("{\"result\": 4.5}", get("/eval?expr=" + encode("y = 3x") + "&x=1.5").body);
+    }
+
+    @Test
+    void answersWithoutValueAreNull() throws Exception {
+        assertEquals("{\"result\": null}", get("/eval?expr=" + encode("1/0")).body);
+        assertEquals("{\"result\": null}", get("/eval?expr=" + encode("-1/0")).body);
+        assertEquals("{\"result\": null}", get("/eval?expr=" + encode("0/0")).body);
+    }
+
+    @Test
+    void deeplyNestedEquationsGetAnError() throws Exception {
+        StringBuilder equation = new StringBuilder();
+        for(int i = 0; i < 5000; i++) {
+            equation.append("-(");
+        }
+        equation.append('1');
+        for(int i = 0; i < 5000; i++) {
+            equation.append(')');
+        }
+        Response response = post("/eval", "expr=" + encode(equation.toString()));
+        assertEquals(400, response.status);
+        assertTrue(response.body.contains("nested"), response.body);
+    }
+
+    @Test
+    void longChainsGetAnAnswerOrAnError() throws Exception {
+        // no nesting at all, but the tree is as deep as the chain is long
+        StringBuilder equation = new StringBuilder("0");
+        for(int i = 0; i < 15000; i++) {
+            equation.append("+1");
+        }
+        Response response = post("/eval", "expr=" + encode(equation.toString()));
+        assertTrue(response.status == 200 ? response.body.equals("{\"result\": 15000.0}")
+                                          : response.status == 400 && response.body.startsWith("{\"error\": "),
+                   response.status + " " + response.body);
+    }
+
+    @Test
+    void largeBodiesAreRefused() throws Exception {
+        StringBuilder body = new StringBuilder("expr=1");
+        while(body.length() <= 64 * 1024) {
+            body.append("%2B1");
+        }
+        Response response = post("/eval", body.toString());
+        assertEquals(400, response.status);
+        assertTrue(response.body.contains("larger than"), response.body);
+    }
+
+    // status and body of a response
+    private static class Response {
+        final int status;
+        final String body;
+
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    private Response get(String path) throws IOException {
+        return read(open(path));
+    }
+
+    private Response post(String path, String form) throws IOException {
+        HttpURLConnection connection = open(path);
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(form.getBytes(StandardCharsets.UTF_8));
+        }
+        return read(connection);
+    }
+
+    private HttpURLConnection open(String path) throws IOException {
+        return (HttpURLConnection) new URL("http://localhost:" + server.getPort() + path).openConnection();
+    }
+
+    private static Response read(HttpURLConnection connection) throws IOException {
+        int status = connection.getResponseCode();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (InputStream in = (status < 400) ? connection.getInputStream() : connection.getErrorStream()) {
+            byte[] buffer = new byte[4096];
+            int numRead;
+            while((numRead = in.read(buffer)) != -1) {
+                bytes.write(buffer, 0, numRead);
+            }
+        }
+        return new Response(status, new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    private static String encode(String value) throws IOException {
+        return URLEncoder.encode(value, "UTF-8");
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * IntervalCullingTest.java
+ * Checks that the interval each equation gives for a range of x holds every answer in that range, and
+ * that IntervalCuller only culls points whose answers are off screen or inside one pixel row
+ */
+package com.ryan.graphcalc;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntervalCullingTest {
+    // equations covering every operator, trig, poles and powers with negative bases
+    private static final String[] EQUATIONS = {
+            "3x^2 - 2x + 1",
+            "sin(x) * cos(2x) + tan(x / 4)",
+            "(x + 1)(x - 1) / (x * x + 1)",
+            "1 / (x - 0.7)",
+            "-x^3 + 2^x",
+            "x^x",
+            "(x - 2)^-2",
+            "x^3 * 1000",
+            "cos(x) / 1000 + 3"
+    };
+
+    // random ranges checked for each equation, and points checked inside each of them
+    private static final int NUM_RANGES = 2000;
+    private static final int POINTS_PER_RANGE = 50;
+
+    private static final double LINE_WIDTH = 2;
+
+    private final EquationEngine engine = new EquationEngine();
+
+    @Test
+    void intervalsHoldEveryAnswer() throws Exception {
+        Random random = new Random(20171);
+        for(String equation : EQUATIONS) {
+            for(boolean fastTrig : new boolean[] {false, true}) {
+                CompiledEquation compiledEquation = engine.compile(equation, fastTrig);
+                for(int range = 0; range < NUM_RANGES; range++) {
+                    double lo = (random.nextDouble() * 2 - 1) * 20;
+                    double hi = lo + random.nextDouble() * Math.pow(10, random.nextInt(4) - 2);
+                    Interval answers = compiledEquation.getRoot().evaluateInterval(Interval.of(lo, hi));
+                    for(int i = 0; i <= POINTS_PER_RANGE; i++) {
+                        double xVal = (i == POINTS_PER_RANGE) ? hi : lo + (hi - lo) * i / POINTS_PER_RANGE;
+                        double yVal = compiledEquation.evaluate(xVal);
+                        // an interval that is not WHOLE promises a finite answer at every x
+                        assertTrue(answers == Interval.WHOLE || Double.isFinite(yVal) && answers.contains(yVal),
+                                   () -> "\"" + equation + "\" at x = " + xVal + " gave " + yVal + " outside "
+                                         + answers + " for [" + lo + ", " + hi + "]");
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void culledPointsAreOffScreenOrInOneRow() throws Exception {
+        PlotViewport viewport = new PlotViewport(-15, 15, 600, 600, 22);
+        IntervalCuller culler = new IntervalCuller(viewport, LINE_WIDTH);
+        double maxY = viewport.fromScreenY(-LINE_WIDTH);
+        double minY = viewport.fromScreenY(viewport.getScreenHeight() + LINE_WIDTH);
+        double[] xVals = new double[1200];
+        for(int i = 0; i < xVals.length; i++) {
+            xVals[i] = -15 + 0.025 * i;
+        }
+        for(String equation : EQUATIONS) {
+            CompiledEquation compiledEquation = engine.compile(equation);
+            boolean[] culled = new boolean[xVals.length];
+            culler.cull(compiledEquation.getRoot(), xVals, new boolean[xVals.length], culled);
+            // a culled run lies between two points that were kept
+            int runStart = 0;
+            for(int i = 1; i < xVals.length; i++) {
+                if(culled[i]) {
+                    continue;
+                }
+                if(i - runStart > 1) {
+                    checkRun(compiledEquation, viewport, xVals, runStart, i, minY, maxY);
+                }
+                runStart = i;
+            }
+        }
+    }
+
+    // every answer of the run is off the same side of the screen, or the whole run is in one pixel row
+    private static void checkRun(CompiledEquation compiledEquation, PlotViewport viewport, double[] xVals,
+                                 int from, int to, double minY, double maxY) {
+        double lo = Double.POSITIVE_INFINITY;
+        double hi = Double.NEGATIVE_INFINITY;
+        for(int i = from; i <= to; i++) {
+            double yVal = compiledEquation.evaluate(xVals[i]);
+            assertTrue(Double.isFinite(yVal), compiledEquation.getEquationLine() + " at x = " + xVals[i]);
+            lo = Math.min(lo, yVal);
+            hi = Math.max(hi, yVal);
+        }
+        boolean offScreen = lo > maxY || hi < minY;
+        boolean oneRow = Math.floor(viewport.toScreenY(hi)) == Math.floor(viewport.toScreenY(lo));
+        assertTrue(offScreen || oneRow, compiledEquation.getEquationLine() + " culled from x = " + xVals[from]
+                                        + " to " + xVals[to]);
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * RandomEquations.java
+ * Builds random equations as they could be typed, with every operator, negative signs, nested and
+ * implicit parentheses, trig functions and x, so the different ways of solving an equation can be
+ * checked against each other
+ */
+package com.ryan.graphcalc;
+
+import java.util.Random;
+
+class RandomEquations {
+    private static final String[] OPERATORS = { " + ", " - ", " * ", " / ", "^" };
+    private static final String[] TRIG_FUNCTIONS = { "sin", "cos", "tan" };
+
+    private final Random mRandom;
+
+    RandomEquations(long seed) {
+        mRandom = new Random(seed);
+    }
+
+    // an equation with up to depth levels of nesting
+    String next(int depth) {
+        if(depth == 0 || mRandom.nextInt(4) == 0) {
+            return nextValue();
+        }
+        switch(mRandom.nextInt(6)) {
+            case 0:
+                return "-" + next(depth - 1);
+            case 1:
+                return "(" + next(depth - 1) + ")";
+            case 2:
+                return TRIG_FUNCTIONS[mRandom.nextInt(TRIG_FUNCTIONS.length)] + "(" + next(depth - 1) + ")";
+            case 3:
+                // implicit multiplication of a number and what follows it
+                return nextNumber() + "(" + next(depth - 1) + ")";
+            default:
+                return next(depth - 1) + OPERATORS[mRandom.nextInt(OPERATORS.length)] + next(depth - 1);
+        }
+    }
+
+    private String nextValue() {
+        switch(mRandom.nextInt(4)) {
+            case 0:
+                return "x";
+            case 1:
+                return nextNumber() + "x";
+            default:
+                return nextNumber();
+        }
+    }
+
+    private String nextNumber() {
+        switch(mRandom.nextInt(4)) {
+            case 0:
+                return "0";
+            case 1:
+                return Integer.toString(mRandom.nextInt(10));
+            default:
+                return Double.toString(Math.round(mRandom.nextDouble() * 1000) / 100.0);
+        }
+    }
+}
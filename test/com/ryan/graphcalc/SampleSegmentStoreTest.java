@@ -0,0 +1,96 @@
+/*
+ * SampleSegmentStoreTest.java
+ * Samples overlapping ranges, halved and doubled steps and ranges on both sides of x = 0 through one
+ * SampleSegmentStore, checking every answer against GraphSampler.sample from scratch and that exactly the
+ * points the store could not know were solved. The steps are powers of two, so grid x values are exact
+ */
+package com.ryan.graphcalc;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SampleSegmentStoreTest {
+    private final EquationEngine engine = new EquationEngine();
+
+    private final GraphSampler sampler = new GraphSampler();
+
+    private CompiledEquation compiledEquation;
+
+    private SampleSegmentStore store;
+
+    @BeforeEach
+    void createStore() throws Exception {
+        compiledEquation = engine.compile("sin(x) * x - x / 3");
+        store = new SampleSegmentStore(compiledEquation, sampler);
+    }
+
+    @Test
+    void overlappingRangesReuseTheirCommonPoints() {
+        // grid indexes -20 to 19
+        checkSample(-5, 5, 0.25, 40, 0);
+        checkSample(-5, 5, 0.25, 0, 40);
+        // indexes 0 to 39, the first 20 are known
+        checkSample(0, 10, 0.25, 20, 20);
+        // starts off the grid, at index -31, and ends inside what is known at index 7
+        checkSample(-7.9, 2, 0.25, 11, 28);
+    }
+
+    @Test
+    void touchingSegmentsAreMerged() {
+        checkSample(-5, 0, 0.25, 20, 0);
+        checkSample(0, 5, 0.25, 20, 0);
+        checkSample(7, 8, 0.25, 4, 0);
+        // the two touching segments are one now, the gap up to 7 is solved
+        checkSample(-5, 8, 0.25, 8, 44);
+        checkSample(-5, 8, 0.25, 0, 52);
+    }
+
+    @Test
+    void coarserAndFinerGridsAreReused() {
+        // indexes -20 to 19 of the 0.25 grid
+        checkSample(-5, 5, 0.25, 40, 0);
+        // doubled step, indexes -20 to 19 of the 0.5 grid. Indexes -10 to 9 are every other point known
+        checkSample(-10, 10, 0.5, 20, 20);
+        // halved step, indexes -24 to 23 of the 0.125 grid. The even ones are known from the coarser grids
+        checkSample(-3, 3, 0.125, 24, 24);
+        // the 0.25 grid gets the odd indexes from the finest grid and the rest from its own
+        checkSample(-3, 3, 0.25, 0, 24);
+        // quartered step against the 0.5 grid between -10 and -5, where no other grid has points
+        checkSample(-10, -9, 0.125, 6, 2);
+    }
+
+    @Test
+    void culledPointsAreNotRemembered() throws Exception {
+        compiledEquation = engine.compile("x^3 * 1000");
+        store = new SampleSegmentStore(compiledEquation, sampler);
+        IntervalCuller culler = new IntervalCuller(new PlotViewport(-16, 16, 512, 512, 22), 2);
+        SampleSegmentStore.sample(Collections.singletonList(store), -16, 16, 0.25, culler);
+        int numCulled = store.getLastNumCulled();
+        assertTrue(numCulled > 0);
+        assertEquals(128, store.getLastNumSolved() + numCulled);
+
+        // without the culler the culled points are missing, the rest are known
+        checkSample(-16, 16, 0.25, numCulled, 128 - numCulled);
+    }
+
+    // sample [start, end) through the store, check the answers against sampling from scratch, and the
+    // number of points solved and reused
+    private void checkSample(double start, double end, double step, int numSolved, int numReused) {
+        SampleBuffer samples = store.sample(start, end, step);
+        double firstX = SampleSegmentStore.firstGridIndex(start, step) * step;
+        SampleBuffer expected = sampler.sample(compiledEquation, firstX, end, step);
+        assertEquals(expected.getNumPoints(), samples.getNumPoints());
+        for(int i = 0; i < expected.getNumPoints(); i++) {
+            assertEquals(expected.getXVals()[i], samples.getXVals()[i], 0);
+            assertEquals(Double.doubleToRawLongBits(expected.getYVals()[i]),
+                         Double.doubleToRawLongBits(samples.getYVals()[i]), "x = " + expected.getXVals()[i]);
+        }
+        assertEquals(numSolved, store.getLastNumSolved(), "points solved");
+        assertEquals(numReused, store.getLastNumReused(), "points reused");
+    }
+}